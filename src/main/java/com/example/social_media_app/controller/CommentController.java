@@ -1,5 +1,7 @@
 package com.example.social_media_app.controller;
 
+import com.example.social_media_app.dto.CommentDto;
+import com.example.social_media_app.dto.CommentPageDto;
 import com.example.social_media_app.model.Comment;
 import com.example.social_media_app.model.Post;
 import com.example.social_media_app.model.User;
@@ -7,36 +9,67 @@ import com.example.social_media_app.service.CommentService;
 import com.example.social_media_app.service.PostService;
 import com.example.social_media_app.service.UserService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Optional;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api/comments")
 @RequiredArgsConstructor
+@Slf4j
 public class CommentController {
 
     private final CommentService commentService;
     private final UserService userService;
     private final PostService postService;
 
+    @Value("${app.comments.page-size:20}")
+    private int commentPageSize;
+
+    // One page of comments, oldest first, plus an opaque cursor for the next one
     @GetMapping("/{postId}")
-    public ResponseEntity<List<Comment>> getCommentsForPost(@PathVariable Long postId) {
+    public ResponseEntity<Map<String, Object>> getCommentsForPost(
+            @PathVariable Long postId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        CommentPageDto page;
         try {
-            List<Comment> comments = commentService.getCommentsByPostId(postId);
-          return ResponseEntity.ok(comments);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.badRequest().build();
+            page = commentService.getCommentPage(postId, cursor, limit != null ? limit : commentPageSize);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("comments", page.comments());
+        response.put("nextCursor", page.nextCursor());
+        response.put("hasMore", page.hasMore());
+
+        return ResponseEntity.ok(response);
+    }
+
+    // The whole subtree below a comment, depth-first, for "View N replies"
+    @GetMapping("/{commentId}/replies")
+    public ResponseEntity<Map<String, Object>> getReplies(@PathVariable Long commentId) {
+        Optional<List<CommentDto>> replies = commentService.getReplies(commentId);
+        if (replies.isEmpty()) {
+            return ResponseEntity.notFound().build();
         }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("replies", replies.get());
+        return ResponseEntity.ok(response);
     }
 
 @PostMapping("/{postId}")
-    public ResponseEntity<Comment> createComment(
+    public ResponseEntity<?> createComment(
             @PathVariable Long postId,
             @RequestBody Map<String, String> payload,
             @AuthenticationPrincipal UserDetails userDetails
@@ -59,17 +92,32 @@ public class CommentController {
                 return ResponseEntity.badRequest().build();
             }
 
+            // Optional: the comment being replied to
+            String parentId = payload.get("parentId");
+            Long parent = null;
+            if (parentId != null && !parentId.isBlank()) {
+                try {
+                    parent = Long.valueOf(parentId);
+                } catch (NumberFormatException e) {
+                    return ResponseEntity.badRequest().body(Map.of("error", "Invalid parent comment id"));
+                }
+            }
+
             Comment comment = Comment.builder()
                     .content(content.trim())
                     .post(post)
                     .user(user)
+                    .parentId(parent)
                     .build();
             
             Comment savedComment = commentService.save(comment);
             
             return ResponseEntity.ok(savedComment);
+        } catch (IllegalArgumentException e) {
+            // A reply to a missing comment, another post's comment or too deep a thread
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Failed to create comment on post {}", postId, e);
             return ResponseEntity.badRequest().build();
         }
     }
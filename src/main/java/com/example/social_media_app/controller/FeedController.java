@@ -0,0 +1,104 @@
+package com.example.social_media_app.controller;
+
+import com.example.social_media_app.dto.FeedPageDto;
+import com.example.social_media_app.model.User;
+import com.example.social_media_app.security.CustomUserDetails;
+import com.example.social_media_app.service.PostService;
+import com.example.social_media_app.service.UserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Controller
+@RequiredArgsConstructor
+public class FeedController {
+
+    private final PostService postService;
+    private final UserService userService;
+
+    // Largest batch of posts the viewer-state endpoint answers in one call
+    private static final int MAX_VIEWER_STATE_IDS = 100;
+
+    @Value("${app.feed.page-size:20}")
+    private int feedPageSize;
+
+    // JSON feed API: one page of posts plus an opaque cursor for the next one
+    @GetMapping("/api/feed")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        User user = userService.findByEmail(userDetails.getUsername());
+        if (user == null) {
+            return ResponseEntity.status(403).build();
+        }
+
+        FeedPageDto page;
+        try {
+            page = postService.getFeedPage(user.getId(), cursor, limit != null ? limit : feedPageSize);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("posts", page.getPosts());
+        response.put("nextCursor", page.getNextCursor());
+        response.put("hasMore", page.isHasMore());
+
+        return ResponseEntity.ok(response);
+    }
+
+    // Like/share state of the viewer plus counters for a whole page of post cards,
+    // replacing one status request per card and per button
+    @GetMapping("/api/feed/viewer-state")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getViewerState(
+            @RequestParam List<Long> postIds,
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
+        List<Long> ids = postIds.stream().distinct().toList();
+        if (ids.size() > MAX_VIEWER_STATE_IDS) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "At most " + MAX_VIEWER_STATE_IDS + " posts per request"));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("posts", postService.getViewerStates(userDetails.getId(), ids));
+
+        return ResponseEntity.ok(response);
+    }
+
+    // HTML fragment used by the home page to lazily append the next page of cards
+    @GetMapping("/feed/posts")
+    public String getFeedFragment(
+            @RequestParam String cursor,
+            @AuthenticationPrincipal UserDetails userDetails,
+            Model model) {
+        User user = userService.findByEmail(userDetails.getUsername());
+
+        FeedPageDto page;
+        try {
+            page = postService.getFeedPage(user.getId(), cursor, feedPageSize);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        model.addAttribute("posts", page.getPosts());
+        model.addAttribute("nextCursor", page.getNextCursor());
+
+        return "components/feed :: postList";
+    }
+}
@@ -1,18 +1,29 @@
 package com.example.social_media_app.controller;
 
+import com.example.social_media_app.dto.FriendStatsDto;
+import com.example.social_media_app.dto.RelationshipStatusDto;
 import com.example.social_media_app.model.FriendRequest;
 import com.example.social_media_app.model.User;
+import com.example.social_media_app.security.CustomUserDetails;
 import com.example.social_media_app.service.FriendRequestService;
+import com.example.social_media_app.service.FriendStatsService;
+import com.example.social_media_app.service.MutualFriendService;
+import com.example.social_media_app.service.SocialGraphService;
 import com.example.social_media_app.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -21,8 +32,13 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class FriendRequestController {
 
+    private static final int MAX_BATCH = 100;
+
     private final FriendRequestService friendRequestService;
     private final UserService userService;
+    private final MutualFriendService mutualFriendService;
+    private final SocialGraphService socialGraphService;
+    private final FriendStatsService friendStatsService;
 
     // Send friend request
     @PostMapping("/request")
@@ -200,22 +216,26 @@ public class FriendRequestController {
         return ResponseEntity.ok(friends);
     }
 
-    // Get friend counts and stats
+    // Get friend counts and stats; polled by the friends page, so served from
+    // memory and answered with 304 when nothing changed since the last poll
     @GetMapping("/stats")
-    public ResponseEntity<Map<String, Long>> getFriendStats(Authentication authentication) {
-        String email = authentication.getName();
-        User user = userService.findByEmail(email);
-
-        if (user == null) {
-            return ResponseEntity.badRequest().build();
+    public ResponseEntity<Map<String, Long>> getFriendStats(@AuthenticationPrincipal CustomUserDetails userDetails,
+            WebRequest request) {
+        FriendStatsDto friendStats = friendStatsService.getStats(userDetails.getId());
+        String etag = "\"" + friendStats.friendCount() + "-" + friendStats.incomingRequestCount() + "-"
+                + friendStats.outgoingRequestCount() + "\"";
+        // Per-user: revalidated by the browser, never stored by shared caches
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
         }
 
         Map<String, Long> stats = new HashMap<>();
-        stats.put("friendCount", friendRequestService.getFriendCount(user.getId()));
-        stats.put("incomingRequestCount", friendRequestService.getIncomingRequestCount(user.getId()));
-        stats.put("outgoingRequestCount", friendRequestService.getOutgoingRequestCount(user.getId()));
+        stats.put("friendCount", friendStats.friendCount());
+        stats.put("incomingRequestCount", friendStats.incomingRequestCount());
+        stats.put("outgoingRequestCount", friendStats.outgoingRequestCount());
 
-        return ResponseEntity.ok(stats);
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(stats);
     }
 
     // Check relationship status with another user
@@ -229,14 +249,76 @@ public class FriendRequestController {
             return ResponseEntity.badRequest().build();
         }
 
+        RelationshipStatusDto relationship = friendRequestService
+                .getRelationshipStatuses(user.getId(), List.of(userId)).get(userId);
+
         Map<String, Object> status = new HashMap<>();
-        status.put("areFriends", friendRequestService.areFriends(user.getId(), userId));
-        status.put("hasPendingRequest", friendRequestService.hasPendingRequest(user.getId(), userId));
-        status.put("hasIncomingRequest", friendRequestService.hasPendingRequest(userId, user.getId()));
+        status.put("areFriends", relationship.areFriends());
+        status.put("hasPendingRequest", relationship.hasPendingRequest());
+        status.put("hasIncomingRequest", relationship.hasIncomingRequest());
+        status.put("mutualFriends", mutualFriendService.getMutualFriendCounts(user.getId(), List.of(userId)).get(userId));
 
         return ResponseEntity.ok(status);
     }
 
+    // Relationship status with every user of a page of cards at once
+    @GetMapping("/status")
+    public ResponseEntity<Map<String, Object>> getRelationshipStatuses(@RequestParam List<Long> userIds,
+            Authentication authentication) {
+        String email = authentication.getName();
+        User user = userService.findByEmail(email);
+
+        if (user == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (userIds.size() > MAX_BATCH) {
+            return ResponseEntity.badRequest().body(Map.of("error", "At most " + MAX_BATCH + " users per request"));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("statuses", friendRequestService.getRelationshipStatuses(user.getId(), userIds));
+        return ResponseEntity.ok(response);
+    }
+
+    // Mutual friend counts for a batch of user cards
+    @GetMapping("/mutual")
+    public ResponseEntity<Map<String, Object>> getMutualFriendCounts(@RequestParam List<Long> userIds,
+            Authentication authentication) {
+        String email = authentication.getName();
+        User user = userService.findByEmail(email);
+
+        if (user == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (userIds.size() > MAX_BATCH) {
+            return ResponseEntity.badRequest().body(Map.of("error", "At most " + MAX_BATCH + " users per request"));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("mutualFriends", mutualFriendService.getMutualFriendCounts(user.getId(), userIds));
+        return ResponseEntity.ok(response);
+    }
+
+    // Degree of separation (1st, 2nd, 3rd) to each user of a batch; users
+    // farther away are left out
+    @GetMapping("/degrees")
+    public ResponseEntity<Map<String, Object>> getDegreesOfSeparation(@RequestParam List<Long> userIds,
+            Authentication authentication) {
+        String email = authentication.getName();
+        User user = userService.findByEmail(email);
+
+        if (user == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (userIds.size() > MAX_BATCH) {
+            return ResponseEntity.badRequest().body(Map.of("error", "At most " + MAX_BATCH + " users per request"));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("degrees", socialGraphService.getDegreesOfSeparation(user.getId(), userIds));
+        return ResponseEntity.ok(response);
+    }
+
     // Unfriend a user
     @DeleteMapping("/unfriend/{friendId}")
     public ResponseEntity<?> unfriend(@PathVariable Long friendId, Authentication authentication) {
@@ -1,29 +1,41 @@
 package com.example.social_media_app.controller;
 
+import com.example.social_media_app.dto.FeedPageDto;
+import com.example.social_media_app.dto.FriendSuggestionDto;
 import com.example.social_media_app.dto.UserStatsDto;
 import com.example.social_media_app.model.User;
+import com.example.social_media_app.service.FriendSuggestionService;
 import com.example.social_media_app.service.PostService;
 import com.example.social_media_app.service.UserService;
 import com.example.social_media_app.service.UserStatsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 
+import java.util.List;
+
 @Controller
 public class HomeController {
 
     private final UserService userService;
     private final PostService postService;
     private final UserStatsService userStatsService;
+    private final FriendSuggestionService friendSuggestionService;
+
+    @Value("${app.feed.page-size:20}")
+    private int feedPageSize;
 
     @Autowired
-    public HomeController(UserService userService, PostService postService, UserStatsService userStatsService) {
+    public HomeController(UserService userService, PostService postService, UserStatsService userStatsService,
+            FriendSuggestionService friendSuggestionService) {
         this.userService = userService;
         this.postService = postService;
         this.userStatsService = userStatsService;
+        this.friendSuggestionService = friendSuggestionService;
     }
 
     @GetMapping("/profile-settings")
@@ -53,16 +65,18 @@ public class HomeController {
         UserStatsDto userStats = userStatsService.getUserStats(user.getId());
 
         // Get friend suggestions limit to 8 for sidebar
-        org.springframework.data.domain.PageRequest pageRequest = org.springframework.data.domain.PageRequest.of(0, 8);
-        org.springframework.data.domain.Page<User> friendSuggestions = userService
-                .findUsersForFriendSuggestions(user.getId(), pageRequest);
+        List<FriendSuggestionDto> friendSuggestions = friendSuggestionService.getSuggestions(user.getId(), 8);
+
+        // Friend Integration: Render only the first page of the friend feed, the rest
+        // is loaded lazily through the cursor
+        FeedPageDto feedPage = postService.getFeedPage(user.getId(), null, feedPageSize);
 
-        // Friend Integration: Use friend-integrated feed instead of all posts
         model.addAttribute("currentUser", user);
         model.addAttribute("user", user);
         model.addAttribute("userStats", userStats);
-        model.addAttribute("posts", postService.getFeedPosts(user.getId()));
-        model.addAttribute("friendSuggestions", friendSuggestions.getContent());
+        model.addAttribute("posts", feedPage.getPosts());
+        model.addAttribute("nextCursor", feedPage.getNextCursor());
+        model.addAttribute("friendSuggestions", friendSuggestions);
 
 
         return "home";
@@ -1,7 +1,9 @@
 package com.example.social_media_app.controller;
 
+import com.example.social_media_app.dto.LikeStateDto;
 import com.example.social_media_app.model.Post;
 import com.example.social_media_app.model.User;
+import com.example.social_media_app.security.CustomUserDetails;
 import com.example.social_media_app.service.LikeService;
 import com.example.social_media_app.service.PostService;
 import com.example.social_media_app.service.UserService;
@@ -13,6 +15,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/likes")
@@ -40,6 +43,24 @@ public class LikeController {
         return ResponseEntity.ok(response);
     }
     
+    // Idempotent like: liking twice leaves one like and does not fail
+    @PutMapping("/{postId}")
+    public ResponseEntity<Map<String, Object>> like(
+            @PathVariable Long postId,
+            @AuthenticationPrincipal CustomUserDetails userDetails
+    ) {
+        return toResponse(likeService.like(postId, userDetails.getId()));
+    }
+
+    // Idempotent unlike: unliking a post that is not liked is a no-op
+    @DeleteMapping("/{postId}")
+    public ResponseEntity<Map<String, Object>> unlike(
+            @PathVariable Long postId,
+            @AuthenticationPrincipal CustomUserDetails userDetails
+    ) {
+        return toResponse(likeService.unlike(postId, userDetails.getId()));
+    }
+
     @GetMapping("/{postId}/status")
     public ResponseEntity<Map<String, Object>> getLikeStatus(
             @PathVariable Long postId,
@@ -56,4 +77,16 @@ public class LikeController {
         
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    private ResponseEntity<Map<String, Object>> toResponse(Optional<LikeStateDto> state) {
+        if (state.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("liked", state.get().liked());
+        response.put("likeCount", state.get().likeCount());
+
+        return ResponseEntity.ok(response);
+    }
+}
@@ -1,8 +1,15 @@
 package com.example.social_media_app.controller;
 
+import com.example.social_media_app.dto.AuthorSummaryDto;
+import com.example.social_media_app.dto.SearchSuggestionsDto;
 import com.example.social_media_app.model.Post;
 import com.example.social_media_app.model.User;
-import com.example.social_media_app.service.PostService;
+import com.example.social_media_app.service.FriendRequestService;
+import com.example.social_media_app.service.MutualFriendService;
+import com.example.social_media_app.service.PostSearchService;
+import com.example.social_media_app.service.SearchSuggestionService;
+import com.example.social_media_app.service.SocialGraphService;
+import com.example.social_media_app.service.UserSearchService;
 import com.example.social_media_app.service.UserService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -22,12 +29,28 @@ import java.util.Map;
 @RequestMapping("/search")
 public class SearchController {
 
-    private final UserService userService;
-    private final PostService postService;
+    // Posts shown on the search page
+    private static final int MAX_POST_RESULTS = 50;
 
-    public SearchController(UserService userService, PostService postService) {
+    private final UserService userService;
+    private final UserSearchService userSearchService;
+    private final PostSearchService postSearchService;
+    private final MutualFriendService mutualFriendService;
+    private final FriendRequestService friendRequestService;
+    private final SocialGraphService socialGraphService;
+    private final SearchSuggestionService searchSuggestionService;
+
+    public SearchController(UserService userService, UserSearchService userSearchService,
+            PostSearchService postSearchService,
+            MutualFriendService mutualFriendService, FriendRequestService friendRequestService,
+            SocialGraphService socialGraphService, SearchSuggestionService searchSuggestionService) {
         this.userService = userService;
-        this.postService = postService;
+        this.userSearchService = userSearchService;
+        this.postSearchService = postSearchService;
+        this.mutualFriendService = mutualFriendService;
+        this.friendRequestService = friendRequestService;
+        this.socialGraphService = socialGraphService;
+        this.searchSuggestionService = searchSuggestionService;
     }
 
     @GetMapping
@@ -49,19 +72,21 @@ public class SearchController {
                 Pageable pageable = PageRequest.of(0, 20);
                 Page<User> searchResults = userService.searchUsers(currentUser.getId(), q, pageable);
                 model.addAttribute("users", searchResults.getContent());
+                addUserCardState(model, currentUser, searchResults.getContent());
                 model.addAttribute("totalUsers", searchResults.getTotalElements());
             } else if ("posts".equals(type)) {
                 // Search for posts
-                List<Post> searchResults = postService.searchPostsInFeed(currentUser.getId(), q);
+                List<Post> searchResults = postSearchService.searchFeed(currentUser.getId(), q, MAX_POST_RESULTS);
                 model.addAttribute("posts", searchResults);
                 model.addAttribute("totalPosts", searchResults.size());
             } else {
                 // Search for both
                 Pageable pageable = PageRequest.of(0, 10);
                 Page<User> userResults = userService.searchUsers(currentUser.getId(), q, pageable);
-                List<Post> postResults = postService.searchPostsInFeed(currentUser.getId(), q);
+                List<Post> postResults = postSearchService.searchFeed(currentUser.getId(), q, MAX_POST_RESULTS);
 
                 model.addAttribute("users", userResults.getContent());
+                addUserCardState(model, currentUser, userResults.getContent());
                 model.addAttribute("posts", postResults);
                 model.addAttribute("totalUsers", userResults.getTotalElements());
                 model.addAttribute("totalPosts", postResults.size());
@@ -83,21 +108,15 @@ public class SearchController {
 
         User currentUser = userService.findByEmail(currentUserDetails.getUsername());
 
-        // Get top 5 user suggestions
-        List<User> userSuggestions = userService.searchUsersWithRelevance(currentUser.getId(), q)
-                .stream()
-                .limit(5)
-                .toList();
-
-        // Get top 3 post suggestions
-        List<Post> postSuggestions = postService.searchPostsInFeed(currentUser.getId(), q)
-                .stream()
-                .limit(3)
-                .toList();
+        // Top 5 users and top 3 feed posts, cached per keystroke
+        SearchSuggestionsDto suggestions = searchSuggestionService.suggest(currentUser.getId(), q, 5, 3);
+        List<Long> userIds = suggestions.users().stream().map(AuthorSummaryDto::id).toList();
 
         Map<String, Object> response = new HashMap<>();
-        response.put("users", userSuggestions);
-        response.put("posts", postSuggestions);
+        response.put("users", suggestions.users());
+        response.put("mutualFriends", mutualFriendService.getMutualFriendCounts(currentUser.getId(), userIds));
+        response.put("degrees", socialGraphService.getDegreesOfSeparation(currentUser.getId(), userIds));
+        response.put("posts", suggestions.posts());
 
         return ResponseEntity.ok(response);
     }
@@ -119,21 +138,33 @@ public class SearchController {
         }
 
         if ("people".equals(type) || "all".equals(type)) {
-            List<User> users = userService.searchUsersWithRelevance(currentUser.getId(), q)
-                    .stream()
-                    .limit(10)
-                    .toList();
+            List<User> users = userSearchService.suggest(currentUser.getId(), q, 10);
             response.put("users", users);
+            response.put("mutualFriends", mutualFriendCounts(currentUser, users));
+            response.put("degrees", socialGraphService.getDegreesOfSeparation(currentUser.getId(),
+                    users.stream().map(User::getId).toList()));
         }
 
         if ("posts".equals(type) || "all".equals(type)) {
-            List<Post> posts = postService.searchPostsInFeed(currentUser.getId(), q)
-                    .stream()
-                    .limit(10)
-                    .toList();
+            List<Post> posts = postSearchService.searchFeed(currentUser.getId(), q, 10);
             response.put("posts", posts);
         }
 
         return ResponseEntity.ok(response);
     }
+
+    // Mutual friends, relationship and degree of separation of every user card,
+    // one batch each
+    private void addUserCardState(Model model, User currentUser, List<User> users) {
+        List<Long> userIds = users.stream().map(User::getId).toList();
+        model.addAttribute("mutualFriends", mutualFriendCounts(currentUser, users));
+        model.addAttribute("relationships", friendRequestService.getRelationshipStatuses(currentUser.getId(), userIds));
+        model.addAttribute("degrees", socialGraphService.getDegreesOfSeparation(currentUser.getId(), userIds));
+    }
+
+    // One batch for all the user cards of a result page
+    private Map<Long, Integer> mutualFriendCounts(User currentUser, List<User> users) {
+        return mutualFriendService.getMutualFriendCounts(currentUser.getId(),
+                users.stream().map(User::getId).toList());
+    }
 }
@@ -1,8 +1,10 @@
 package com.example.social_media_app.controller;
 
+import com.example.social_media_app.dto.FriendSuggestionDto;
 import com.example.social_media_app.model.User;
 import com.example.social_media_app.service.UserService;
 import com.example.social_media_app.service.FriendRequestService;
+import com.example.social_media_app.service.FriendSuggestionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.*;
 import org.springframework.web.bind.annotation.*;
@@ -11,6 +13,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -21,6 +24,7 @@ public class UserController {
 
     private final UserService userService;
     private final FriendRequestService friendRequestService;
+    private final FriendSuggestionService friendSuggestionService;
 
     // Get current authenticated user
     @GetMapping("/current")
@@ -80,17 +84,24 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
         
-        Pageable pageable = PageRequest.of(page, size);
-        Page<User> users = userService.findUsersForFriendSuggestions(currentUser.getId(), pageable);
-        
+        // Pages of the ranked suggestion list, which is capped
+        if (page < 0 || size < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<FriendSuggestionDto> suggestions = friendSuggestionService.getSuggestions(currentUser.getId(),
+                Integer.MAX_VALUE);
+        int from = (int) Math.min(suggestions.size(), (long) page * size);
+        int to = (int) Math.min(suggestions.size(), (long) from + size);
+        int totalPages = (int) Math.ceil(suggestions.size() / (double) size);
+
         Map<String, Object> response = new HashMap<>();
-        response.put("content", users.getContent());
-        response.put("totalElements", users.getTotalElements());
-        response.put("totalPages", users.getTotalPages());
-        response.put("number", users.getNumber());
-        response.put("size", users.getSize());
-        response.put("first", users.isFirst());
-        response.put("last", users.isLast());
+        response.put("content", suggestions.subList(from, to));
+        response.put("totalElements", suggestions.size());
+        response.put("totalPages", totalPages);
+        response.put("number", page);
+        response.put("size", size);
+        response.put("first", page == 0);
+        response.put("last", page >= totalPages - 1);
         
         return ResponseEntity.ok(response);
     }
@@ -0,0 +1,10 @@
+package com.example.social_media_app.dto;
+
+// Just enough of a user to render a post header
+public record AuthorSummaryDto(
+        Long id,
+        String firstName,
+        String lastName,
+        String username,
+        String profilePicture) {
+}
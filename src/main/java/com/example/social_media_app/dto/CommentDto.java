@@ -0,0 +1,42 @@
+package com.example.social_media_app.dto;
+
+import com.example.social_media_app.util.TimeUtil;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+
+// Read-only view of a comment as rendered under a post. replyCount counts all
+// descendants, not just direct replies
+public record CommentDto(
+        Long id,
+        String content,
+        AuthorSummaryDto author,
+        Long parentId,
+        int depth,
+        int replyCount,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt) {
+
+    public static CommentDto from(CommentRow row) {
+        return new CommentDto(row.id(), row.content(),
+                new AuthorSummaryDto(row.authorId(), row.firstName(), row.lastName(), row.username(), row.profilePicture()),
+                row.parentId(), row.depth(), row.replyCount(), row.createdAt(), row.updatedAt());
+    }
+
+    public static CommentDto from(CommentPreviewRow row) {
+        return new CommentDto(row.getId(), row.getContent(),
+                new AuthorSummaryDto(row.getAuthorId(), row.getFirstName(), row.getLastName(), row.getUsername(),
+                        row.getProfilePicture()),
+                row.getParentId(), countOf(row.getDepth()), countOf(row.getReplyCount()),
+                row.getCreatedAt(), row.getUpdatedAt());
+    }
+
+    @JsonProperty("timeAgo")
+    public String timeAgo() {
+        return TimeUtil.getTimeAgo(createdAt);
+    }
+
+    private static int countOf(Integer count) {
+        return count != null ? count : 0;
+    }
+}
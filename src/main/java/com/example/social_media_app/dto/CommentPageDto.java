@@ -0,0 +1,16 @@
+package com.example.social_media_app.dto;
+
+import java.util.List;
+
+// One page of a post's top-level comments, oldest first, each with its first
+// replies, plus an opaque cursor for the next page (null when this is the last page)
+public record CommentPageDto(List<CommentThreadDto> comments, String nextCursor) {
+
+    public CommentPageDto {
+        comments = List.copyOf(comments);
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.social_media_app.dto;
+
+// Where a comment sits in its thread: enough to attach a reply to it or to read
+// its subtree without loading the entity
+public record CommentPlacement(Long id, Long postId, Long rootId, String path, int depth) {
+
+    // LIKE pattern matching the paths of all descendants
+    public String descendantPrefix() {
+        return path + ".%";
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.social_media_app.dto;
+
+import java.time.LocalDateTime;
+
+// A comment with its commenter as returned by the ranked (window function)
+// queries: the newest comments of a post, or the first replies of a thread
+public interface CommentPreviewRow {
+
+    Long getPostId();
+
+    Long getRootId();
+
+    Long getId();
+
+    String getContent();
+
+    Long getAuthorId();
+
+    String getFirstName();
+
+    String getLastName();
+
+    String getUsername();
+
+    String getProfilePicture();
+
+    Long getParentId();
+
+    Integer getDepth();
+
+    Integer getReplyCount();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,19 @@
+package com.example.social_media_app.dto;
+
+import java.time.LocalDateTime;
+
+// Flat comment columns joined with the commenter, read without touching the post
+public record CommentRow(
+        Long id,
+        String content,
+        Long authorId,
+        String firstName,
+        String lastName,
+        String username,
+        String profilePicture,
+        Long parentId,
+        int depth,
+        int replyCount,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt) {
+}
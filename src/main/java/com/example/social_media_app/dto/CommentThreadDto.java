@@ -0,0 +1,15 @@
+package com.example.social_media_app.dto;
+
+import java.util.List;
+
+// A top-level comment with the first of its replies in depth-first order
+public record CommentThreadDto(CommentDto comment, List<CommentDto> replies) {
+
+    public CommentThreadDto {
+        replies = replies != null ? List.copyOf(replies) : List.of();
+    }
+
+    public boolean hasMoreReplies() {
+        return comment.replyCount() > replies.size();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.social_media_app.dto;
+
+import com.example.social_media_app.util.TimeUtil;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Read-only view of a post as rendered in the feed, detached from the JPA
+// entities so rendering can never trigger lazy loads
+public record FeedItemDto(
+        Long id,
+        String content,
+        AuthorSummaryDto author,
+        List<MediaDto> media,
+        SharedPostDto sharedPost,
+        String locationName,
+        int likeCount,
+        int commentCount,
+        int shareCount,
+        LocalDateTime createdAt,
+        List<CommentDto> latestComments) {
+
+    public FeedItemDto {
+        media = media != null ? List.copyOf(media) : List.of();
+        latestComments = latestComments != null ? List.copyOf(latestComments) : List.of();
+    }
+
+    @JsonProperty("timeAgo")
+    public String timeAgo() {
+        return TimeUtil.getTimeAgo(createdAt);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.social_media_app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FeedPageDto {
+    private List<FeedItemDto> posts;
+
+    // Opaque cursor for the next page, null when this is the last page
+    private String nextCursor;
+
+    public boolean isHasMore() {
+        return nextCursor != null;
+    }
+}
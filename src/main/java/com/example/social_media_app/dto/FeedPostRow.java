@@ -0,0 +1,17 @@
+package com.example.social_media_app.dto;
+
+import java.time.LocalDateTime;
+
+// Flat post columns as read from the posts table; author, media and shared post
+// are resolved by id in separate batched queries
+public record FeedPostRow(
+        Long id,
+        String content,
+        Long authorId,
+        Long sharedPostId,
+        String locationName,
+        Integer likeCount,
+        Integer commentCount,
+        Integer shareCount,
+        LocalDateTime createdAt) {
+}
@@ -0,0 +1,13 @@
+package com.example.social_media_app.dto;
+
+// Badge counters of the friends page
+public record FriendStatsDto(
+        long friendCount,
+        long incomingRequestCount,
+        long outgoingRequestCount) {
+
+    public FriendStatsDto plus(long friends, long incoming, long outgoing) {
+        return new FriendStatsDto(friendCount + friends, incomingRequestCount + incoming,
+                outgoingRequestCount + outgoing);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.social_media_app.dto;
+
+import com.example.social_media_app.model.User;
+
+// A user suggested as a friend, with the number of friends in common
+public record FriendSuggestionDto(
+        Long id,
+        String firstName,
+        String lastName,
+        String username,
+        String profilePicture,
+        String city,
+        String country,
+        int mutualFriends) {
+
+    public static FriendSuggestionDto from(User user, int mutualFriends) {
+        return new FriendSuggestionDto(user.getId(), user.getFirstName(), user.getLastName(), user.getUsername(),
+                user.getProfilePicture(), user.getCity(), user.getCountry(), mutualFriends);
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.social_media_app.dto;
+
+public record LikeStateDto(boolean liked, int likeCount) {
+}
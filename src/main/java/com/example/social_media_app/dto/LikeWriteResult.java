@@ -0,0 +1,10 @@
+package com.example.social_media_app.dto;
+
+// Outcome of a like/unlike statement: whether a likes row was inserted or
+// deleted, and the stored counter of the post
+public interface LikeWriteResult {
+
+    long getChanged();
+
+    Integer getLikeCount();
+}
@@ -0,0 +1,9 @@
+package com.example.social_media_app.dto;
+
+public record MediaDto(
+        Long postId,
+        String fileName,
+        String filePath,
+        String fileType,
+        String mimeType) {
+}
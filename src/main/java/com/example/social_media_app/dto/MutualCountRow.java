@@ -0,0 +1,7 @@
+package com.example.social_media_app.dto;
+
+// Number of friends a user has in common with the viewer
+public record MutualCountRow(
+        Long userId,
+        Long mutualFriends) {
+}
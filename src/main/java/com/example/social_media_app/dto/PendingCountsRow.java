@@ -0,0 +1,7 @@
+package com.example.social_media_app.dto;
+
+// Pending requests received and sent by one user
+public record PendingCountsRow(
+        Long incoming,
+        Long outgoing) {
+}
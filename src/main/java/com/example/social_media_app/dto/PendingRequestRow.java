@@ -0,0 +1,7 @@
+package com.example.social_media_app.dto;
+
+// Direction of a pending friend request
+public record PendingRequestRow(
+        Long senderId,
+        Long receiverId) {
+}
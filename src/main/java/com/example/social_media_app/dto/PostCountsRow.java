@@ -0,0 +1,9 @@
+package com.example.social_media_app.dto;
+
+// Stored counters of a post
+public record PostCountsRow(
+        Long id,
+        Integer likeCount,
+        Integer commentCount,
+        Integer shareCount) {
+}
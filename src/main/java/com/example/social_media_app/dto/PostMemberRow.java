@@ -0,0 +1,5 @@
+package com.example.social_media_app.dto;
+
+// A user attached to a post, e.g. one of its likers
+public record PostMemberRow(Long postId, Long userId) {
+}
@@ -0,0 +1,8 @@
+package com.example.social_media_app.dto;
+
+// A post in the search dropdown: its text and who wrote it
+public record PostSuggestionDto(
+        Long id,
+        String content,
+        AuthorSummaryDto user) {
+}
@@ -0,0 +1,11 @@
+package com.example.social_media_app.dto;
+
+// What a post card needs to know about the current viewer and the post counters
+public record PostViewerStateDto(
+        Long postId,
+        boolean liked,
+        boolean shared,
+        int likeCount,
+        int commentCount,
+        int shareCount) {
+}
@@ -0,0 +1,9 @@
+package com.example.social_media_app.dto;
+
+// How the viewer relates to another user: hasPendingRequest is a request the
+// viewer sent, hasIncomingRequest one the viewer received
+public record RelationshipStatusDto(
+        boolean areFriends,
+        boolean hasPendingRequest,
+        boolean hasIncomingRequest) {
+}
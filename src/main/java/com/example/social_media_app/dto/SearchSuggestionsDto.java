@@ -0,0 +1,9 @@
+package com.example.social_media_app.dto;
+
+import java.util.List;
+
+// People and feed posts shown in the search dropdown, best first
+public record SearchSuggestionsDto(
+        List<AuthorSummaryDto> users,
+        List<PostSuggestionDto> posts) {
+}
@@ -0,0 +1,26 @@
+package com.example.social_media_app.dto;
+
+import com.example.social_media_app.util.TimeUtil;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// The original post embedded in a share
+public record SharedPostDto(
+        Long id,
+        String content,
+        AuthorSummaryDto author,
+        List<MediaDto> media,
+        String locationName,
+        LocalDateTime createdAt) {
+
+    public SharedPostDto {
+        media = media != null ? List.copyOf(media) : List.of();
+    }
+
+    @JsonProperty("timeAgo")
+    public String timeAgo() {
+        return TimeUtil.getTimeAgo(createdAt);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.social_media_app.dto;
+
+// A per-user count from a grouped query
+public record UserCountRow(
+        Long userId,
+        Long count) {
+}
@@ -0,0 +1,5 @@
+package com.example.social_media_app.event;
+
+// Raised when two users become friends (friends = true) or unfriend each other
+public record FriendshipChangedEvent(Long userId1, Long userId2, boolean friends) {
+}
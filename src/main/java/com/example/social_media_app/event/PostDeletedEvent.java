@@ -0,0 +1,5 @@
+package com.example.social_media_app.event;
+
+// Raised when a post (including a share) has been deleted
+public record PostDeletedEvent(Long postId, Long authorId) {
+}
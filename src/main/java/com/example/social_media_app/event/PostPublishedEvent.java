@@ -0,0 +1,7 @@
+package com.example.social_media_app.event;
+
+import java.time.LocalDateTime;
+
+// Raised when a new post (including a share) has been written
+public record PostPublishedEvent(Long postId, Long authorId, LocalDateTime createdAt) {
+}
@@ -0,0 +1,7 @@
+package com.example.social_media_app.event;
+
+// Raised when a user registers or edits their profile; carries the searchable
+// fields as saved
+public record UserProfileChangedEvent(Long userId, String firstName, String lastName, String username,
+        String email) {
+}
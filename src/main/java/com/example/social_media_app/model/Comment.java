@@ -33,6 +33,25 @@ public class Comment {
     @JsonIgnoreProperties({"posts", "comments", "likes", "password"})
     private User user;
 
+    // Null for a top-level comment
+    @Column(name = "parent_id")
+    private Long parentId;
+
+    // Id of the top-level comment of the thread; its own id for a top-level comment
+    @Column(name = "root_id")
+    private Long rootId;
+
+    // Zero-padded ids from the root down to this comment, joined by dots
+    @Column(length = 512)
+    private String path;
+
+    @Column(nullable = false)
+    private int depth;
+
+    // Number of descendants, maintained by CommentService
+    @Column(name = "reply_count", nullable = false)
+    private int replyCount;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt = LocalDateTime.now();
     
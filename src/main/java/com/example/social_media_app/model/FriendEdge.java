@@ -0,0 +1,49 @@
+package com.example.social_media_app.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Subselect;
+import org.hibernate.annotations.Synchronize;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+// Read-only symmetric view of friendships, one row per direction, so "friends
+// of X" is a plain equality on userId. Mirrors the friend_edges database view;
+// declared as a subselect so schema tooling never tries to create a table for it.
+@Entity
+@Immutable
+@Subselect("SELECT f.user1_id AS user_id, f.user2_id AS friend_id, f.created_at AS created_at FROM friendships f " +
+        "UNION ALL " +
+        "SELECT f.user2_id AS user_id, f.user1_id AS friend_id, f.created_at AS created_at FROM friendships f")
+@Synchronize("friendships")
+@IdClass(FriendEdge.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FriendEdge {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "friend_id")
+    private Long friendId;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private Long userId;
+        private Long friendId;
+    }
+}
@@ -4,11 +4,15 @@ import jakarta.persistence.*;
 import lombok.*;
 import java.time.LocalDateTime;
 
+// A friendship is stored once per pair, always with user1 the lower id
+// (enforced by chk_friendships_ordered); use between() to build one
 @Entity
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "friendships")
+@Table(name = "friendships", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_friendships_pair", columnNames = { "user1_id", "user2_id" })
+})
 @Builder
 public class Friendship {
     @Id
@@ -26,6 +30,14 @@ public class Friendship {
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
+    public static Friendship between(User a, User b) {
+        boolean ordered = a.getId() < b.getId();
+        return Friendship.builder()
+                .user1(ordered ? a : b)
+                .user2(ordered ? b : a)
+                .build();
+    }
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
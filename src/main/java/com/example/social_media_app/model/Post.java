@@ -5,6 +5,7 @@ import com.example.social_media_app.util.TimeUtil;
 import jakarta.persistence.*;
 import lombok.*;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -101,7 +102,9 @@ public class Post {
 
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
+        // Keep the database's microsecond precision so (createdAt, id) cursors
+        // round-trip exactly
+        createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
         updatedAt = LocalDateTime.now();
         if (likeCount == null)
             likeCount = 0;
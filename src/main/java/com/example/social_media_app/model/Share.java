@@ -7,7 +7,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "shares", uniqueConstraints = {
-        @UniqueConstraint(columnNames = { "post_id", "user_id" })
+        @UniqueConstraint(name = "uk_shares_original_user", columnNames = { "original_post_id", "user_id" })
 })
 @Data
 @Builder
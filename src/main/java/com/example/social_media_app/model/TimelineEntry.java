@@ -0,0 +1,39 @@
+package com.example.social_media_app.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One post materialized into one user's feed. Only ids are stored so that a
+// timeline read is a plain index range scan over (owner_id, created_at, post_id).
+@Entity
+@Table(name = "timeline_entries", uniqueConstraints = {
+        @UniqueConstraint(columnNames = { "owner_id", "post_id" })
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimelineEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @Column(name = "post_id", nullable = false)
+    private Long postId;
+
+    @Column(name = "author_id", nullable = false)
+    private Long authorId;
+
+    // Copy of posts.created_at so the timeline can be paged without touching posts
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -1,15 +1,100 @@
 package com.example.social_media_app.repository;
 
+import com.example.social_media_app.dto.CommentPlacement;
+import com.example.social_media_app.dto.CommentPreviewRow;
+import com.example.social_media_app.dto.CommentRow;
 import com.example.social_media_app.model.Comment;
 import com.example.social_media_app.model.Post;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     List<Comment> findByPostOrderByCreatedAtAsc(Post post);
     int countByPost(Post post);
     List<Comment> findByPostIdOrderByCreatedAtAsc(Long postId);
-}
\ No newline at end of file
+
+    // Removes a comment and its whole subtree. Returns 0 when the comment is
+    // already gone, so a repeated delete does not decrement the counters twice
+    @Modifying
+    @Query("DELETE FROM Comment c WHERE c.id = :id OR (c.rootId = :rootId AND c.path LIKE :descendantPrefix)")
+    int deleteSubtree(@Param("id") Long id,
+            @Param("rootId") Long rootId,
+            @Param("descendantPrefix") String descendantPrefix);
+
+    // Counts a new reply in the subtree of every one of its ancestors
+    @Modifying
+    @Query("UPDATE Comment c SET c.replyCount = c.replyCount + :delta WHERE c.id IN :ids")
+    int addToReplyCount(@Param("ids") Collection<Long> ids, @Param("delta") int delta);
+
+    // Oldest top-level comments of a post; filters on the post_id column so the post itself is never loaded
+    @Query("SELECT new com.example.social_media_app.dto.CommentRow(c.id, c.content, u.id, u.firstName, " +
+            "u.lastName, u.username, u.profilePicture, c.parentId, c.depth, c.replyCount, c.createdAt, c.updatedAt) " +
+            "FROM Comment c JOIN c.user u WHERE c.post.id = :postId AND c.parentId IS NULL " +
+            "ORDER BY c.createdAt ASC, c.id ASC")
+    List<CommentRow> findPage(@Param("postId") Long postId, Pageable pageable);
+
+    // Top-level comments strictly newer than the (createdAt, id) cursor
+    @Query("SELECT new com.example.social_media_app.dto.CommentRow(c.id, c.content, u.id, u.firstName, " +
+            "u.lastName, u.username, u.profilePicture, c.parentId, c.depth, c.replyCount, c.createdAt, c.updatedAt) " +
+            "FROM Comment c JOIN c.user u WHERE c.post.id = :postId AND c.parentId IS NULL " +
+            "AND (c.createdAt > :cursorCreatedAt OR (c.createdAt = :cursorCreatedAt AND c.id > :cursorId)) " +
+            "ORDER BY c.createdAt ASC, c.id ASC")
+    List<CommentRow> findPageAfter(@Param("postId") Long postId,
+            @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+            @Param("cursorId") Long cursorId,
+            Pageable pageable);
+
+    @Query("SELECT new com.example.social_media_app.dto.CommentPlacement(c.id, c.post.id, c.rootId, c.path, c.depth) " +
+            "FROM Comment c WHERE c.id = :id")
+    Optional<CommentPlacement> findPlacement(@Param("id") Long id);
+
+    // Every descendant of a comment in depth-first order
+    @Query("SELECT new com.example.social_media_app.dto.CommentRow(c.id, c.content, u.id, u.firstName, " +
+            "u.lastName, u.username, u.profilePicture, c.parentId, c.depth, c.replyCount, c.createdAt, c.updatedAt) " +
+            "FROM Comment c JOIN c.user u WHERE c.rootId = :rootId AND c.path LIKE :descendantPrefix " +
+            "ORDER BY c.path ASC")
+    List<CommentRow> findSubtree(@Param("rootId") Long rootId,
+            @Param("descendantPrefix") String descendantPrefix,
+            Pageable pageable);
+
+    // Newest :perPost top-level comments of each of the given posts in one
+    // statement, returned oldest first per post
+    @Query(value = "SELECT r.post_id AS postId, r.root_id AS rootId, r.id AS id, r.content AS content, " +
+            "u.id AS authorId, u.first_name AS firstName, u.last_name AS lastName, u.username AS username, " +
+            "u.profile_picture AS profilePicture, r.parent_id AS parentId, r.depth AS depth, " +
+            "r.reply_count AS replyCount, r.created_at AS createdAt, r.updated_at AS updatedAt " +
+            "FROM (SELECT c.*, " +
+            "ROW_NUMBER() OVER (PARTITION BY c.post_id ORDER BY c.created_at DESC, c.id DESC) AS rn " +
+            "FROM comments c WHERE c.post_id IN (:postIds) AND c.parent_id IS NULL) r " +
+            "JOIN users u ON u.id = r.user_id " +
+            "WHERE r.rn <= :perPost " +
+            "ORDER BY r.post_id, r.created_at, r.id",
+            nativeQuery = true)
+    List<CommentPreviewRow> findLatestByPostIdIn(@Param("postIds") Collection<Long> postIds,
+            @Param("perPost") int perPost);
+
+    // First :perThread replies of each of the given threads in depth-first order,
+    // in one statement
+    @Query(value = "SELECT r.post_id AS postId, r.root_id AS rootId, r.id AS id, r.content AS content, " +
+            "u.id AS authorId, u.first_name AS firstName, u.last_name AS lastName, u.username AS username, " +
+            "u.profile_picture AS profilePicture, r.parent_id AS parentId, r.depth AS depth, " +
+            "r.reply_count AS replyCount, r.created_at AS createdAt, r.updated_at AS updatedAt " +
+            "FROM (SELECT c.*, ROW_NUMBER() OVER (PARTITION BY c.root_id ORDER BY c.path) AS rn " +
+            "FROM comments c WHERE c.root_id IN (:rootIds) AND c.parent_id IS NOT NULL) r " +
+            "JOIN users u ON u.id = r.user_id " +
+            "WHERE r.rn <= :perThread " +
+            "ORDER BY r.root_id, r.path",
+            nativeQuery = true)
+    List<CommentPreviewRow> findFirstRepliesByRootIdIn(@Param("rootIds") Collection<Long> rootIds,
+            @Param("perThread") int perThread);
+}
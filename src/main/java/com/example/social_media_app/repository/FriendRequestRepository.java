@@ -1,5 +1,8 @@
 package com.example.social_media_app.repository;
 
+import com.example.social_media_app.dto.PendingCountsRow;
+import com.example.social_media_app.dto.PendingRequestRow;
+import com.example.social_media_app.dto.UserCountRow;
 import com.example.social_media_app.model.FriendRequest;
 import com.example.social_media_app.model.User;
 import org.springframework.data.domain.Page;
@@ -9,6 +12,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -36,4 +41,39 @@ public interface FriendRequestRepository extends JpaRepository<FriendRequest, Lo
     // Count outgoing requests
     @Query("SELECT COUNT(fr) FROM FriendRequest fr WHERE fr.sender.id = :userId AND fr.status = 'PENDING'")
     long countOutgoingRequests(@Param("userId") Long userId);
+
+    // Both counts above in one query
+    @Query("SELECT new com.example.social_media_app.dto.PendingCountsRow(" +
+           "COALESCE(SUM(CASE WHEN fr.receiver.id = :userId THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN fr.sender.id = :userId THEN 1 ELSE 0 END), 0)) " +
+           "FROM FriendRequest fr WHERE (fr.sender.id = :userId OR fr.receiver.id = :userId) " +
+           "AND fr.status = 'PENDING'")
+    PendingCountsRow countPendingRequests(@Param("userId") Long userId);
+
+    // Incoming request counts of several users; users without any are left out
+    @Query("SELECT new com.example.social_media_app.dto.UserCountRow(fr.receiver.id, COUNT(fr)) " +
+           "FROM FriendRequest fr WHERE fr.receiver.id IN :userIds AND fr.status = 'PENDING' " +
+           "GROUP BY fr.receiver.id")
+    List<UserCountRow> countIncomingRequestsByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    // Outgoing request counts of several users; users without any are left out
+    @Query("SELECT new com.example.social_media_app.dto.UserCountRow(fr.sender.id, COUNT(fr)) " +
+           "FROM FriendRequest fr WHERE fr.sender.id IN :userIds AND fr.status = 'PENDING' " +
+           "GROUP BY fr.sender.id")
+    List<UserCountRow> countOutgoingRequestsByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    // Users the given user has a pending request with, in either direction
+    @Query("SELECT CASE WHEN fr.sender.id = :userId THEN fr.receiver.id ELSE fr.sender.id END " +
+           "FROM FriendRequest fr WHERE (fr.sender.id = :userId OR fr.receiver.id = :userId) " +
+           "AND fr.status = 'PENDING'")
+    List<Long> findPendingCounterpartIds(@Param("userId") Long userId);
+
+    // Pending requests between the user and any of the others, in either
+    // direction
+    @Query("SELECT new com.example.social_media_app.dto.PendingRequestRow(fr.sender.id, fr.receiver.id) " +
+           "FROM FriendRequest fr WHERE fr.status = 'PENDING' AND (" +
+           "(fr.sender.id = :userId AND fr.receiver.id IN :otherIds) OR " +
+           "(fr.receiver.id = :userId AND fr.sender.id IN :otherIds))")
+    List<PendingRequestRow> findPendingBetween(@Param("userId") Long userId,
+                                               @Param("otherIds") Collection<Long> otherIds);
 }
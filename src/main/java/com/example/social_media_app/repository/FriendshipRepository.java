@@ -1,5 +1,7 @@
 package com.example.social_media_app.repository;
 
+import com.example.social_media_app.dto.MutualCountRow;
+import com.example.social_media_app.dto.UserCountRow;
 import com.example.social_media_app.model.Friendship;
 import com.example.social_media_app.model.User;
 import org.springframework.data.domain.Page;
@@ -9,38 +11,66 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
+// Friendships are stored as ordered pairs (user1 < user2). Pair lookups seek the
+// unique (user1_id, user2_id) index; neighbour scans go through friend_edges /
+// FriendEdge, which has one row per direction
 @Repository
 public interface FriendshipRepository extends JpaRepository<Friendship, Long> {
     
     // Check if friendship exists between two users
-    @Query("SELECT COUNT(f) > 0 FROM Friendship f WHERE " +
-           "(f.user1.id = :userId1 AND f.user2.id = :userId2) OR " +
-           "(f.user1.id = :userId2 AND f.user2.id = :userId1)")
-    boolean existsBetweenUsers(@Param("userId1") Long userId1, @Param("userId2") Long userId2);
+    default boolean existsBetweenUsers(Long userId1, Long userId2) {
+        return existsPair(Math.min(userId1, userId2), Math.max(userId1, userId2));
+    }
+
+    @Query("SELECT COUNT(f) > 0 FROM Friendship f WHERE f.user1.id = :lowId AND f.user2.id = :highId")
+    boolean existsPair(@Param("lowId") Long lowId, @Param("highId") Long highId);
     
     // Get all friends for a user
-    @Query(value = "SELECT u.* FROM users u " +
-           "JOIN friendships f ON (u.id = f.user1_id AND f.user2_id = :userId) " +
-           "OR (u.id = f.user2_id AND f.user1_id = :userId)",
-           nativeQuery = true)
+    @Query(value = "SELECT u FROM FriendEdge e JOIN User u ON u.id = e.friendId WHERE e.userId = :userId",
+           countQuery = "SELECT COUNT(e) FROM FriendEdge e WHERE e.userId = :userId")
     Page<User> findFriendsByUserId(@Param("userId") Long userId, Pageable pageable);
     
     // Get all friends for a user as list
-    @Query(value = "SELECT u.* FROM users u " +
-           "JOIN friendships f ON (u.id = f.user1_id AND f.user2_id = :userId) " +
-           "OR (u.id = f.user2_id AND f.user1_id = :userId)",
-           nativeQuery = true)
+    @Query("SELECT u FROM FriendEdge e JOIN User u ON u.id = e.friendId WHERE e.userId = :userId")
     List<User> findAllFriendsByUserId(@Param("userId") Long userId);
     
+    // Get the ids of all friends of a user
+    @Query("SELECT e.friendId FROM FriendEdge e WHERE e.userId = :userId")
+    List<Long> findFriendIdsByUserId(@Param("userId") Long userId);
+    
+    // Get the ids of users whose friend count is above the threshold
+    @Query("SELECT e.userId FROM FriendEdge e GROUP BY e.userId HAVING COUNT(e) > :threshold")
+    List<Long> findUserIdsWithMoreFriendsThan(@Param("threshold") long threshold);
+    
     // Count friends for a user
-    @Query("SELECT COUNT(f) FROM Friendship f WHERE f.user1.id = :userId OR f.user2.id = :userId")
+    @Query("SELECT COUNT(e) FROM FriendEdge e WHERE e.userId = :userId")
     long countFriendsByUserId(@Param("userId") Long userId);
+
+    // Friend counts of several users; users without friends are left out
+    @Query("SELECT new com.example.social_media_app.dto.UserCountRow(e.userId, COUNT(e)) " +
+           "FROM FriendEdge e WHERE e.userId IN :userIds GROUP BY e.userId")
+    List<UserCountRow> countFriendsByUserIds(@Param("userIds") Collection<Long> userIds);
     
+    // Which of the users are friends of the given user
+    @Query("SELECT e.friendId FROM FriendEdge e WHERE e.userId = :userId AND e.friendId IN :otherIds")
+    List<Long> findFriendIdsAmong(@Param("userId") Long userId, @Param("otherIds") Collection<Long> otherIds);
+
+    // Friends in common between the viewer and each of the users; users with
+    // none are left out
+    @Query("SELECT new com.example.social_media_app.dto.MutualCountRow(other.userId, COUNT(other)) " +
+           "FROM FriendEdge mine JOIN FriendEdge other ON other.friendId = mine.friendId " +
+           "WHERE mine.userId = :viewerId AND other.userId IN :userIds GROUP BY other.userId")
+    List<MutualCountRow> countMutualFriends(@Param("viewerId") Long viewerId,
+                                            @Param("userIds") Collection<Long> userIds);
+
     // Find friendship between two users
-    @Query("SELECT f FROM Friendship f WHERE " +
-           "(f.user1.id = :userId1 AND f.user2.id = :userId2) OR " +
-           "(f.user1.id = :userId2 AND f.user2.id = :userId1)")
-    Friendship findBetweenUsers(@Param("userId1") Long userId1, @Param("userId2") Long userId2);
+    default Friendship findBetweenUsers(Long userId1, Long userId2) {
+        return findPair(Math.min(userId1, userId2), Math.max(userId1, userId2));
+    }
+
+    @Query("SELECT f FROM Friendship f WHERE f.user1.id = :lowId AND f.user2.id = :highId")
+    Friendship findPair(@Param("lowId") Long lowId, @Param("highId") Long highId);
 }
@@ -1,5 +1,7 @@
 package com.example.social_media_app.repository;
 
+import com.example.social_media_app.dto.LikeWriteResult;
+import com.example.social_media_app.dto.PostMemberRow;
 import com.example.social_media_app.model.Like;
 import com.example.social_media_app.model.Post;
 import com.example.social_media_app.model.User;
@@ -7,11 +9,45 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface LikeRepository extends JpaRepository<Like, Long> {
     Optional<Like> findByPostAndUser(Post post, User user);
     int countByPost(Post post);
+
+    // Like a post in one statement; a repeated like inserts nothing instead of
+    // hitting the unique constraint. Empty when the post does not exist
+    @Query(value = "WITH inserted AS (" +
+            "INSERT INTO likes (post_id, user_id, created_at) " +
+            "SELECT :postId, :userId, now() WHERE EXISTS (SELECT 1 FROM posts WHERE id = :postId) " +
+            "ON CONFLICT (post_id, user_id) DO NOTHING RETURNING post_id) " +
+            "SELECT (SELECT COUNT(*) FROM inserted) AS changed, p.like_count AS likeCount " +
+            "FROM posts p WHERE p.id = :postId",
+            nativeQuery = true)
+    Optional<LikeWriteResult> insertLike(@Param("postId") Long postId, @Param("userId") Long userId);
+
+    // Unlike a post in one statement; unliking twice deletes nothing. Empty when
+    // the post does not exist
+    @Query(value = "WITH deleted AS (" +
+            "DELETE FROM likes WHERE post_id = :postId AND user_id = :userId RETURNING post_id) " +
+            "SELECT (SELECT COUNT(*) FROM deleted) AS changed, p.like_count AS likeCount " +
+            "FROM posts p WHERE p.id = :postId",
+            nativeQuery = true)
+    Optional<LikeWriteResult> deleteLike(@Param("postId") Long postId, @Param("userId") Long userId);
+
+    // All likers of the given posts, used to load the in-memory liker sets. Posts
+    // with more than :maxLikes likes are skipped; a post without likes yields one
+    // row with a null user id
+    @Query("SELECT new com.example.social_media_app.dto.PostMemberRow(p.id, l.user.id) " +
+            "FROM Post p LEFT JOIN p.likes l WHERE p.id IN :postIds AND p.likeCount <= :maxLikes")
+    List<PostMemberRow> findLikersOfPosts(@Param("postIds") Collection<Long> postIds,
+            @Param("maxLikes") int maxLikes);
+
+    // Which of the given posts the user has liked
+    @Query("SELECT l.post.id FROM Like l WHERE l.user.id = :userId AND l.post.id IN :postIds")
+    List<Long> findLikedPostIds(@Param("userId") Long userId, @Param("postIds") Collection<Long> postIds);
     
     // Count total likes received by a user across all their posts
     @Query("SELECT COUNT(l) FROM Like l JOIN l.post p WHERE p.user.id = :userId")
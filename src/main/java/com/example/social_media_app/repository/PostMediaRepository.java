@@ -1,9 +1,13 @@
 package com.example.social_media_app.repository;
 
+import com.example.social_media_app.dto.MediaDto;
 import com.example.social_media_app.model.PostMedia;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -12,4 +16,10 @@ public interface PostMediaRepository extends JpaRepository<PostMedia, Long> {
     List<PostMedia> findByPostIdOrderByUploadOrderAsc(Long postId);
     
     void deleteByPostId(Long postId);
+
+    // Media of a batch of posts, grouped by post and in upload order
+    @Query("SELECT new com.example.social_media_app.dto.MediaDto(m.post.id, m.fileName, m.filePath, " +
+            "m.fileType, m.mimeType) FROM PostMedia m WHERE m.post.id IN :postIds " +
+            "ORDER BY m.post.id, m.uploadOrder")
+    List<MediaDto> findMediaByPostIdIn(@Param("postIds") Collection<Long> postIds);
 }
@@ -1,10 +1,16 @@
 package com.example.social_media_app.repository;
 
+import com.example.social_media_app.dto.FeedPostRow;
+import com.example.social_media_app.dto.PostCountsRow;
 import com.example.social_media_app.model.Post;
 import com.example.social_media_app.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,24 +24,98 @@ public interface PostRepository extends JpaRepository<Post, Long> {
 
     long countByUserId(Long userId);
 
-    // Friend Integration: Get posts from user and their friends, sorted by
-    // timestamp newest first
-    @Query("SELECT p FROM Post p WHERE " +
-            "p.user.id = :userId OR " +
-            "p.user.id IN (" +
-            "SELECT CASE WHEN f.user1.id = :userId THEN f.user2.id ELSE f.user1.id END " +
-            "FROM Friendship f WHERE f.user1.id = :userId OR f.user2.id = :userId" +
-            ") " +
-            "ORDER BY p.createdAt DESC")
-    List<Post> findFeedPostsForUser(@Param("userId") Long userId);
+    // Flat feed rows for a batch of posts without touching the eager associations
+    @Query("SELECT new com.example.social_media_app.dto.FeedPostRow(p.id, p.content, p.user.id, " +
+            "p.sharedPost.id, p.locationName, p.likeCount, p.commentCount, p.shareCount, p.createdAt) " +
+            "FROM Post p WHERE p.id IN :ids")
+    List<FeedPostRow> findFeedRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Stored counters for a batch of posts
+    @Query("SELECT new com.example.social_media_app.dto.PostCountsRow(p.id, p.likeCount, p.commentCount, " +
+            "p.shareCount) FROM Post p WHERE p.id IN :ids")
+    List<PostCountsRow> findCountsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Newest posts of the given authors, used to pull posts that are not fanned
+    // out
+    @Query("SELECT p FROM Post p JOIN FETCH p.user WHERE p.user.id IN :authorIds " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findLatestByAuthors(@Param("authorIds") Collection<Long> authorIds, Pageable pageable);
+
+    @Query("SELECT p FROM Post p JOIN FETCH p.user WHERE p.user.id IN :authorIds " +
+            "AND (p.createdAt < :cursorCreatedAt OR (p.createdAt = :cursorCreatedAt AND p.id < :cursorId)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findLatestByAuthorsBefore(@Param("authorIds") Collection<Long> authorIds,
+            @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+            @Param("cursorId") Long cursorId,
+            Pageable pageable);
+
+    // Ids of posts whose counters may have drifted since the watermark, in id
+    // order after :afterId
+    @Query(value = "SELECT changed.id FROM (" +
+            "SELECT id FROM posts WHERE updated_at > :since " +
+            "UNION SELECT post_id FROM likes WHERE created_at > :since " +
+            "UNION SELECT post_id FROM comments WHERE created_at > :since " +
+            "UNION SELECT original_post_id FROM shares WHERE created_at > :since" +
+            ") changed WHERE changed.id > :afterId ORDER BY changed.id LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findPostIdsChangedSince(@Param("since") LocalDateTime since,
+            @Param("afterId") Long afterId,
+            @Param("limit") int limit);
+
+    // Apply a comment written or deleted in the current transaction; the row lock
+    // serializes concurrent commenters instead of letting them overwrite each other
+    @Modifying
+    @Query(value = "UPDATE posts SET comment_count = GREATEST(COALESCE(comment_count, 0) + :delta, 0), " +
+            "updated_at = now() WHERE id = :postId",
+            nativeQuery = true)
+    int addToCommentCount(@Param("postId") Long postId, @Param("delta") int delta);
+
+    // Same for a share made or withdrawn; updated_at tells the reconciler, since
+    // a withdrawn share leaves no row behind
+    @Modifying
+    @Query(value = "UPDATE posts SET share_count = GREATEST(COALESCE(share_count, 0) + :delta, 0), " +
+            "updated_at = now() WHERE id = :postId",
+            nativeQuery = true)
+    int addToShareCount(@Param("postId") Long postId, @Param("delta") int delta);
+
+    // The database clock, in the zone updated_at is written in
+    @Query(value = "SELECT LOCALTIMESTAMP", nativeQuery = true)
+    LocalDateTime currentDatabaseTime();
+
+    // Locks a batch of posts before recounting it: a counter increment that is
+    // still in flight has then committed, and is counted, or waits for the
+    // recount and applies on top of it. Ordered so two lockers can't deadlock.
+    @Query(value = "SELECT id FROM posts WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Long> lockForRecount(@Param("ids") Collection<Long> ids);
+
+    // Recount likes, comments and shares for a batch of posts and fix the rows
+    // whose stored counters differ. Returns the number of corrected posts.
+    @Modifying
+    @Query(value = "UPDATE posts p SET like_count = actual.like_count, " +
+            "comment_count = actual.comment_count, share_count = actual.share_count " +
+            "FROM (" +
+            "SELECT x.id, COALESCE(l.cnt, 0) AS like_count, COALESCE(c.cnt, 0) AS comment_count, " +
+            "COALESCE(s.cnt, 0) AS share_count FROM posts x " +
+            "LEFT JOIN (SELECT post_id, COUNT(*) AS cnt FROM likes WHERE post_id IN (:ids) GROUP BY post_id) l " +
+            "ON l.post_id = x.id " +
+            "LEFT JOIN (SELECT post_id, COUNT(*) AS cnt FROM comments WHERE post_id IN (:ids) GROUP BY post_id) c " +
+            "ON c.post_id = x.id " +
+            "LEFT JOIN (SELECT original_post_id AS post_id, COUNT(*) AS cnt FROM shares " +
+            "WHERE original_post_id IN (:ids) GROUP BY original_post_id) s ON s.post_id = x.id " +
+            "WHERE x.id IN (:ids)" +
+            ") actual " +
+            "WHERE p.id = actual.id AND (p.like_count IS DISTINCT FROM actual.like_count " +
+            "OR p.comment_count IS DISTINCT FROM actual.comment_count " +
+            "OR p.share_count IS DISTINCT FROM actual.share_count)",
+            nativeQuery = true)
+    int reconcileCounts(@Param("ids") Collection<Long> ids);
 
     // Search methods for navbar search functionality
     @Query("SELECT p FROM Post p WHERE " +
             "LOWER(p.content) LIKE LOWER(CONCAT('%', :searchTerm, '%')) " +
             "AND (p.user.id = :userId OR " +
             "p.user.id IN (" +
-            "SELECT CASE WHEN f.user1.id = :userId THEN f.user2.id ELSE f.user1.id END " +
-            "FROM Friendship f WHERE f.user1.id = :userId OR f.user2.id = :userId" +
+            "SELECT e.friendId FROM FriendEdge e WHERE e.userId = :userId" +
             ")) " +
             "ORDER BY p.createdAt DESC")
     List<Post> searchPostsInFeed(@Param("userId") Long userId, @Param("searchTerm") String searchTerm);
@@ -44,4 +124,25 @@ public interface PostRepository extends JpaRepository<Post, Long> {
             "LOWER(p.content) LIKE LOWER(CONCAT('%', :searchTerm, '%')) " +
             "ORDER BY p.createdAt DESC")
     List<Post> searchAllPosts(@Param("searchTerm") String searchTerm);
-}
\ No newline at end of file
+
+    // Full-text variants (app.search.backend=postgres): match on the GIN-indexed
+    // content_tsv column, best ts_rank first, limit applied by the database. The
+    // query comes split by FullTextQuery: websearch words and a prefix term.
+    @Query(value = "SELECT p.* FROM posts p, " +
+            "(SELECT websearch_to_tsquery('english', :words) && to_tsquery('english', :prefix) AS q) s " +
+            "WHERE p.content_tsv @@ s.q " +
+            "AND (p.user_id = :userId " +
+            "OR p.user_id IN (SELECT e.friend_id FROM friend_edges e WHERE e.user_id = :userId)) " +
+            "ORDER BY ts_rank(p.content_tsv, s.q) DESC, p.created_at DESC, p.id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<Post> searchPostsInFeedFullText(@Param("userId") Long userId, @Param("words") String words,
+            @Param("prefix") String prefix, @Param("limit") int limit);
+
+    @Query(value = "SELECT p.* FROM posts p, " +
+            "(SELECT websearch_to_tsquery('english', :words) && to_tsquery('english', :prefix) AS q) s " +
+            "WHERE p.content_tsv @@ s.q " +
+            "ORDER BY ts_rank(p.content_tsv, s.q) DESC, p.created_at DESC, p.id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<Post> searchAllPostsFullText(@Param("words") String words, @Param("prefix") String prefix,
+            @Param("limit") int limit);
+}
@@ -1,5 +1,6 @@
 package com.example.social_media_app.repository;
 
+import com.example.social_media_app.dto.PostMemberRow;
 import com.example.social_media_app.model.Post;
 import com.example.social_media_app.model.Share;
 import com.example.social_media_app.model.User;
@@ -8,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +22,18 @@ public interface ShareRepository extends JpaRepository<Share, Long> {
 
     int countByOriginalPost(Post originalPost);
 
+    // All sharers of the given posts, used to load the in-memory sharer sets.
+    // Posts with more than :maxShares shares are skipped; a post without shares
+    // yields one row with a null user id
+    @Query("SELECT new com.example.social_media_app.dto.PostMemberRow(p.id, s.user.id) " +
+            "FROM Post p LEFT JOIN p.shares s WHERE p.id IN :postIds AND p.shareCount <= :maxShares")
+    List<PostMemberRow> findSharersOfPosts(@Param("postIds") Collection<Long> postIds,
+            @Param("maxShares") int maxShares);
+
+    // Which of the given posts the user has shared
+    @Query("SELECT s.originalPost.id FROM Share s WHERE s.user.id = :userId AND s.originalPost.id IN :postIds")
+    List<Long> findSharedPostIds(@Param("userId") Long userId, @Param("postIds") Collection<Long> postIds);
+
     @Query("SELECT COUNT(s) FROM Share s WHERE s.originalPost.id = :postId")
     int countByOriginalPostId(@Param("postId") Long postId);
 
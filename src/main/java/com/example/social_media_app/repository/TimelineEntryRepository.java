@@ -0,0 +1,80 @@
+package com.example.social_media_app.repository;
+
+import com.example.social_media_app.model.TimelineEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TimelineEntryRepository extends JpaRepository<TimelineEntry, Long> {
+
+    // Newest entries of a timeline
+    @Query("SELECT t FROM TimelineEntry t WHERE t.ownerId = :ownerId ORDER BY t.createdAt DESC, t.postId DESC")
+    List<TimelineEntry> findPage(@Param("ownerId") Long ownerId, Pageable pageable);
+
+    // Entries strictly older than the (createdAt, postId) cursor
+    @Query("SELECT t FROM TimelineEntry t WHERE t.ownerId = :ownerId " +
+            "AND (t.createdAt < :cursorCreatedAt OR (t.createdAt = :cursorCreatedAt AND t.postId < :cursorPostId)) " +
+            "ORDER BY t.createdAt DESC, t.postId DESC")
+    List<TimelineEntry> findPageBefore(@Param("ownerId") Long ownerId,
+            @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+            @Param("cursorPostId") Long cursorPostId,
+            Pageable pageable);
+
+    // Put a post into its author's own timeline
+    @Modifying
+    @Query(value = "INSERT INTO timeline_entries (owner_id, post_id, author_id, created_at) " +
+            "SELECT p.user_id, p.id, p.user_id, p.created_at FROM posts p WHERE p.id = :postId " +
+            "ON CONFLICT (owner_id, post_id) DO NOTHING",
+            nativeQuery = true)
+    int insertForAuthor(@Param("postId") Long postId);
+
+    // Fan a post out to every friend of its author in one statement
+    @Modifying
+    @Query(value = "INSERT INTO timeline_entries (owner_id, post_id, author_id, created_at) " +
+            "SELECT e.friend_id, p.id, p.user_id, p.created_at " +
+            "FROM posts p JOIN friend_edges e ON e.user_id = p.user_id " +
+            "WHERE p.id = :postId " +
+            "ON CONFLICT (owner_id, post_id) DO NOTHING",
+            nativeQuery = true)
+    int insertForFriendsOfAuthor(@Param("postId") Long postId);
+
+    // Copy an author's most recent posts into another user's timeline
+    @Modifying
+    @Query(value = "INSERT INTO timeline_entries (owner_id, post_id, author_id, created_at) " +
+            "SELECT :ownerId, p.id, p.user_id, p.created_at FROM posts p " +
+            "WHERE p.user_id = :authorId ORDER BY p.created_at DESC, p.id DESC LIMIT :limit " +
+            "ON CONFLICT (owner_id, post_id) DO NOTHING",
+            nativeQuery = true)
+    int backfill(@Param("ownerId") Long ownerId, @Param("authorId") Long authorId, @Param("limit") int limit);
+
+    // Copy an author's most recent posts into the timelines of all their friends
+    @Modifying
+    @Query(value = "INSERT INTO timeline_entries (owner_id, post_id, author_id, created_at) " +
+            "SELECT e.friend_id, p.id, p.user_id, p.created_at " +
+            "FROM (SELECT id, user_id, created_at FROM posts WHERE user_id = :authorId " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit) p " +
+            "JOIN friend_edges e ON e.user_id = p.user_id " +
+            "ON CONFLICT (owner_id, post_id) DO NOTHING",
+            nativeQuery = true)
+    int backfillFriendsOfAuthor(@Param("authorId") Long authorId, @Param("limit") int limit);
+
+    @Modifying
+    @Query("DELETE FROM TimelineEntry t WHERE t.ownerId = :ownerId AND t.authorId = :authorId")
+    int deleteByOwnerIdAndAuthorId(@Param("ownerId") Long ownerId, @Param("authorId") Long authorId);
+
+    // Drop everything beyond the newest :maxEntries entries of each timeline
+    @Modifying
+    @Query(value = "DELETE FROM timeline_entries t USING (" +
+            "SELECT id, ROW_NUMBER() OVER (PARTITION BY owner_id ORDER BY created_at DESC, post_id DESC) AS rn " +
+            "FROM timeline_entries) ranked " +
+            "WHERE t.id = ranked.id AND ranked.rn > :maxEntries",
+            nativeQuery = true)
+    int trimTimelines(@Param("maxEntries") int maxEntries);
+}
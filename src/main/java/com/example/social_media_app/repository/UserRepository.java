@@ -1,9 +1,11 @@
 package com.example.social_media_app.repository;
 
+import com.example.social_media_app.dto.AuthorSummaryDto;
 import com.example.social_media_app.model.User;
 import com.example.social_media_app.model.Friendship;
 import com.example.social_media_app.model.FriendRequest;
 import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 import org.springframework.data.domain.Page;
@@ -20,13 +22,17 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByUsername(String username);
 
+    // Author summaries for a batch of users, used by the feed read model
+    @Query("SELECT new com.example.social_media_app.dto.AuthorSummaryDto(u.id, u.firstName, u.lastName, " +
+            "u.username, u.profilePicture) FROM User u WHERE u.id IN :ids")
+    List<AuthorSummaryDto> findAuthorSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
     @Query("SELECT u FROM User u WHERE u.id <> :currentUserId")
     Page<User> findAllExceptCurrentUser(@Param("currentUserId") Long currentUserId, Pageable pageable);
 
     @Query("SELECT u FROM User u WHERE u.id <> :currentUserId " +
             "AND u.id NOT IN (" +
-            "    SELECT CASE WHEN f.user1.id = :currentUserId THEN f.user2.id ELSE f.user1.id END " +
-            "    FROM Friendship f WHERE f.user1.id = :currentUserId OR f.user2.id = :currentUserId" +
+            "    SELECT e.friendId FROM FriendEdge e WHERE e.userId = :currentUserId" +
             ") " +
             "AND u.id NOT IN (" +
             "    SELECT fr.receiver.id FROM FriendRequest fr WHERE fr.sender.id = :currentUserId AND fr.status = 'PENDING'"
@@ -58,4 +64,26 @@ public interface UserRepository extends JpaRepository<User, Long> {
             "     ELSE 5 END")
     List<User> searchUsersWithRelevance(@Param("currentUserId") Long currentUserId,
             @Param("searchTerm") String searchTerm);
-}
\ No newline at end of file
+
+    // Full-text variants (app.search.backend=postgres) on the GIN-indexed
+    // name_tsv column (first name, last name, username), best ts_rank first; the
+    // last word of the query is matched as a prefix (see FullTextQuery)
+    @Query(value = "SELECT u.* FROM users u, " +
+            "(SELECT websearch_to_tsquery('simple', :words) && to_tsquery('simple', :prefix) AS q) s " +
+            "WHERE u.id <> :currentUserId AND u.name_tsv @@ s.q " +
+            "ORDER BY ts_rank(u.name_tsv, s.q) DESC, u.id",
+            countQuery = "SELECT count(*) FROM users u " +
+                    "WHERE u.id <> :currentUserId AND u.name_tsv @@ " +
+                    "(websearch_to_tsquery('simple', :words) && to_tsquery('simple', :prefix))",
+            nativeQuery = true)
+    Page<User> searchUsersFullText(@Param("currentUserId") Long currentUserId, @Param("words") String words,
+            @Param("prefix") String prefix, Pageable pageable);
+
+    @Query(value = "SELECT u.* FROM users u, " +
+            "(SELECT websearch_to_tsquery('simple', :words) && to_tsquery('simple', :prefix) AS q) s " +
+            "WHERE u.id <> :currentUserId AND u.name_tsv @@ s.q " +
+            "ORDER BY ts_rank(u.name_tsv, s.q) DESC, u.id LIMIT :limit",
+            nativeQuery = true)
+    List<User> suggestUsersFullText(@Param("currentUserId") Long currentUserId, @Param("words") String words,
+            @Param("prefix") String prefix, @Param("limit") int limit);
+}
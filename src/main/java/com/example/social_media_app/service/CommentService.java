@@ -1,10 +1,15 @@
 package com.example.social_media_app.service;
 
+import com.example.social_media_app.dto.CommentDto;
+import com.example.social_media_app.dto.CommentPageDto;
 import com.example.social_media_app.model.Comment;
 import com.example.social_media_app.model.Post;
 import com.example.social_media_app.model.User;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 public interface CommentService {
     Comment createComment(String content, Post post, User user);
@@ -13,6 +18,27 @@ public interface CommentService {
 
     List<Comment> getCommentsByPostId(Long postId);
 
+    /**
+     * One page of a post's top-level comments, oldest first, each with its
+     * first replies. Uses two queries whatever the page size.
+     * @param cursor the nextCursor of the previous page, or null for the first page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    CommentPageDto getCommentPage(Long postId, String cursor, int limit);
+
+    /**
+     * The newest {@code perPost} comments of every given post, oldest first,
+     * read with a single query whatever the number of posts.
+     * @return previews keyed by post id; posts without comments are left out
+     */
+    Map<Long, List<CommentDto>> getLatestComments(Collection<Long> postIds, int perPost);
+
+    /**
+     * Every reply below a comment, at any depth, in depth-first order.
+     * @return empty if the comment does not exist
+     */
+    Optional<List<CommentDto>> getReplies(Long commentId);
+
     List<Comment> findByPost(Post post);
 
     Comment save(Comment comment);
@@ -0,0 +1,8 @@
+package com.example.social_media_app.service;
+
+public interface CountReconciliationService {
+
+    // Recount likes, comments and shares of posts touched since the last run and
+    // fix drifted counters; returns the number of corrected posts
+    int reconcile();
+}
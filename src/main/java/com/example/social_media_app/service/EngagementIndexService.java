@@ -0,0 +1,19 @@
+package com.example.social_media_app.service;
+
+import java.util.Collection;
+import java.util.Set;
+
+public interface EngagementIndexService {
+
+    // Which of the given posts the user has liked; served from memory for
+    // resident posts, the others are loaded
+    Set<Long> findLikedPostIds(Long userId, Collection<Long> postIds);
+
+    // Which of the given posts the user has shared
+    Set<Long> findSharedPostIds(Long userId, Collection<Long> postIds);
+
+    // Keep resident sets current; applied once the current transaction commits
+    void recordLike(Long postId, Long userId, boolean liked);
+
+    void recordShare(Long postId, Long userId, boolean shared);
+}
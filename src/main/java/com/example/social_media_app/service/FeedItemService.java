@@ -0,0 +1,13 @@
+package com.example.social_media_app.service;
+
+import com.example.social_media_app.dto.FeedItemDto;
+
+import java.util.List;
+
+public interface FeedItemService {
+
+    // Feed items for the given posts in the given order, each with a preview of
+    // its newest comments; ids of deleted posts are skipped. Uses the same number
+    // of queries whatever the number of ids
+    List<FeedItemDto> findFeedItems(List<Long> postIds);
+}
@@ -1,10 +1,14 @@
 package com.example.social_media_app.service;
 
+import com.example.social_media_app.dto.RelationshipStatusDto;
 import com.example.social_media_app.model.FriendRequest;
 import com.example.social_media_app.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
+import java.util.Map;
+
 public interface FriendRequestService {
     
     // Send friend request
@@ -39,6 +43,9 @@ public interface FriendRequestService {
     // Check if friend request exists
     boolean hasPendingRequest(Long senderId, Long receiverId);
     
+    // Relationship of the user with each of the others, in at most two queries
+    Map<Long, RelationshipStatusDto> getRelationshipStatuses(Long userId, Collection<Long> otherIds);
+    
     // Unfriend a user
     void unfriend(Long userId1, Long userId2);
 }
@@ -0,0 +1,20 @@
+package com.example.social_media_app.service;
+
+import com.example.social_media_app.dto.FriendStatsDto;
+
+public interface FriendStatsService {
+
+    // Friend, incoming and outgoing request counts, served from memory once
+    // loaded
+    FriendStatsDto getStats(Long userId);
+
+    // Counter deltas, applied once the current transaction commits
+    void requestSent(Long senderId, Long receiverId);
+
+    // The request was accepted, declined or cancelled
+    void requestClosed(Long senderId, Long receiverId);
+
+    // Recount the cached users and fix drifted counters; returns the number of
+    // corrected users
+    int reconcile();
+}
@@ -0,0 +1,17 @@
+package com.example.social_media_app.service;
+
+import com.example.social_media_app.dto.FriendSuggestionDto;
+
+import java.util.List;
+
+public interface FriendSuggestionService {
+
+    // Best suggestions first: most mutual friends, then most profile fields in
+    // common; padded with other users when there are not enough friends of
+    // friends
+    List<FriendSuggestionDto> getSuggestions(Long userId, int limit);
+
+    // Drop the cached suggestions of the users; applied once the current
+    // transaction commits
+    void invalidate(Long... userIds);
+}
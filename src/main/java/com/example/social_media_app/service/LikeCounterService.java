@@ -0,0 +1,15 @@
+package com.example.social_media_app.service;
+
+public interface LikeCounterService {
+
+    // Record a like (+1) or unlike (-1); applied once the current transaction
+    // commits
+    void add(Long postId, int delta);
+
+    // Like delta of the post that has not reached posts.like_count yet
+    long pendingDelta(Long postId);
+
+    // Write pending deltas to posts.like_count; returns the number of posts
+    // updated
+    int flush();
+}
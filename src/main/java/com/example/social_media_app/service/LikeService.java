@@ -1,12 +1,20 @@
 package com.example.social_media_app.service;
 
+import com.example.social_media_app.dto.LikeStateDto;
 import com.example.social_media_app.model.Post;
 import com.example.social_media_app.model.User;
 
+import java.util.Optional;
+
 public interface LikeService {
 
     boolean toggleLike(Post post, User user);
 
+    // Idempotent like/unlike by id; empty when the post does not exist
+    Optional<LikeStateDto> like(Long postId, Long userId);
+
+    Optional<LikeStateDto> unlike(Long postId, Long userId);
+
     boolean isLiked(Post post, User user);
 
     int getLikeCount(Post post);
@@ -0,0 +1,11 @@
+package com.example.social_media_app.service;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface MutualFriendService {
+
+    // Number of friends each candidate has in common with the viewer; every
+    // candidate is in the result, with 0 when they share none
+    Map<Long, Integer> getMutualFriendCounts(Long viewerId, Collection<Long> candidateIds);
+}
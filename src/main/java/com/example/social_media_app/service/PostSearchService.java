@@ -0,0 +1,23 @@
+package com.example.social_media_app.service;
+
+import com.example.social_media_app.model.Post;
+
+import java.util.List;
+
+public interface PostSearchService {
+
+    // Newest posts by the user or their friends containing every word of the
+    // query, the last word matched as a prefix
+    List<Post> searchFeed(Long userId, String query, int limit);
+
+    // Same without the author restriction
+    List<Post> searchAll(String query, int limit);
+
+    // Index updates, applied once the current transaction commits
+    void postCreated(Post post);
+
+    void postDeleted(Post post);
+
+    // Rebuild the index from the posts table
+    void reload();
+}
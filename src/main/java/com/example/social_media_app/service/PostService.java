@@ -1,5 +1,7 @@
 package com.example.social_media_app.service;
 
+import com.example.social_media_app.dto.FeedPageDto;
+import com.example.social_media_app.dto.PostViewerStateDto;
 import com.example.social_media_app.model.Post;
 import com.example.social_media_app.model.User;
 import org.springframework.web.multipart.MultipartFile;
@@ -30,8 +32,13 @@ public interface PostService {
 
     List<Post> findAll();
 
-    // Get posts from user and their friends
-    List<Post> getFeedPosts(Long userId);
+    // Get one page of the feed, starting after the given opaque cursor (null for
+    // the first page)
+    FeedPageDto getFeedPage(Long userId, String cursor, int limit);
+
+    // Liked/shared flags and counters of a page of posts for one viewer, in the
+    // order of the given ids; unknown ids are skipped
+    List<PostViewerStateDto> getViewerStates(Long userId, List<Long> postIds);
 
     // Search methods for navbar search functionality
     List<Post> searchPostsInFeed(Long userId, String searchTerm);
@@ -0,0 +1,10 @@
+package com.example.social_media_app.service;
+
+import com.example.social_media_app.dto.SearchSuggestionsDto;
+
+public interface SearchSuggestionService {
+
+    // Typeahead for the search box: the best users and feed posts for the
+    // query, from a per-viewer cache of recent keystrokes where possible
+    SearchSuggestionsDto suggest(Long viewerId, String query, int userLimit, int postLimit);
+}
@@ -0,0 +1,33 @@
+package com.example.social_media_app.service;
+
+import com.example.social_media_app.util.SocialGraph;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+public interface SocialGraphService {
+
+    // Served from the in-memory graph once it is loaded, from the database until
+    // then
+    boolean areFriends(Long userId1, Long userId2);
+
+    long getFriendCount(Long userId);
+
+    List<Long> getFriendIds(Long userId);
+
+    long getMutualFriendCount(Long userId1, Long userId2);
+
+    // Hops from the user to each of the others, for the ones within the
+    // configured depth; empty while the graph is not loaded
+    Map<Long, Integer> getDegreesOfSeparation(Long userId, Collection<Long> otherIds);
+
+    // Runs the query against the in-memory graph with writes held off until it
+    // returns; empty while the graph is not loaded
+    <T> Optional<T> query(Function<SocialGraph, T> query);
+
+    // Rebuild the graph from the friendships table
+    void reload();
+}
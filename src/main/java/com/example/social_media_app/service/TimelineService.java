@@ -0,0 +1,18 @@
+package com.example.social_media_app.service;
+
+import com.example.social_media_app.dto.PageCursor;
+import com.example.social_media_app.model.Post;
+import com.example.social_media_app.model.TimelineEntry;
+
+import java.util.List;
+
+public interface TimelineService {
+
+    // Put a freshly written post into its author's timeline and schedule the
+    // fan-out to the author's friends once the transaction commits
+    void publish(Post post);
+
+    // Timeline entries newest first, strictly older than the cursor (null for the
+    // head of the timeline)
+    List<TimelineEntry> getTimelinePage(Long ownerId, PageCursor after, int limit);
+}
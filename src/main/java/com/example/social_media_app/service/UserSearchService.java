@@ -0,0 +1,25 @@
+package com.example.social_media_app.service;
+
+import com.example.social_media_app.model.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+public interface UserSearchService {
+
+    // People typeahead: users whose name, username or email contains the
+    // query, exact and prefix matches first, never the searching user
+    List<User> suggest(Long currentUserId, String query, int limit);
+
+    // Search results page: every user matching the query, except the searching
+    // user
+    Page<User> search(Long currentUserId, String query, Pageable pageable);
+
+    // Index update for a registered or edited user, applied once the current
+    // transaction commits
+    void userSaved(User user);
+
+    // Rebuild the index from the users table
+    void reload();
+}
@@ -1,16 +1,29 @@
 package com.example.social_media_app.service.impl;
 
+import com.example.social_media_app.dto.CommentDto;
+import com.example.social_media_app.dto.CommentPageDto;
+import com.example.social_media_app.dto.CommentPlacement;
+import com.example.social_media_app.dto.CommentPreviewRow;
+import com.example.social_media_app.dto.CommentRow;
+import com.example.social_media_app.dto.CommentThreadDto;
+import com.example.social_media_app.dto.PageCursor;
 import com.example.social_media_app.model.Comment;
 import com.example.social_media_app.model.Post;
 import com.example.social_media_app.repository.CommentRepository;
 import com.example.social_media_app.repository.PostRepository;
 import com.example.social_media_app.service.CommentService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -19,6 +32,21 @@ public class CommentServiceImpl implements CommentService {
     private final CommentRepository commentRepository;
     private final PostRepository postRepository;
 
+    // Upper bound on the page size a client may ask for
+    private static final int MAX_COMMENT_PAGE_SIZE = 100;
+
+    // Replies shown under each top-level comment of a page
+    private static final int REPLY_PREVIEW_SIZE = 3;
+
+    // Largest subtree returned in one response
+    private static final int MAX_SUBTREE_SIZE = 500;
+
+    // Deepest reply allowed; keeps paths within the column size
+    private static final int MAX_DEPTH = 16;
+
+    // Path segments are fixed width so that text order is numeric order
+    private static final String PATH_SEGMENT_FORMAT = "%019d";
+
     // Implementing missing methods from CommentService
 
     @Override
@@ -30,6 +58,66 @@ public class CommentServiceImpl implements CommentService {
         return commentRepository.findByPostOrderByCreatedAtAsc(post);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CommentPageDto getCommentPage(Long postId, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_COMMENT_PAGE_SIZE));
+        PageCursor after = PageCursor.decode(cursor);
+
+        // Fetch one extra row to find out whether another page exists
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+        List<CommentRow> rows = after == null
+                ? commentRepository.findPage(postId, page)
+                : commentRepository.findPageAfter(postId, after.createdAt(), after.id(), page);
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            CommentRow last = rows.get(pageSize - 1);
+            nextCursor = new PageCursor(last.createdAt(), last.id()).encode();
+        }
+
+        // The first replies of every thread on the page in one more query
+        List<Long> rootIds = rows.stream().filter(row -> row.replyCount() > 0).map(CommentRow::id).toList();
+        Map<Long, List<CommentDto>> repliesByRootId = new HashMap<>();
+        if (!rootIds.isEmpty()) {
+            for (CommentPreviewRow reply : commentRepository.findFirstRepliesByRootIdIn(rootIds, REPLY_PREVIEW_SIZE)) {
+                repliesByRootId.computeIfAbsent(reply.getRootId(), id -> new ArrayList<>()).add(CommentDto.from(reply));
+            }
+        }
+
+        List<CommentThreadDto> threads = new ArrayList<>(rows.size());
+        for (CommentRow row : rows) {
+            threads.add(new CommentThreadDto(CommentDto.from(row), repliesByRootId.get(row.id())));
+        }
+        return new CommentPageDto(threads, nextCursor);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<List<CommentDto>> getReplies(Long commentId) {
+        return commentRepository.findPlacement(commentId)
+                .map(placement -> commentRepository.findSubtree(placement.rootId(), placement.descendantPrefix(),
+                                PageRequest.of(0, MAX_SUBTREE_SIZE))
+                        .stream()
+                        .map(CommentDto::from)
+                        .toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, List<CommentDto>> getLatestComments(Collection<Long> postIds, int perPost) {
+        Map<Long, List<CommentDto>> previews = new HashMap<>();
+        if (postIds.isEmpty() || perPost <= 0) {
+            return previews;
+        }
+
+        for (CommentPreviewRow row : commentRepository.findLatestByPostIdIn(postIds, perPost)) {
+            previews.computeIfAbsent(row.getPostId(), id -> new ArrayList<>()).add(CommentDto.from(row));
+        }
+        return previews;
+    }
+
     @Override
     public Comment createComment(String content, Post post, com.example.social_media_app.model.User user) {
         Comment comment = new Comment();
@@ -47,53 +135,71 @@ public class CommentServiceImpl implements CommentService {
     }
 
     @Override
+    @Transactional
     public void deleteComment(Comment comment) {
-        delete(comment);
+        // Replies go with the comment. Only the transaction that actually removed
+        // the rows adjusts the counters
+        String descendantPrefix = comment.getPath() + ".%";
+        int removed = commentRepository.deleteSubtree(comment.getId(), comment.getRootId(), descendantPrefix);
+        if (removed > 0) {
+            postRepository.addToCommentCount(comment.getPost().getId(), -removed);
+            List<Long> ancestorIds = ancestorIdsOf(comment.getPath());
+            if (!ancestorIds.isEmpty()) {
+                commentRepository.addToReplyCount(ancestorIds, -removed);
+            }
+        }
     }
 
     @Override
     public List<Comment> findByPost(Post post) {
-        List<Comment> comments = commentRepository.findByPostOrderByCreatedAtAsc(post);
-
-        // Update comment count if it doesn't match
-        if (post.getCommentCount() != comments.size()) {
-            post.setCommentCount(comments.size());
-            postRepository.save(post);
-        }
-        
-        return comments;
+        return commentRepository.findByPostOrderByCreatedAtAsc(post);
     }
 
     @Override
     @Transactional
     public Comment save(Comment comment) {
+        boolean created = comment.getId() == null;
         if (comment.getCreatedAt() == null) {
             comment.setCreatedAt(LocalDateTime.now());
         }
         comment.setUpdatedAt(LocalDateTime.now());
-        
+
+        CommentPlacement parent = null;
+        if (created && comment.getParentId() != null) {
+            parent = commentRepository.findPlacement(comment.getParentId())
+                    .orElseThrow(() -> new IllegalArgumentException("Parent comment not found"));
+            if (!parent.postId().equals(comment.getPost().getId())) {
+                throw new IllegalArgumentException("Parent comment belongs to another post");
+            }
+            if (parent.depth() >= MAX_DEPTH) {
+                throw new IllegalArgumentException("Reply thread is too deep");
+            }
+        }
+
         Comment savedComment = commentRepository.save(comment);
-        
-        // Update comment count in post
-        Post post = comment.getPost();
-        int commentCount = commentRepository.countByPost(post);
-        post.setCommentCount(commentCount);
-        postRepository.save(post);
-        
+
+        if (created) {
+            // The path ends with the comment's own id, which only exists after the insert
+            String segment = String.format(PATH_SEGMENT_FORMAT, savedComment.getId());
+            if (parent == null) {
+                savedComment.setRootId(savedComment.getId());
+                savedComment.setPath(segment);
+                savedComment.setDepth(0);
+            } else {
+                savedComment.setRootId(parent.rootId());
+                savedComment.setPath(parent.path() + "." + segment);
+                savedComment.setDepth(parent.depth() + 1);
+                commentRepository.addToReplyCount(ancestorIdsOf(savedComment.getPath()), 1);
+            }
+
+            // Bump the stored counter in place rather than recounting and saving the
+            // whole post, which raced with other commenters and overwrote like counts
+            postRepository.addToCommentCount(comment.getPost().getId(), 1);
+        }
+
         return savedComment;
     }
-    
-    @Transactional
-    public void delete(Comment comment) {
-        commentRepository.delete(comment);
-        
-        // Update comment count in post
-        Post post = comment.getPost();
-        int commentCount = commentRepository.countByPost(post);
-        post.setCommentCount(commentCount);
-        postRepository.save(post);
-    }
-    
+
     @Override
     public Comment findById(Long commentId) {
         return commentRepository.findById(commentId).orElse(null);
@@ -103,4 +209,17 @@ public class CommentServiceImpl implements CommentService {
     public int countByPost(Post post) {
         return commentRepository.countByPost(post);
     }
-}
\ No newline at end of file
+
+    // Ids of the ancestors encoded in a path, excluding the comment itself
+    private static List<Long> ancestorIdsOf(String path) {
+        List<Long> ids = new ArrayList<>();
+        if (path == null) {
+            return ids;
+        }
+        String[] segments = path.split("\\.");
+        for (int i = 0; i < segments.length - 1; i++) {
+            ids.add(Long.parseLong(segments[i]));
+        }
+        return ids;
+    }
+}
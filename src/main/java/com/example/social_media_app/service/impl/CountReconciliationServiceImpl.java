@@ -0,0 +1,111 @@
+package com.example.social_media_app.service.impl;
+
+import com.example.social_media_app.repository.PostRepository;
+import com.example.social_media_app.service.CountReconciliationService;
+import com.example.social_media_app.service.LikeCounterService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Read paths trust the denormalized like/comment/share counters on posts. This
+ * job repairs any drift in the background: it finds posts touched since the
+ * previous run and recounts them in set-based batches.
+ */
+@Service
+@Slf4j
+public class CountReconciliationServiceImpl implements CountReconciliationService {
+
+    private final PostRepository postRepository;
+    private final LikeCounterService likeCounterService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration overlap;
+
+    private final Counter correctedCounter;
+    private final Counter scannedCounter;
+    private final Timer runTimer;
+
+    // Start of the previous successful run by the database clock, less the
+    // overlap; the first run after startup checks every post
+    private LocalDateTime watermark = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    public CountReconciliationServiceImpl(PostRepository postRepository,
+            LikeCounterService likeCounterService,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.counts.reconcile-batch-size:500}") int batchSize,
+            @Value("${app.counts.reconcile-overlap-ms:60000}") long overlapMs) {
+        this.postRepository = postRepository;
+        this.likeCounterService = likeCounterService;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.overlap = Duration.ofMillis(overlapMs);
+        this.correctedCounter = Counter.builder("posts.counts.corrected")
+                .description("Posts whose like/comment/share counters were repaired")
+                .register(meterRegistry);
+        this.scannedCounter = Counter.builder("posts.counts.scanned")
+                .description("Posts recounted by the reconciler")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("posts.counts.reconcile")
+                .description("Duration of a counter reconciliation run")
+                .register(meterRegistry);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.counts.reconcile-interval-ms:300000}")
+    public synchronized int reconcile() {
+        return runTimer.record(() -> {
+            // updated_at is written with the database's now(), which is the start of
+            // the writing transaction: one that began before this run but commits
+            // after the scan is only caught if the next run looks back past it
+            LocalDateTime runStartedAt = postRepository.currentDatabaseTime();
+            long afterId = 0;
+            int corrected = 0;
+
+            List<Long> batch;
+            do {
+                batch = postRepository.findPostIdsChangedSince(watermark, afterId, batchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+
+                // Posts with buffered likes would be recounted and then incremented
+                // again by the flush; the flush bumps updated_at so the next run
+                // checks them
+                List<Long> ids = batch.stream()
+                        .filter(id -> likeCounterService.pendingDelta(id) == 0)
+                        .toList();
+                if (!ids.isEmpty()) {
+                    Integer fixed = transactionTemplate.execute(status -> {
+                        // The recount reads a snapshot; with the rows locked first,
+                        // no increment can commit between that snapshot and the write
+                        List<Long> locked = postRepository.lockForRecount(ids);
+                        return locked.isEmpty() ? 0 : postRepository.reconcileCounts(locked);
+                    });
+                    corrected += fixed != null ? fixed : 0;
+                    scannedCounter.increment(ids.size());
+                }
+                afterId = batch.get(batch.size() - 1);
+            } while (batch.size() == batchSize);
+
+            // Anything written while this run was going is picked up by the next one
+            watermark = runStartedAt.minus(overlap);
+
+            correctedCounter.increment(corrected);
+            if (corrected > 0) {
+                log.info("Reconciled counters of {} posts", corrected);
+            }
+            return corrected;
+        });
+    }
+}
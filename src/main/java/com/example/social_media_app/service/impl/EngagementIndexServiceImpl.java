@@ -0,0 +1,177 @@
+package com.example.social_media_app.service.impl;
+
+import com.example.social_media_app.dto.PostMemberRow;
+import com.example.social_media_app.repository.LikeRepository;
+import com.example.social_media_app.repository.ShareRepository;
+import com.example.social_media_app.service.EngagementIndexService;
+import com.example.social_media_app.util.IdBitmapCache;
+import com.example.social_media_app.util.RoaringIdSet;
+import com.example.social_media_app.util.TransactionUtil;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Per-post sets of likers and sharers held in memory as compressed bitmaps, so
+ * "has the viewer liked/shared this post" is a lookup rather than a query.
+ * Sets are loaded on first use and kept current by the like and share writes;
+ * each kind has its own memory budget with least recently used posts evicted.
+ */
+@Service
+public class EngagementIndexServiceImpl implements EngagementIndexService {
+
+    private final LikeRepository likeRepository;
+    private final ShareRepository shareRepository;
+
+    private final IdBitmapCache likers;
+    private final IdBitmapCache sharers;
+
+    // Posts with more likes or shares than this are not loaded into memory; their
+    // lookups go to the database
+    private final int maxLoadSize;
+
+    public EngagementIndexServiceImpl(LikeRepository likeRepository,
+            ShareRepository shareRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.engagement-index.likes-max-bytes:67108864}") long likesMaxBytes,
+            @Value("${app.engagement-index.shares-max-bytes:16777216}") long sharesMaxBytes,
+            @Value("${app.engagement-index.max-load-size:100000}") int maxLoadSize) {
+        this.likeRepository = likeRepository;
+        this.shareRepository = shareRepository;
+        this.likers = new IdBitmapCache(likesMaxBytes);
+        this.sharers = new IdBitmapCache(sharesMaxBytes);
+        this.maxLoadSize = maxLoadSize;
+        registerMetrics(meterRegistry, "likes", likers);
+        registerMetrics(meterRegistry, "shares", sharers);
+    }
+
+    @Override
+    public Set<Long> findLikedPostIds(Long userId, Collection<Long> postIds) {
+        return find(likers, userId, postIds, likeRepository::findLikersOfPosts, likeRepository::findLikedPostIds);
+    }
+
+    @Override
+    public Set<Long> findSharedPostIds(Long userId, Collection<Long> postIds) {
+        return find(sharers, userId, postIds, shareRepository::findSharersOfPosts,
+                shareRepository::findSharedPostIds);
+    }
+
+    @Override
+    public void recordLike(Long postId, Long userId, boolean liked) {
+        TransactionUtil.afterCommit(() -> update(likers, postId, userId, liked));
+    }
+
+    @Override
+    public void recordShare(Long postId, Long userId, boolean shared) {
+        TransactionUtil.afterCommit(() -> update(sharers, postId, userId, shared));
+    }
+
+    private Set<Long> find(IdBitmapCache cache, Long userId, Collection<Long> postIds,
+            BiFunction<Collection<Long>, Integer, List<PostMemberRow>> loader,
+            BiFunction<Long, Collection<Long>, List<Long>> fallback) {
+        Set<Long> ids = new LinkedHashSet<>(postIds);
+        Set<Long> found = new HashSet<>();
+        if (ids.isEmpty()) {
+            return found;
+        }
+
+        Map<Long, Boolean> resident = cache.contains(ids, userId);
+        resident.forEach((postId, member) -> {
+            if (member) {
+                found.add(postId);
+            }
+        });
+        List<Long> missing = new ArrayList<>();
+        for (Long postId : ids) {
+            if (!resident.containsKey(postId)) {
+                missing.add(postId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        // One query loads the sets of every missing post
+        Map<Long, IdBitmapCache.LoadTicket> tickets = new HashMap<>();
+        for (Long postId : missing) {
+            tickets.put(postId, cache.beginLoad(postId));
+        }
+        Map<Long, RoaringIdSet> loaded = new HashMap<>();
+        try {
+            for (PostMemberRow row : loader.apply(missing, maxLoadSize)) {
+                RoaringIdSet set = loaded.computeIfAbsent(row.postId(), id -> new RoaringIdSet());
+                if (row.userId() != null) {
+                    set.add(row.userId());
+                }
+            }
+        } catch (RuntimeException e) {
+            tickets.values().forEach(cache::abandon);
+            throw e;
+        }
+
+        List<Long> tooLarge = new ArrayList<>();
+        for (Long postId : missing) {
+            RoaringIdSet set = loaded.get(postId);
+            if (set == null) {
+                // Deleted, or too large to keep in memory
+                cache.abandon(tickets.get(postId));
+                tooLarge.add(postId);
+                continue;
+            }
+            cache.install(tickets.get(postId), set);
+            if (set.contains(userId)) {
+                found.add(postId);
+            }
+        }
+
+        if (!tooLarge.isEmpty()) {
+            found.addAll(fallback.apply(userId, tooLarge));
+        }
+        return found;
+    }
+
+    private static void update(IdBitmapCache cache, Long postId, Long userId, boolean member) {
+        if (member) {
+            cache.add(postId, userId);
+        } else {
+            cache.remove(postId, userId);
+        }
+    }
+
+    private static void registerMetrics(MeterRegistry registry, String kind, IdBitmapCache cache) {
+        Gauge.builder("engagement.index.bytes", cache, IdBitmapCache::bytes)
+                .description("Approximate heap used by the in-memory post member sets")
+                .baseUnit("bytes")
+                .tag("kind", kind)
+                .register(registry);
+        Gauge.builder("engagement.index.posts", cache, IdBitmapCache::size)
+                .description("Posts whose member set is resident")
+                .tag("kind", kind)
+                .register(registry);
+        Gauge.builder("engagement.index.hit.ratio", cache, IdBitmapCache::hitRatio)
+                .description("Share of lookups answered from memory")
+                .tag("kind", kind)
+                .register(registry);
+        FunctionCounter.builder("engagement.index.hits", cache, IdBitmapCache::hits)
+                .tag("kind", kind)
+                .register(registry);
+        FunctionCounter.builder("engagement.index.misses", cache, IdBitmapCache::misses)
+                .tag("kind", kind)
+                .register(registry);
+        FunctionCounter.builder("engagement.index.evictions", cache, IdBitmapCache::evictions)
+                .tag("kind", kind)
+                .register(registry);
+    }
+}
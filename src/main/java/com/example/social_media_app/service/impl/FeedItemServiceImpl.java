@@ -0,0 +1,147 @@
+package com.example.social_media_app.service.impl;
+
+import com.example.social_media_app.dto.AuthorSummaryDto;
+import com.example.social_media_app.dto.CommentDto;
+import com.example.social_media_app.dto.FeedItemDto;
+import com.example.social_media_app.dto.FeedPostRow;
+import com.example.social_media_app.dto.MediaDto;
+import com.example.social_media_app.dto.SharedPostDto;
+import com.example.social_media_app.repository.PostMediaRepository;
+import com.example.social_media_app.repository.PostRepository;
+import com.example.social_media_app.repository.UserRepository;
+import com.example.social_media_app.service.CommentService;
+import com.example.social_media_app.service.FeedItemService;
+import com.example.social_media_app.service.LikeCounterService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+public class FeedItemServiceImpl implements FeedItemService {
+
+    private final PostRepository postRepository;
+    private final UserRepository userRepository;
+    private final PostMediaRepository postMediaRepository;
+    private final LikeCounterService likeCounterService;
+    private final CommentService commentService;
+
+    // Newest comments shown under each feed card; 0 turns previews off
+    private final int commentPreviewSize;
+
+    public FeedItemServiceImpl(PostRepository postRepository,
+            UserRepository userRepository,
+            PostMediaRepository postMediaRepository,
+            LikeCounterService likeCounterService,
+            CommentService commentService,
+            @Value("${app.feed.comment-preview-size:2}") int commentPreviewSize) {
+        this.postRepository = postRepository;
+        this.userRepository = userRepository;
+        this.postMediaRepository = postMediaRepository;
+        this.likeCounterService = likeCounterService;
+        this.commentService = commentService;
+        this.commentPreviewSize = commentPreviewSize;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<FeedItemDto> findFeedItems(List<Long> postIds) {
+        if (postIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // 1. The posts themselves
+        Map<Long, FeedPostRow> rowsById = new HashMap<>();
+        for (FeedPostRow row : postRepository.findFeedRowsByIdIn(postIds)) {
+            rowsById.put(row.id(), row);
+        }
+
+        // 2. The originals of the shares on this page
+        Set<Long> sharedIds = new HashSet<>();
+        for (FeedPostRow row : rowsById.values()) {
+            if (row.sharedPostId() != null) {
+                sharedIds.add(row.sharedPostId());
+            }
+        }
+        Map<Long, FeedPostRow> sharedById = new HashMap<>();
+        if (!sharedIds.isEmpty()) {
+            for (FeedPostRow row : postRepository.findFeedRowsByIdIn(sharedIds)) {
+                sharedById.put(row.id(), row);
+            }
+        }
+
+        // 3. Authors of both, and 4. media of both
+        Set<Long> authorIds = new HashSet<>();
+        Set<Long> mediaPostIds = new HashSet<>();
+        for (FeedPostRow row : rowsById.values()) {
+            authorIds.add(row.authorId());
+            mediaPostIds.add(row.id());
+        }
+        for (FeedPostRow row : sharedById.values()) {
+            authorIds.add(row.authorId());
+            mediaPostIds.add(row.id());
+        }
+
+        Map<Long, AuthorSummaryDto> authorsById = new HashMap<>();
+        if (!authorIds.isEmpty()) {
+            for (AuthorSummaryDto author : userRepository.findAuthorSummariesByIdIn(authorIds)) {
+                authorsById.put(author.id(), author);
+            }
+        }
+
+        Map<Long, List<MediaDto>> mediaByPostId = new HashMap<>();
+        if (!mediaPostIds.isEmpty()) {
+            for (MediaDto media : postMediaRepository.findMediaByPostIdIn(mediaPostIds)) {
+                mediaByPostId.computeIfAbsent(media.postId(), id -> new ArrayList<>()).add(media);
+            }
+        }
+
+        // 5. The newest comments of every post on the page
+        Map<Long, List<CommentDto>> commentsByPostId = commentService.getLatestComments(rowsById.keySet(),
+                commentPreviewSize);
+
+        List<FeedItemDto> items = new ArrayList<>(postIds.size());
+        for (Long postId : postIds) {
+            FeedPostRow row = rowsById.get(postId);
+            if (row == null) {
+                continue;
+            }
+
+            SharedPostDto sharedPost = null;
+            FeedPostRow original = row.sharedPostId() != null ? sharedById.get(row.sharedPostId()) : null;
+            if (original != null) {
+                sharedPost = new SharedPostDto(
+                        original.id(),
+                        original.content(),
+                        authorsById.get(original.authorId()),
+                        mediaByPostId.getOrDefault(original.id(), List.of()),
+                        original.locationName(),
+                        original.createdAt());
+            }
+
+            items.add(new FeedItemDto(
+                    row.id(),
+                    row.content(),
+                    authorsById.get(row.authorId()),
+                    mediaByPostId.getOrDefault(row.id(), List.of()),
+                    sharedPost,
+                    row.locationName(),
+                    (int) Math.max(0, countOf(row.likeCount()) + likeCounterService.pendingDelta(row.id())),
+                    countOf(row.commentCount()),
+                    countOf(row.shareCount()),
+                    row.createdAt(),
+                    commentsByPostId.get(row.id())));
+        }
+        return items;
+    }
+
+    private static int countOf(Integer count) {
+        return count != null ? count : 0;
+    }
+}
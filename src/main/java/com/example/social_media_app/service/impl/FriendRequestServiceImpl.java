@@ -1,5 +1,8 @@
 package com.example.social_media_app.service.impl;
 
+import com.example.social_media_app.dto.PendingRequestRow;
+import com.example.social_media_app.dto.RelationshipStatusDto;
+import com.example.social_media_app.event.FriendshipChangedEvent;
 import com.example.social_media_app.model.FriendRequest;
 import com.example.social_media_app.model.Friendship;
 import com.example.social_media_app.model.User;
@@ -7,12 +10,23 @@ import com.example.social_media_app.repository.FriendRequestRepository;
 import com.example.social_media_app.repository.FriendshipRepository;
 import com.example.social_media_app.repository.UserRepository;
 import com.example.social_media_app.service.FriendRequestService;
+import com.example.social_media_app.service.FriendStatsService;
+import com.example.social_media_app.service.FriendSuggestionService;
+import com.example.social_media_app.service.SocialGraphService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 @Service
 @RequiredArgsConstructor
 @Transactional
@@ -21,6 +35,10 @@ public class FriendRequestServiceImpl implements FriendRequestService {
     private final FriendRequestRepository friendRequestRepository;
     private final FriendshipRepository friendshipRepository;
     private final UserRepository userRepository;
+    private final SocialGraphService socialGraphService;
+    private final FriendSuggestionService friendSuggestionService;
+    private final FriendStatsService friendStatsService;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Override
     public FriendRequest sendFriendRequest(Long senderId, Long receiverId) {
@@ -53,6 +71,10 @@ public class FriendRequestServiceImpl implements FriendRequestService {
                 .build();
         
         FriendRequest savedRequest = friendRequestRepository.save(friendRequest);
+
+        // Neither should be suggested to the other while the request is pending
+        friendSuggestionService.invalidate(senderId, receiverId);
+        friendStatsService.requestSent(senderId, receiverId);
         
         return savedRequest;
     }
@@ -75,14 +97,15 @@ public class FriendRequestServiceImpl implements FriendRequestService {
         // Update request status
         request.setStatus(FriendRequest.FriendRequestStatus.ACCEPTED);
         friendRequestRepository.save(request);
+        friendStatsService.requestClosed(request.getSender().getId(), userId);
         
         // Create friendship
-        Friendship friendship = Friendship.builder()
-                .user1(request.getSender())
-                .user2(request.getReceiver())
-                .build();
+        Friendship friendship = Friendship.between(request.getSender(), request.getReceiver());
         
         friendshipRepository.save(friendship);
+
+        eventPublisher.publishEvent(new FriendshipChangedEvent(
+                request.getSender().getId(), request.getReceiver().getId(), true));
     }
     
     @Override
@@ -103,6 +126,8 @@ public class FriendRequestServiceImpl implements FriendRequestService {
         // Update request status
         request.setStatus(FriendRequest.FriendRequestStatus.DECLINED);
         friendRequestRepository.save(request);
+        friendSuggestionService.invalidate(request.getSender().getId(), userId);
+        friendStatsService.requestClosed(request.getSender().getId(), userId);
     }
     
     @Override
@@ -122,6 +147,8 @@ public class FriendRequestServiceImpl implements FriendRequestService {
         
         // Delete the request
         friendRequestRepository.delete(request);
+        friendSuggestionService.invalidate(userId, request.getReceiver().getId());
+        friendStatsService.requestClosed(userId, request.getReceiver().getId());
     }
     
     @Override
@@ -157,13 +184,13 @@ public class FriendRequestServiceImpl implements FriendRequestService {
     @Override
     @Transactional(readOnly = true)
     public long getFriendCount(Long userId) {
-        return friendshipRepository.countFriendsByUserId(userId);
+        return socialGraphService.getFriendCount(userId);
     }
     
     @Override
     @Transactional(readOnly = true)
     public boolean areFriends(Long userId1, Long userId2) {
-        return friendshipRepository.existsBetweenUsers(userId1, userId2);
+        return socialGraphService.areFriends(userId1, userId2);
     }
     
     @Override
@@ -172,6 +199,41 @@ public class FriendRequestServiceImpl implements FriendRequestService {
         return friendRequestRepository.findPendingRequestBetweenUsers(senderId, receiverId).isPresent();
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, RelationshipStatusDto> getRelationshipStatuses(Long userId, Collection<Long> otherIds) {
+        Map<Long, RelationshipStatusDto> statuses = new HashMap<>();
+        if (otherIds.isEmpty()) {
+            return statuses;
+        }
+        List<Long> ids = List.copyOf(new HashSet<>(otherIds));
+
+        Set<Long> friends = socialGraphService.query(graph -> {
+            Set<Long> found = new HashSet<>();
+            for (Long id : ids) {
+                if (graph.areFriends(userId, id)) {
+                    found.add(id);
+                }
+            }
+            return found;
+        }).orElseGet(() -> new HashSet<>(friendshipRepository.findFriendIdsAmong(userId, ids)));
+
+        Set<Long> outgoing = new HashSet<>();
+        Set<Long> incoming = new HashSet<>();
+        for (PendingRequestRow row : friendRequestRepository.findPendingBetween(userId, ids)) {
+            if (row.senderId().equals(userId)) {
+                outgoing.add(row.receiverId());
+            } else {
+                incoming.add(row.senderId());
+            }
+        }
+
+        for (Long id : ids) {
+            statuses.put(id, new RelationshipStatusDto(friends.contains(id), outgoing.contains(id), incoming.contains(id)));
+        }
+        return statuses;
+    }
+    
     @Override
     public void unfriend(Long userId1, Long userId2) {
         // Check if friendship exists
@@ -183,6 +245,7 @@ public class FriendRequestServiceImpl implements FriendRequestService {
         Friendship friendship = friendshipRepository.findBetweenUsers(userId1, userId2);
         if (friendship != null) {
             friendshipRepository.delete(friendship);
+            eventPublisher.publishEvent(new FriendshipChangedEvent(userId1, userId2, false));
         }
     }
 }
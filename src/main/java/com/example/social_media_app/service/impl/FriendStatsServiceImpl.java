@@ -0,0 +1,208 @@
+package com.example.social_media_app.service.impl;
+
+import com.example.social_media_app.dto.FriendStatsDto;
+import com.example.social_media_app.dto.PendingCountsRow;
+import com.example.social_media_app.dto.UserCountRow;
+import com.example.social_media_app.event.FriendshipChangedEvent;
+import com.example.social_media_app.repository.FriendRequestRepository;
+import com.example.social_media_app.repository.FriendshipRepository;
+import com.example.social_media_app.service.FriendStatsService;
+import com.example.social_media_app.service.SocialGraphService;
+import com.example.social_media_app.util.TransactionUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Friend and request counters of the friends page, which polls them. A user's
+ * counters are loaded once (the friend count from the graph, both request
+ * counts in one query) and then moved by deltas as requests are sent and
+ * closed and friendships change, so a poll does not touch the database. A
+ * scheduled pass recounts the cached users in batches to repair any drift.
+ */
+@Service
+@Slf4j
+public class FriendStatsServiceImpl implements FriendStatsService {
+
+    private final FriendRequestRepository friendRequestRepository;
+    private final FriendshipRepository friendshipRepository;
+    private final SocialGraphService socialGraphService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    // Least recently read users evicted first
+    private final Map<Long, FriendStatsDto> cache;
+
+    // Bumped by every delta; counters loaded or recounted across one are not
+    // stored
+    private final AtomicLong changes = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final Counter correctedCounter;
+
+    public FriendStatsServiceImpl(FriendRequestRepository friendRequestRepository,
+            FriendshipRepository friendshipRepository,
+            SocialGraphService socialGraphService,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.friend-stats.cache-users:100000}") int maxCachedUsers,
+            @Value("${app.friend-stats.reconcile-batch-size:500}") int batchSize) {
+        this.friendRequestRepository = friendRequestRepository;
+        this.friendshipRepository = friendshipRepository;
+        this.socialGraphService = socialGraphService;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, FriendStatsDto> eldest) {
+                return size() > maxCachedUsers;
+            }
+        });
+        FunctionCounter.builder("friend.stats.hits", hits, LongAdder::sum)
+                .description("Friend stats served from memory")
+                .register(meterRegistry);
+        FunctionCounter.builder("friend.stats.misses", misses, LongAdder::sum)
+                .description("Friend stats loaded from the database")
+                .register(meterRegistry);
+        this.correctedCounter = Counter.builder("friend.stats.corrected")
+                .description("Users whose cached friend stats were repaired")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public FriendStatsDto getStats(Long userId) {
+        FriendStatsDto stats = cache.get(userId);
+        if (stats != null) {
+            hits.increment();
+            return stats;
+        }
+        misses.increment();
+
+        long version = changes.get();
+        stats = load(userId);
+        if (changes.get() == version) {
+            cache.put(userId, stats);
+        }
+        return stats;
+    }
+
+    @Override
+    public void requestSent(Long senderId, Long receiverId) {
+        TransactionUtil.afterCommit(() -> {
+            adjust(senderId, 0, 0, 1);
+            adjust(receiverId, 0, 1, 0);
+        });
+    }
+
+    @Override
+    public void requestClosed(Long senderId, Long receiverId) {
+        TransactionUtil.afterCommit(() -> {
+            adjust(senderId, 0, 0, -1);
+            adjust(receiverId, 0, -1, 0);
+        });
+    }
+
+    // Published by accept and unfriend only when a friendship row was written
+    @TransactionalEventListener
+    public void onFriendshipChanged(FriendshipChangedEvent event) {
+        int delta = event.friends() ? 1 : -1;
+        adjust(event.userId1(), delta, 0, 0);
+        adjust(event.userId2(), delta, 0, 0);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.friend-stats.reconcile-interval-ms:300000}")
+    public synchronized int reconcile() {
+        List<Long> userIds;
+        synchronized (cache) {
+            userIds = new ArrayList<>(cache.keySet());
+        }
+
+        int corrected = 0;
+        for (int from = 0; from < userIds.size(); from += batchSize) {
+            List<Long> batch = userIds.subList(from, Math.min(from + batchSize, userIds.size()));
+            long version = changes.get();
+            Map<Long, FriendStatsDto> counted = count(batch);
+            boolean changedMeanwhile = changes.get() != version;
+
+            for (Map.Entry<Long, FriendStatsDto> entry : counted.entrySet()) {
+                Long userId = entry.getKey();
+                FriendStatsDto cached = cache.get(userId);
+                if (cached == null || cached.equals(entry.getValue())) {
+                    continue;
+                }
+                // A delta may have landed between the count and now; the next read
+                // loads the user afresh rather than trusting either value
+                if (changedMeanwhile) {
+                    cache.remove(userId);
+                } else {
+                    cache.replace(userId, cached, entry.getValue());
+                }
+                corrected++;
+            }
+        }
+
+        correctedCounter.increment(corrected);
+        if (corrected > 0) {
+            log.info("Reconciled friend stats of {} users", corrected);
+        }
+        return corrected;
+    }
+
+    private FriendStatsDto load(Long userId) {
+        long friends = socialGraphService.getFriendCount(userId);
+        PendingCountsRow pending = friendRequestRepository.countPendingRequests(userId);
+        return new FriendStatsDto(friends, pending.incoming(), pending.outgoing());
+    }
+
+    private Map<Long, FriendStatsDto> count(List<Long> userIds) {
+        Map<Long, Long> friends = socialGraphService.query(graph -> {
+            Map<Long, Long> degrees = new HashMap<>();
+            for (Long userId : userIds) {
+                degrees.put(userId, (long) graph.degree(userId));
+            }
+            return degrees;
+        }).orElse(null);
+
+        Map<Long, FriendStatsDto> counted = new HashMap<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Long, Long> friendCounts = friends != null ? friends
+                    : toMap(friendshipRepository.countFriendsByUserIds(userIds));
+            Map<Long, Long> incoming = toMap(friendRequestRepository.countIncomingRequestsByUserIds(userIds));
+            Map<Long, Long> outgoing = toMap(friendRequestRepository.countOutgoingRequestsByUserIds(userIds));
+            for (Long userId : userIds) {
+                counted.put(userId, new FriendStatsDto(friendCounts.getOrDefault(userId, 0L),
+                        incoming.getOrDefault(userId, 0L), outgoing.getOrDefault(userId, 0L)));
+            }
+        });
+        return counted;
+    }
+
+    // Only users already cached move; the others are loaded when first read
+    private void adjust(Long userId, long friends, long incoming, long outgoing) {
+        changes.incrementAndGet();
+        cache.computeIfPresent(userId, (id, stats) -> stats.plus(friends, incoming, outgoing));
+    }
+
+    private static Map<Long, Long> toMap(List<UserCountRow> rows) {
+        Map<Long, Long> counts = new HashMap<>();
+        rows.forEach(row -> counts.put(row.userId(), row.count()));
+        return counts;
+    }
+}
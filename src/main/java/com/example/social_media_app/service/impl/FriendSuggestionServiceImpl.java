@@ -0,0 +1,274 @@
+package com.example.social_media_app.service.impl;
+
+import com.example.social_media_app.dto.FriendSuggestionDto;
+import com.example.social_media_app.event.FriendshipChangedEvent;
+import com.example.social_media_app.model.User;
+import com.example.social_media_app.repository.FriendRequestRepository;
+import com.example.social_media_app.repository.UserRepository;
+import com.example.social_media_app.service.FriendSuggestionService;
+import com.example.social_media_app.service.SocialGraphService;
+import com.example.social_media_app.util.SocialGraph;
+import com.example.social_media_app.util.TransactionUtil;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * "People you may know": friends of friends ranked by the number of mutual
+ * friends, computed on the in-memory graph. Each candidate's mutual count is
+ * the intersection of two sorted friend blocks; the intersections run in
+ * parallel on a dedicated fork-join pool. Ties are broken by how many of
+ * city, workplace and education the two users share. The top of each list is
+ * cached per user and dropped whenever a friendship or pending request that
+ * could change it is written.
+ */
+@Service
+public class FriendSuggestionServiceImpl implements FriendSuggestionService {
+
+    // Below this many candidates a task intersects them itself
+    private static final int SPLIT_THRESHOLD = 256;
+
+    // Candidates tied at the cut-off whose profiles are loaded for tie-breaks,
+    // per suggestion kept
+    private static final int TIES_PER_SUGGESTION = 4;
+
+    private final SocialGraphService socialGraphService;
+    private final UserRepository userRepository;
+    private final FriendRequestRepository friendRequestRepository;
+
+    private final ForkJoinPool pool;
+
+    // Suggestions computed and cached per user
+    private final int maxSuggestions;
+
+    // Friends with more friends than this are not expanded into candidates
+    private final int maxHubDegree;
+
+    private final long ttlMillis;
+
+    // Least recently read users evicted first
+    private final Map<Long, CachedSuggestions> cache;
+
+    // Bumped by every invalidation; a result computed across one is not cached
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public FriendSuggestionServiceImpl(SocialGraphService socialGraphService,
+            UserRepository userRepository,
+            FriendRequestRepository friendRequestRepository,
+            @Value("${app.suggestions.max-cached:50}") int maxSuggestions,
+            @Value("${app.suggestions.max-hub-degree:5000}") int maxHubDegree,
+            @Value("${app.suggestions.ttl-ms:600000}") long ttlMillis,
+            @Value("${app.suggestions.cache-users:10000}") int maxCachedUsers,
+            @Value("${app.suggestions.parallelism:0}") int parallelism) {
+        this.socialGraphService = socialGraphService;
+        this.userRepository = userRepository;
+        this.friendRequestRepository = friendRequestRepository;
+        this.maxSuggestions = maxSuggestions;
+        this.maxHubDegree = maxHubDegree;
+        this.ttlMillis = ttlMillis;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedSuggestions> eldest) {
+                return size() > maxCachedUsers;
+            }
+        });
+    }
+
+    @Override
+    public List<FriendSuggestionDto> getSuggestions(Long userId, int limit) {
+        CachedSuggestions cached = cache.get(userId);
+        if (cached == null || System.currentTimeMillis() - cached.computedAt() > ttlMillis) {
+            long version = invalidations.get();
+            cached = new CachedSuggestions(compute(userId), System.currentTimeMillis());
+            if (invalidations.get() == version) {
+                cache.put(userId, cached);
+            }
+        }
+        List<FriendSuggestionDto> suggestions = cached.suggestions();
+        return suggestions.size() > limit ? suggestions.subList(0, limit) : suggestions;
+    }
+
+    @Override
+    public void invalidate(Long... userIds) {
+        TransactionUtil.afterCommit(() -> {
+            invalidations.incrementAndGet();
+            for (Long userId : userIds) {
+                cache.remove(userId);
+            }
+        });
+    }
+
+    // Either user's friends gained or lost a friend of a friend, and the two
+    // users themselves a friend
+    @TransactionalEventListener
+    public void onFriendshipChanged(FriendshipChangedEvent event) {
+        invalidations.incrementAndGet();
+        cache.remove(event.userId1());
+        cache.remove(event.userId2());
+        socialGraphService.getFriendIds(event.userId1()).forEach(cache::remove);
+        socialGraphService.getFriendIds(event.userId2()).forEach(cache::remove);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private List<FriendSuggestionDto> compute(Long userId) {
+        Set<Long> pending = new HashSet<>(friendRequestRepository.findPendingCounterpartIds(userId));
+        List<Candidate> candidates = socialGraphService.query(graph -> rank(graph, userId, pending))
+                .orElse(List.of());
+
+        List<FriendSuggestionDto> suggestions = new ArrayList<>(withProfiles(userId, candidates));
+        if (suggestions.size() < maxSuggestions) {
+            pad(userId, suggestions);
+        }
+        return List.copyOf(suggestions);
+    }
+
+    /**
+     * Mutual friend counts of every friend of a friend, cut down to the best
+     * maxSuggestions plus the candidates tied at the cut-off.
+     */
+    private List<Candidate> rank(SocialGraph graph, long userId, Set<Long> pending) {
+        long[] ids = graph.friendsOfFriends(userId, maxHubDegree);
+        if (ids.length == 0) {
+            return List.of();
+        }
+        int[] mutual = new int[ids.length];
+        pool.invoke(new MutualCountTask(graph, userId, ids, mutual, 0, ids.length));
+
+        // Counts are bounded by the user's degree, so a histogram finds the
+        // cut-off without sorting every candidate
+        int[] histogram = new int[graph.degree(userId) + 1];
+        for (int i = 0; i < ids.length; i++) {
+            if (pending.contains(ids[i])) {
+                mutual[i] = 0;
+            } else {
+                histogram[mutual[i]]++;
+            }
+        }
+        int cutoff = histogram.length - 1;
+        int above = 0;
+        while (cutoff > 1 && above + histogram[cutoff] < maxSuggestions) {
+            above += histogram[cutoff];
+            cutoff--;
+        }
+
+        List<Candidate> selected = new ArrayList<>();
+        int ties = maxSuggestions * TIES_PER_SUGGESTION;
+        for (int i = 0; i < ids.length; i++) {
+            if (mutual[i] > cutoff || (mutual[i] == cutoff && cutoff > 0 && ties-- > 0)) {
+                selected.add(new Candidate(ids[i], mutual[i]));
+            }
+        }
+        return selected;
+    }
+
+    private List<FriendSuggestionDto> withProfiles(Long userId, List<Candidate> candidates) {
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>(candidates.size() + 1);
+        ids.add(userId);
+        candidates.forEach(candidate -> ids.add(candidate.userId()));
+        Map<Long, User> users = userRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        User viewer = users.get(userId);
+        if (viewer == null) {
+            return List.of();
+        }
+
+        return candidates.stream()
+                .filter(candidate -> users.containsKey(candidate.userId()))
+                .sorted(Comparator.comparingInt(Candidate::mutualFriends).reversed()
+                        .thenComparing(Comparator.comparingInt(
+                                (Candidate candidate) -> sharedFields(viewer, users.get(candidate.userId()))).reversed())
+                        .thenComparingLong(Candidate::userId))
+                .limit(maxSuggestions)
+                .map(candidate -> FriendSuggestionDto.from(users.get(candidate.userId()), candidate.mutualFriends()))
+                .toList();
+    }
+
+    // New users and users whose friends know nobody else still get something to
+    // click on
+    private void pad(Long userId, List<FriendSuggestionDto> suggestions) {
+        Set<Long> present = suggestions.stream().map(FriendSuggestionDto::id).collect(Collectors.toSet());
+        for (User user : userRepository.findUsersForFriendSuggestions(userId, PageRequest.of(0, maxSuggestions))) {
+            if (suggestions.size() == maxSuggestions) {
+                break;
+            }
+            if (present.add(user.getId())) {
+                suggestions.add(FriendSuggestionDto.from(user, 0));
+            }
+        }
+    }
+
+    private static int sharedFields(User a, User b) {
+        return same(a.getCity(), b.getCity()) + same(a.getWorkplace(), b.getWorkplace())
+                + same(a.getEducation(), b.getEducation());
+    }
+
+    private static int same(String a, String b) {
+        return a != null && !a.isBlank() && b != null && a.trim().equalsIgnoreCase(b.trim()) ? 1 : 0;
+    }
+
+    private record Candidate(long userId, int mutualFriends) {
+    }
+
+    private record CachedSuggestions(List<FriendSuggestionDto> suggestions, long computedAt) {
+    }
+
+    // Writes the mutual friend count of each candidate in its range; the graph is
+    // read-locked by the caller for the whole invocation
+    private static final class MutualCountTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        // Never serialized; ForkJoinTask is Serializable only by inheritance
+        private final transient SocialGraph graph;
+        private final long userId;
+        private final long[] candidates;
+        private final int[] mutual;
+        private final int from;
+        private final int to;
+
+        private MutualCountTask(SocialGraph graph, long userId, long[] candidates, int[] mutual, int from, int to) {
+            this.graph = graph;
+            this.userId = userId;
+            this.candidates = candidates;
+            this.mutual = mutual;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    mutual[i] = graph.mutualCount(userId, candidates[i]);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new MutualCountTask(graph, userId, candidates, mutual, from, middle),
+                    new MutualCountTask(graph, userId, candidates, mutual, middle, to));
+        }
+    }
+}
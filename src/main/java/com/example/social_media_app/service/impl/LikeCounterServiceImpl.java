@@ -0,0 +1,88 @@
+package com.example.social_media_app.service.impl;
+
+import com.example.social_media_app.service.LikeCounterService;
+import com.example.social_media_app.util.DeltaCounters;
+import com.example.social_media_app.util.TransactionUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Write-behind like counters. The likes row is written synchronously, but the
+ * matching change to posts.like_count is buffered here and applied in batched
+ * relative updates, so a viral post is not serialized on its row.
+ */
+@Service
+@Slf4j
+public class LikeCounterServiceImpl implements LikeCounterService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DeltaCounters counters = new DeltaCounters();
+
+    private final Counter flushedCounter;
+
+    public LikeCounterServiceImpl(JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.flushedCounter = Counter.builder("likes.counter.flushed")
+                .description("Post like counters written by the write-behind flush")
+                .register(meterRegistry);
+        Gauge.builder("likes.counter.tracked", counters, DeltaCounters::size)
+                .description("Posts with a buffered like counter cell")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void add(Long postId, int delta) {
+        // A rolled back like must not move the counter
+        TransactionUtil.afterCommit(() -> counters.add(postId, delta));
+    }
+
+    @Override
+    public long pendingDelta(Long postId) {
+        return counters.pending(postId);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.likes.flush-interval-ms:1000}")
+    public synchronized int flush() {
+        int flushed = counters.flush(deltas -> transactionTemplate.executeWithoutResult(status -> {
+            // Ascending id order so concurrent flushes and writers lock rows in the
+            // same order
+            List<Object[]> args = new ArrayList<>(deltas.size());
+            for (Map.Entry<Long, Long> entry : new TreeMap<>(deltas).entrySet()) {
+                args.add(new Object[] { entry.getValue(), entry.getKey() });
+            }
+            // Bumping updated_at lets the count reconciler see unlikes as well
+            jdbcTemplate.batchUpdate(
+                    "UPDATE posts SET like_count = GREATEST(like_count + ?, 0), updated_at = now() WHERE id = ?",
+                    args);
+        }));
+        flushedCounter.increment(flushed);
+        return flushed;
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            flush();
+        } catch (Exception e) {
+            // The reconciler recounts every post on the next startup
+            log.warn("Could not flush pending like counters on shutdown: {}", e.getMessage());
+        }
+    }
+}
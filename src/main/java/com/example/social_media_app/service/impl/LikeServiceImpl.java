@@ -1,15 +1,18 @@
 package com.example.social_media_app.service.impl;
 
-import com.example.social_media_app.model.Like;
+import com.example.social_media_app.dto.LikeStateDto;
+import com.example.social_media_app.dto.LikeWriteResult;
 import com.example.social_media_app.model.Post;
 import com.example.social_media_app.model.User;
 import com.example.social_media_app.repository.LikeRepository;
-import com.example.social_media_app.repository.PostRepository;
+import com.example.social_media_app.service.EngagementIndexService;
+import com.example.social_media_app.service.LikeCounterService;
 import com.example.social_media_app.service.LikeService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -17,50 +20,65 @@ import java.util.Optional;
 public class LikeServiceImpl implements LikeService {
 
     private final LikeRepository likeRepository;
-    private final PostRepository postRepository;
+    private final LikeCounterService likeCounterService;
+    private final EngagementIndexService engagementIndexService;
 
     @Override
     @Transactional
     public boolean toggleLike(Post post, User user) {
-        Optional<Like> existingLike = likeRepository.findByPostAndUser(post, user);
-        
-        if (existingLike.isPresent()) {
-            likeRepository.delete(existingLike.get());
-            
-            // Update like count in post
-            post.setLikeCount(Math.max(0, post.getLikeCount() - 1));
-            postRepository.save(post);
-            
+        // Try the unlike first: if there was no like to delete, like instead
+        LikeWriteResult unliked = likeRepository.deleteLike(post.getId(), user.getId()).orElse(null);
+        if (unliked != null && unliked.getChanged() > 0) {
+            // The post row is updated later by the write-behind flush
+            likeCounterService.add(post.getId(), -1);
+            engagementIndexService.recordLike(post.getId(), user.getId(), false);
             return false;
-        } else {
-            Like newLike = new Like();
-            newLike.setPost(post);
-            newLike.setUser(user);
-            likeRepository.save(newLike);
-            
-            // Update like count in post
-            post.setLikeCount(post.getLikeCount() + 1);
-            postRepository.save(post);
-            
-            return true;
         }
+
+        LikeWriteResult liked = likeRepository.insertLike(post.getId(), user.getId()).orElse(null);
+        if (liked != null && liked.getChanged() > 0) {
+            likeCounterService.add(post.getId(), 1);
+            engagementIndexService.recordLike(post.getId(), user.getId(), true);
+        }
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public Optional<LikeStateDto> like(Long postId, Long userId) {
+        return likeRepository.insertLike(postId, userId)
+                .map(result -> applyWrite(postId, userId, result, 1, true));
+    }
+
+    @Override
+    @Transactional
+    public Optional<LikeStateDto> unlike(Long postId, Long userId) {
+        return likeRepository.deleteLike(postId, userId)
+                .map(result -> applyWrite(postId, userId, result, -1, false));
+    }
+
+    // Only a statement that actually inserted or deleted a row moves the counter
+    private LikeStateDto applyWrite(Long postId, Long userId, LikeWriteResult result, int delta, boolean liked) {
+        long count = (result.getLikeCount() != null ? result.getLikeCount() : 0)
+                + likeCounterService.pendingDelta(postId);
+        if (result.getChanged() > 0) {
+            likeCounterService.add(postId, delta);
+            engagementIndexService.recordLike(postId, userId, liked);
+            // Applied after commit, so not part of the pending delta yet
+            count += delta;
+        }
+        return new LikeStateDto(liked, (int) Math.max(0, count));
     }
 
     @Override
     public boolean isLiked(Post post, User user) {
-        return likeRepository.findByPostAndUser(post, user).isPresent();
+        return engagementIndexService.findLikedPostIds(user.getId(), List.of(post.getId())).contains(post.getId());
     }
 
     @Override
     public int getLikeCount(Post post) {
-        int count = likeRepository.countByPost(post);
-        
-        // If the stored count doesn't match the actual count, update it
-        if (post.getLikeCount() != count) {
-            post.setLikeCount(count);
-            postRepository.save(post);
-        }
-        
-        return count;
+        // Persisted counter plus the likes that have not been flushed yet
+        int stored = post.getLikeCount() != null ? post.getLikeCount() : 0;
+        return (int) Math.max(0, stored + likeCounterService.pendingDelta(post.getId()));
     }
-}
\ No newline at end of file
+}
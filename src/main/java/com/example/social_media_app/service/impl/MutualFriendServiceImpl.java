@@ -0,0 +1,166 @@
+package com.example.social_media_app.service.impl;
+
+import com.example.social_media_app.dto.MutualCountRow;
+import com.example.social_media_app.event.FriendshipChangedEvent;
+import com.example.social_media_app.repository.FriendshipRepository;
+import com.example.social_media_app.service.MutualFriendService;
+import com.example.social_media_app.service.SocialGraphService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mutual friend counts for a batch of cards, each one an intersection of two
+ * sorted friend blocks of the in-memory graph (one grouped query while the
+ * graph is not loaded). Results are memoized per viewer, with both the number
+ * of viewers and the counts per viewer bounded. A friendship change between a
+ * and b only moves the counts of pairs where one side is a or b and the other
+ * is a friend of the opposite side, so only those entries are dropped.
+ */
+@Service
+public class MutualFriendServiceImpl implements MutualFriendService {
+
+    private final SocialGraphService socialGraphService;
+    private final FriendshipRepository friendshipRepository;
+
+    private final int maxPerViewer;
+
+    // Least recently served viewers evicted first
+    private final Map<Long, Map<Long, Integer>> memos;
+
+    // Bumped by every friendship change; counts computed across one are not
+    // memoized
+    private final AtomicLong changes = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public MutualFriendServiceImpl(SocialGraphService socialGraphService,
+            FriendshipRepository friendshipRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.mutual-friends.memo-viewers:10000}") int maxViewers,
+            @Value("${app.mutual-friends.memo-per-viewer:500}") int maxPerViewer) {
+        this.socialGraphService = socialGraphService;
+        this.friendshipRepository = friendshipRepository;
+        this.maxPerViewer = maxPerViewer;
+        this.memos = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Map<Long, Integer>> eldest) {
+                return size() > maxViewers;
+            }
+        });
+        FunctionCounter.builder("mutual.friends.memo.hits", hits, LongAdder::sum)
+                .description("Mutual friend counts served from the per-viewer memo")
+                .register(meterRegistry);
+        FunctionCounter.builder("mutual.friends.memo.misses", misses, LongAdder::sum)
+                .description("Mutual friend counts computed")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Map<Long, Integer> getMutualFriendCounts(Long viewerId, Collection<Long> candidateIds) {
+        Map<Long, Integer> counts = new HashMap<>();
+        if (candidateIds.isEmpty()) {
+            return counts;
+        }
+
+        Map<Long, Integer> memo = memos.computeIfAbsent(viewerId, id -> newMemo());
+        List<Long> missing = new ArrayList<>();
+        synchronized (memo) {
+            for (Long candidateId : new LinkedHashSet<>(candidateIds)) {
+                Integer count = memo.get(candidateId);
+                if (count != null) {
+                    counts.put(candidateId, count);
+                } else {
+                    missing.add(candidateId);
+                }
+            }
+        }
+        hits.add(counts.size());
+        misses.add(missing.size());
+        if (missing.isEmpty()) {
+            return counts;
+        }
+
+        long version = changes.get();
+        Map<Long, Integer> computed = compute(viewerId, missing);
+        counts.putAll(computed);
+        if (changes.get() == version) {
+            synchronized (memo) {
+                memo.putAll(computed);
+            }
+        }
+        return counts;
+    }
+
+    // Runs after the graph has applied the change (see SocialGraphServiceImpl)
+    @TransactionalEventListener
+    public void onFriendshipChanged(FriendshipChangedEvent event) {
+        changes.incrementAndGet();
+        Long a = event.userId1();
+        Long b = event.userId2();
+
+        // Everything a and b see changes with their own friend lists
+        memos.remove(a);
+        memos.remove(b);
+
+        // Friends of b now share one more (or one less) friend with a, and the
+        // other way round
+        forget(socialGraphService.getFriendIds(b), a);
+        forget(socialGraphService.getFriendIds(a), b);
+    }
+
+    private Map<Long, Integer> compute(Long viewerId, List<Long> candidateIds) {
+        Optional<Map<Long, Integer>> fromGraph = socialGraphService.query(graph -> {
+            Map<Long, Integer> counts = new HashMap<>();
+            for (Long candidateId : candidateIds) {
+                counts.put(candidateId, graph.mutualCount(viewerId, candidateId));
+            }
+            return counts;
+        });
+        if (fromGraph.isPresent()) {
+            return fromGraph.get();
+        }
+
+        Map<Long, Integer> counts = new HashMap<>();
+        candidateIds.forEach(candidateId -> counts.put(candidateId, 0));
+        for (MutualCountRow row : friendshipRepository.countMutualFriends(viewerId, candidateIds)) {
+            counts.put(row.userId(), row.mutualFriends().intValue());
+        }
+        return counts;
+    }
+
+    private void forget(List<Long> viewerIds, Long candidateId) {
+        for (Long viewerId : viewerIds) {
+            Map<Long, Integer> memo = memos.get(viewerId);
+            if (memo != null) {
+                synchronized (memo) {
+                    memo.remove(candidateId);
+                }
+            }
+        }
+    }
+
+    private Map<Long, Integer> newMemo() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Integer> eldest) {
+                return size() > maxPerViewer;
+            }
+        };
+    }
+}
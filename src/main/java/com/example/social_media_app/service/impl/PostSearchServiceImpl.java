@@ -0,0 +1,336 @@
+package com.example.social_media_app.service.impl;
+
+import com.example.social_media_app.dto.PostCountsRow;
+import com.example.social_media_app.model.Post;
+import com.example.social_media_app.repository.PostRepository;
+import com.example.social_media_app.service.LikeCounterService;
+import com.example.social_media_app.service.PostSearchService;
+import com.example.social_media_app.service.SocialGraphService;
+import com.example.social_media_app.util.FullTextQuery;
+import com.example.social_media_app.util.PostIndex;
+import com.example.social_media_app.util.TextTokenizer;
+import com.example.social_media_app.util.TransactionUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.LongToDoubleFunction;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Post search served from an in-memory inverted index (see {@link PostIndex})
+ * instead of a LIKE scan of the posts table on every keystroke. The index is
+ * built once the application is up and kept current by post creates and
+ * deletes; until the first build is done searches go to the database.
+ *
+ * Results are ranked by relevance: the index scores every match with BM25
+ * times a recency boost and keeps a few times the number of posts asked for,
+ * whose stored like, comment and share counts are then read in one query to
+ * blend in engagement. app.post-search.order=recent returns newest first instead.
+ *
+ * With app.search.backend=postgres no index is built: searches run a
+ * websearch_to_tsquery match on the GIN-indexed content column, ordered by
+ * ts_rank with the limit applied in SQL.
+ */
+@Service
+@Slf4j
+public class PostSearchServiceImpl implements PostSearchService {
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private final PostRepository postRepository;
+    private final SocialGraphService socialGraphService;
+    private final LikeCounterService likeCounterService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // Full-text queries in the database instead of the in-memory index
+    private final boolean fullText;
+    private final boolean newestFirst;
+    private final double recencyHalfLifeSeconds;
+    private final double recencyWeight;
+    private final double engagementWeight;
+    private final int rerankFactor;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Null until built; guarded by lock
+    private PostIndex index;
+
+    // Changes committed while a build is running, replayed onto its result;
+    // guarded by lock
+    private List<Change> changedDuringLoad;
+
+    public PostSearchServiceImpl(PostRepository postRepository,
+            SocialGraphService socialGraphService,
+            LikeCounterService likeCounterService,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.post-search.order:relevance}") String order,
+            @Value("${app.post-search.recency-half-life-hours:72}") double recencyHalfLifeHours,
+            @Value("${app.post-search.recency-weight:1.0}") double recencyWeight,
+            @Value("${app.post-search.engagement-weight:0.25}") double engagementWeight,
+            @Value("${app.post-search.rerank-factor:3}") int rerankFactor,
+            @Value("${app.search.backend:memory}") String backend) {
+        this.postRepository = postRepository;
+        this.socialGraphService = socialGraphService;
+        this.likeCounterService = likeCounterService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.fullText = "postgres".equalsIgnoreCase(backend);
+        this.newestFirst = "recent".equalsIgnoreCase(order);
+        this.recencyHalfLifeSeconds = recencyHalfLifeHours * 3600;
+        this.recencyWeight = recencyWeight;
+        this.engagementWeight = engagementWeight;
+        this.rerankFactor = Math.max(1, rerankFactor);
+        Gauge.builder("search.posts.indexed", this, service -> service.read(PostIndex::postCount, -1))
+                .description("Posts held by the in-memory search index")
+                .register(meterRegistry);
+        Gauge.builder("search.posts.terms", this, service -> service.read(PostIndex::termCount, 0))
+                .description("Distinct terms in the post search index")
+                .register(meterRegistry);
+        Gauge.builder("search.posts.bytes", this, service -> service.read(PostIndex::sizeInBytes, 0L))
+                .description("Approximate heap used by the post search index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<Post> searchFeed(Long userId, String query, int limit) {
+        List<String> terms = TextTokenizer.tokenize(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        if (fullText) {
+            FullTextQuery fullTextQuery = FullTextQuery.of(query);
+            return postRepository.searchPostsInFeedFullText(userId, fullTextQuery.words(), fullTextQuery.prefix(),
+                    limit);
+        }
+        // The user and their friends, ascending
+        long[] authors = LongStream.concat(LongStream.of(userId),
+                socialGraphService.getFriendIds(userId).stream().mapToLong(Long::longValue)).sorted().distinct().toArray();
+
+        long[] ids = search(terms, authors, limit);
+        if (ids == null) {
+            return postRepository.searchPostsInFeed(userId, query.trim()).stream().limit(limit).toList();
+        }
+        return load(ids);
+    }
+
+    @Override
+    public List<Post> searchAll(String query, int limit) {
+        List<String> terms = TextTokenizer.tokenize(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        if (fullText) {
+            FullTextQuery fullTextQuery = FullTextQuery.of(query);
+            return postRepository.searchAllPostsFullText(fullTextQuery.words(), fullTextQuery.prefix(), limit);
+        }
+        long[] ids = search(terms, null, limit);
+        if (ids == null) {
+            return postRepository.searchAllPosts(query.trim()).stream().limit(limit).toList();
+        }
+        return load(ids);
+    }
+
+    @Override
+    public void postCreated(Post post) {
+        if (fullText) {
+            return;
+        }
+        Change change = new Change(true, post.getId(), post.getUser().getId(), epochSeconds(post.getCreatedAt()),
+                post.getContent());
+        TransactionUtil.afterCommit(() -> apply(change));
+    }
+
+    @Override
+    public void postDeleted(Post post) {
+        if (fullText) {
+            return;
+        }
+        Change change = new Change(false, post.getId(), post.getUser().getId(), 0, post.getContent());
+        TransactionUtil.afterCommit(() -> apply(change));
+    }
+
+    // The server is already taking requests by now; they use the database until
+    // the build is done
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (fullText) {
+            log.info("Post search uses PostgreSQL full-text queries; not building the search index");
+            return;
+        }
+        reload();
+    }
+
+    @Override
+    public synchronized void reload() {
+        lock.writeLock().lock();
+        try {
+            changedDuringLoad = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long startedAt = System.nanoTime();
+        PostIndex loaded;
+        try {
+            loaded = build();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changedDuringLoad = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            // Adding an indexed post or removing a missing one is a no-op, so a
+            // change that is also in the snapshot is harmless
+            for (Change change : changedDuringLoad) {
+                change.applyTo(loaded);
+            }
+            changedDuringLoad = null;
+            index = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Indexed {} posts ({} terms, {} bytes) in {} ms", loaded.postCount(), loaded.termCount(),
+                loaded.sizeInBytes(), (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    // Streams the table in one read-only transaction so the driver can fetch it
+    // in chunks rather than all at once
+    private PostIndex build() {
+        PostIndex built = new PostIndex();
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT id, user_id, created_at, content FROM posts");
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, row -> {
+            Timestamp createdAt = row.getTimestamp(3);
+            built.add(row.getLong(1), row.getLong(2),
+                    epochSeconds(createdAt != null ? createdAt.toLocalDateTime() : null), row.getString(4));
+        }));
+        return built;
+    }
+
+    // Ids of the posts to show, best first, or null while the index is not built
+    private long[] search(List<String> terms, long[] authors, int limit) {
+        if (newestFirst) {
+            return read(index -> index.search(terms, authors, limit), null);
+        }
+        long now = System.currentTimeMillis() / 1000;
+        LongToDoubleFunction recencyBoost = createdAt ->
+                1 + recencyWeight * Math.pow(0.5, Math.max(0, now - createdAt) / recencyHalfLifeSeconds);
+        List<PostIndex.Hit> hits = read(index -> index.rank(terms, authors, limit * rerankFactor, recencyBoost), null);
+        return hits == null ? null : rerank(hits, limit);
+    }
+
+    // Blends the stored engagement counters into the index scores of the window
+    // and keeps the best limit
+    private long[] rerank(List<PostIndex.Hit> hits, int limit) {
+        if (hits.isEmpty() || engagementWeight == 0) {
+            return hits.stream().limit(limit).mapToLong(PostIndex.Hit::postId).toArray();
+        }
+        Map<Long, PostCountsRow> countsById = new HashMap<>();
+        for (PostCountsRow row : postRepository.findCountsByIdIn(hits.stream().map(PostIndex.Hit::postId).toList())) {
+            countsById.put(row.id(), row);
+        }
+        Map<Long, Double> scores = new HashMap<>();
+        for (PostIndex.Hit hit : hits) {
+            PostCountsRow counts = countsById.get(hit.postId());
+            if (counts == null) {
+                continue;
+            }
+            long likes = Math.max(0, valueOf(counts.likeCount()) + likeCounterService.pendingDelta(hit.postId()));
+            // A comment or a share says more about a post than a like
+            long engagement = likes + 2L * valueOf(counts.commentCount()) + 3L * valueOf(counts.shareCount());
+            scores.put(hit.postId(), hit.score() * (1 + engagementWeight * Math.log1p(engagement)));
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                .limit(limit)
+                .mapToLong(Map.Entry::getKey)
+                .toArray();
+    }
+
+    private void apply(Change change) {
+        lock.writeLock().lock();
+        try {
+            if (changedDuringLoad != null) {
+                changedDuringLoad.add(change);
+            }
+            if (index != null) {
+                change.applyTo(index);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Posts in the order of the ids; ones deleted in the meantime are skipped
+    private List<Post> load(long[] ids) {
+        if (ids.length == 0) {
+            return List.of();
+        }
+        Map<Long, Post> posts = postRepository.findAllById(Arrays.stream(ids).boxed().toList()).stream()
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+        return Arrays.stream(ids).mapToObj(posts::get).filter(Objects::nonNull).toList();
+    }
+
+    private <T> T read(Function<PostIndex, T> query, T notLoaded) {
+        lock.readLock().lock();
+        try {
+            return index == null ? notLoaded : query.apply(index);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long valueOf(Integer count) {
+        return count != null ? count : 0;
+    }
+
+    private static long epochSeconds(LocalDateTime createdAt) {
+        return createdAt != null ? createdAt.atZone(ZoneId.systemDefault()).toEpochSecond() : 0;
+    }
+
+    private record Change(boolean added, long postId, long authorId, long createdAt, String content) {
+        void applyTo(PostIndex index) {
+            if (added) {
+                index.add(postId, authorId, createdAt, content);
+            } else {
+                index.remove(postId, content);
+            }
+        }
+    }
+}
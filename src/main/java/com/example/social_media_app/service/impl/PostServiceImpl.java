@@ -1,44 +1,63 @@
 package com.example.social_media_app.service.impl;
 
+import com.example.social_media_app.dto.FeedItemDto;
+import com.example.social_media_app.dto.FeedPageDto;
+import com.example.social_media_app.dto.PageCursor;
+import com.example.social_media_app.dto.PostCountsRow;
+import com.example.social_media_app.dto.PostViewerStateDto;
+import com.example.social_media_app.event.PostDeletedEvent;
 import com.example.social_media_app.model.Post;
 import com.example.social_media_app.model.PostMedia;
+import com.example.social_media_app.model.TimelineEntry;
 import com.example.social_media_app.model.User;
-import com.example.social_media_app.repository.LikeRepository;
-import com.example.social_media_app.repository.CommentRepository;
 import com.example.social_media_app.repository.PostRepository;
 import com.example.social_media_app.repository.PostMediaRepository;
-import com.example.social_media_app.repository.ShareRepository;
+import com.example.social_media_app.service.EngagementIndexService;
+import com.example.social_media_app.service.FeedItemService;
+import com.example.social_media_app.service.LikeCounterService;
+import com.example.social_media_app.service.PostSearchService;
 import com.example.social_media_app.service.PostService;
 import com.example.social_media_app.service.FileUploadService;
+import com.example.social_media_app.service.TimelineService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class PostServiceImpl implements PostService {
 
+    // Upper bound on a single feed page so one request can never hydrate the whole
+    // feed
+    private static final int MAX_FEED_PAGE_SIZE = 50;
+
+    // Upper bound on the posts returned by a search
+    private static final int MAX_SEARCH_RESULTS = 100;
+
     private final PostRepository postRepository;
-    private final LikeRepository likeRepository;
-    private final CommentRepository commentRepository;
     private final PostMediaRepository postMediaRepository;
-    private final ShareRepository shareRepository;
+    private final EngagementIndexService engagementIndexService;
     private final FileUploadService fileUploadService;
+    private final TimelineService timelineService;
+    private final FeedItemService feedItemService;
+    private final LikeCounterService likeCounterService;
+    private final PostSearchService postSearchService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public List<Post> findAll() {
-        List<Post> posts = postRepository.findAllByOrderByCreatedAtDesc();
-
-        // Update like and comment counts if needed
-        posts.forEach(this::updateCounts);
-
-        return posts;
+        return postRepository.findAllByOrderByCreatedAtDesc();
     }
 
     @Override
@@ -66,6 +85,8 @@ public class PostServiceImpl implements PostService {
         // Delete the post (this will cascade delete media records due to cascade =
         // CascadeType.ALL)
         postRepository.delete(post);
+        postSearchService.postDeleted(post);
+        eventPublisher.publishEvent(new PostDeletedEvent(post.getId(), post.getUser().getId()));
     }
 
     @Override
@@ -86,6 +107,8 @@ public class PostServiceImpl implements PostService {
         // Delete the post (this will cascade delete media records due to cascade =
         // CascadeType.ALL)
         postRepository.delete(post);
+        postSearchService.postDeleted(post);
+        eventPublisher.publishEvent(new PostDeletedEvent(post.getId(), post.getUser().getId()));
     }
 
     @Override
@@ -101,7 +124,10 @@ public class PostServiceImpl implements PostService {
         post.setCommentCount(0);
         post.setShareCount(0);
 
-        return postRepository.save(post);
+        post = postRepository.save(post);
+        timelineService.publish(post);
+        postSearchService.postCreated(post);
+        return post;
     }
 
     @Override
@@ -126,7 +152,10 @@ public class PostServiceImpl implements PostService {
             post.setLocationType(locationType);
         }
 
-        return postRepository.save(post);
+        post = postRepository.save(post);
+        timelineService.publish(post);
+        postSearchService.postCreated(post);
+        return post;
     }
 
     @Override
@@ -176,6 +205,8 @@ public class PostServiceImpl implements PostService {
             }
         }
 
+        timelineService.publish(post);
+        postSearchService.postCreated(post);
         return post;
     }
 
@@ -235,18 +266,15 @@ public class PostServiceImpl implements PostService {
             }
         }
 
+        timelineService.publish(post);
+        postSearchService.postCreated(post);
         return post;
     }
 
     @Override
     public Post findById(Long id) {
-        Post post = postRepository.findById(id)
+        return postRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Post not found with id: " + id));
-
-        // Update like and comment counts
-        updateCounts(post);
-
-        return post;
     }
 
     @Override
@@ -271,56 +299,68 @@ public class PostServiceImpl implements PostService {
         return postRepository.save(post);
     }
 
-    private void updateCounts(Post post) {
-        // Update like count
-        int likeCount = likeRepository.countByPost(post);
-        if (post.getLikeCount() == null || post.getLikeCount() != likeCount) {
-            post.setLikeCount(likeCount);
-            postRepository.save(post);
+    @Override
+    public FeedPageDto getFeedPage(Long userId, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_FEED_PAGE_SIZE));
+        PageCursor after = PageCursor.decode(cursor);
+
+        // Fetch one extra entry to find out whether another page exists
+        List<TimelineEntry> entries = timelineService.getTimelinePage(userId, after, pageSize + 1);
+
+        String nextCursor = null;
+        if (entries.size() > pageSize) {
+            entries = entries.subList(0, pageSize);
+            TimelineEntry last = entries.get(pageSize - 1);
+            nextCursor = new PageCursor(last.getCreatedAt(), last.getPostId()).encode();
         }
 
-        // Update comment count
-        int commentCount = commentRepository.countByPost(post);
-        if (post.getCommentCount() == null || post.getCommentCount() != commentCount) {
-            post.setCommentCount(commentCount);
-            postRepository.save(post);
-        }
+        List<FeedItemDto> items = feedItemService.findFeedItems(
+                entries.stream().map(TimelineEntry::getPostId).toList());
 
-        // Update share count
-        int shareCount = shareRepository.countByOriginalPost(post);
-        if (post.getShareCount() == null || post.getShareCount() != shareCount) {
-            post.setShareCount(shareCount);
-            postRepository.save(post);
-        }
+        return new FeedPageDto(items, nextCursor);
     }
 
     @Override
-    public List<Post> getFeedPosts(Long userId) {
-        List<Post> posts = postRepository.findFeedPostsForUser(userId);
-
-        // Update like and comment counts for each post
-        posts.forEach(this::updateCounts);
+    @Transactional(readOnly = true)
+    public List<PostViewerStateDto> getViewerStates(Long userId, List<Long> postIds) {
+        if (postIds.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-        return posts;
+        // One query for the counters; liked/shared flags come from the in-memory
+        // index and cost a query each only for posts that are not resident yet
+        Map<Long, PostCountsRow> countsById = new HashMap<>();
+        for (PostCountsRow row : postRepository.findCountsByIdIn(postIds)) {
+            countsById.put(row.id(), row);
+        }
+        Set<Long> liked = engagementIndexService.findLikedPostIds(userId, countsById.keySet());
+        Set<Long> shared = engagementIndexService.findSharedPostIds(userId, countsById.keySet());
+
+        List<PostViewerStateDto> states = new ArrayList<>(countsById.size());
+        for (Long postId : postIds) {
+            PostCountsRow counts = countsById.get(postId);
+            if (counts == null) {
+                continue;
+            }
+            int storedLikes = counts.likeCount() != null ? counts.likeCount() : 0;
+            states.add(new PostViewerStateDto(
+                    postId,
+                    liked.contains(postId),
+                    shared.contains(postId),
+                    (int) Math.max(0, storedLikes + likeCounterService.pendingDelta(postId)),
+                    counts.commentCount() != null ? counts.commentCount() : 0,
+                    counts.shareCount() != null ? counts.shareCount() : 0));
+        }
+        return states;
     }
 
     @Override
     public List<Post> searchPostsInFeed(Long userId, String searchTerm) {
-        List<Post> posts = postRepository.searchPostsInFeed(userId, searchTerm);
-
-        // Update like and comment counts for each post
-        posts.forEach(this::updateCounts);
-
-        return posts;
+        return postSearchService.searchFeed(userId, searchTerm, MAX_SEARCH_RESULTS);
     }
 
     @Override
     public List<Post> searchAllPosts(String searchTerm) {
-        List<Post> posts = postRepository.searchAllPosts(searchTerm);
-
-        // Update like and comment counts for each post
-        posts.forEach(this::updateCounts);
-
-        return posts;
+        return postSearchService.searchAll(searchTerm, MAX_SEARCH_RESULTS);
     }
 }
@@ -0,0 +1,386 @@
+package com.example.social_media_app.service.impl;
+
+import com.example.social_media_app.dto.AuthorSummaryDto;
+import com.example.social_media_app.dto.PostSuggestionDto;
+import com.example.social_media_app.dto.SearchSuggestionsDto;
+import com.example.social_media_app.event.FriendshipChangedEvent;
+import com.example.social_media_app.event.PostDeletedEvent;
+import com.example.social_media_app.event.PostPublishedEvent;
+import com.example.social_media_app.event.UserProfileChangedEvent;
+import com.example.social_media_app.model.Post;
+import com.example.social_media_app.model.User;
+import com.example.social_media_app.service.PostSearchService;
+import com.example.social_media_app.service.SearchSuggestionService;
+import com.example.social_media_app.service.SocialGraphService;
+import com.example.social_media_app.service.UserSearchService;
+import com.example.social_media_app.util.TextTokenizer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Search box suggestions, cached per viewer. Typeahead asks for "a", "al",
+ * "ali", ... in quick succession, so every answer is kept with up to
+ * app.search-cache.candidates users and posts. When a cached answer held every
+ * match, a longer query is answered by filtering it, since whatever matches
+ * "alic" also matches "ali": users are re-ranked with the typeahead tiers,
+ * posts keep the order they were ranked in for the shorter query.
+ *
+ * Viewers and queries per viewer are both bounded, least recently used
+ * evicted first, and answers expire because likes and comments move post
+ * ranking without invalidating anything. A post written or deleted drops the
+ * cache of its author and their friends, a friendship change that of both
+ * users, and a profile change every answer the user is in or now matches.
+ *
+ * Filtering mirrors the substring and prefix matching of the in-memory
+ * indexes; with app.search.backend=postgres only repeated queries are served
+ * from the cache.
+ */
+@Service
+public class SearchSuggestionServiceImpl implements SearchSuggestionService {
+
+    private final UserSearchService userSearchService;
+    private final PostSearchService postSearchService;
+    private final SocialGraphService socialGraphService;
+
+    private final int candidates;
+    private final int maxPerViewer;
+    private final long ttlNanos;
+    private final boolean prefixReuse;
+
+    // Viewer -> normalized query -> answer; least recently served viewers and
+    // queries evicted first
+    private final Map<Long, Map<String, Entry>> caches;
+
+    // Bumped by every invalidation; answers looked up across one are not cached
+    private final AtomicLong changes = new AtomicLong();
+
+    private final Part users;
+    private final Part posts;
+
+    public SearchSuggestionServiceImpl(UserSearchService userSearchService,
+            PostSearchService postSearchService,
+            SocialGraphService socialGraphService,
+            MeterRegistry meterRegistry,
+            @Value("${app.search-cache.candidates:20}") int candidates,
+            @Value("${app.search-cache.viewers:1000}") int maxViewers,
+            @Value("${app.search-cache.queries-per-viewer:16}") int maxPerViewer,
+            @Value("${app.search-cache.ttl-seconds:60}") long ttlSeconds,
+            @Value("${app.search.backend:memory}") String backend) {
+        this.userSearchService = userSearchService;
+        this.postSearchService = postSearchService;
+        this.socialGraphService = socialGraphService;
+        this.candidates = candidates;
+        this.maxPerViewer = maxPerViewer;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.prefixReuse = !"postgres".equalsIgnoreCase(backend);
+        this.caches = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Map<String, Entry>> eldest) {
+                return size() > maxViewers;
+            }
+        });
+        this.users = new Part("users", meterRegistry);
+        this.posts = new Part("posts", meterRegistry);
+        Gauge.builder("search.suggestions.cache.hit.ratio", this, SearchSuggestionServiceImpl::hitRatio)
+                .description("Share of suggestion lookups answered from the cache, exact or by prefix")
+                .register(meterRegistry);
+        Gauge.builder("search.suggestions.cache.viewers", caches, Map::size)
+                .description("Viewers with cached suggestions")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public SearchSuggestionsDto suggest(Long viewerId, String query, int userLimit, int postLimit) {
+        String key = TextTokenizer.normalize(query).trim();
+        if (key.isEmpty()) {
+            return new SearchSuggestionsDto(List.of(), List.of());
+        }
+
+        long version = changes.get();
+        long now = System.nanoTime();
+        Map<String, Entry> cache = caches.computeIfAbsent(viewerId, id -> newCache());
+        Entry exact;
+        List<Entry> prefixes = new ArrayList<>();
+        synchronized (cache) {
+            exact = cache.get(key);
+            if (prefixReuse) {
+                // Longest prefix first
+                for (int length = key.length() - 1; length > 0; length--) {
+                    Entry entry = cache.get(key.substring(0, length));
+                    if (entry != null) {
+                        prefixes.add(entry);
+                    }
+                }
+            }
+        }
+
+        Answer<UserCandidate> userAnswer = users.answer(exact, prefixes, Entry::users, userLimit, now,
+                answer -> answer.narrow(candidate -> candidate.matches(key),
+                        Comparator.comparingInt((UserCandidate candidate) -> candidate.tier(key))
+                                .thenComparing(candidate -> candidate.sortKey(key))
+                                .thenComparingLong(candidate -> candidate.user().id())),
+                () -> fetchUsers(viewerId, query, Math.max(candidates, userLimit)));
+
+        List<String> terms = TextTokenizer.tokenize(query);
+        Answer<PostCandidate> postAnswer = terms.isEmpty()
+                ? new Answer<>(List.of(), true, now)
+                : posts.answer(exact, prefixes, Entry::posts, postLimit, now,
+                        answer -> answer.narrow(candidate -> candidate.matches(terms), null),
+                        () -> fetchPosts(viewerId, query, Math.max(candidates, postLimit)));
+
+        if (exact == null || exact.users() != userAnswer || exact.posts() != postAnswer) {
+            synchronized (cache) {
+                if (changes.get() == version) {
+                    cache.put(key, new Entry(userAnswer, postAnswer));
+                }
+            }
+        }
+        return new SearchSuggestionsDto(
+                userAnswer.items().stream().limit(userLimit).map(UserCandidate::user).toList(),
+                postAnswer.items().stream().limit(postLimit).map(PostCandidate::post).toList());
+    }
+
+    // Runs after the timeline and graph listeners have seen the post
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostPublished(PostPublishedEvent event) {
+        forgetFeeds(event.authorId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostDeleted(PostDeletedEvent event) {
+        forgetFeeds(event.authorId());
+    }
+
+    // Both users' feeds gain or lose the other's posts, and their degrees change
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFriendshipChanged(FriendshipChangedEvent event) {
+        changes.incrementAndGet();
+        caches.remove(event.userId1());
+        caches.remove(event.userId2());
+    }
+
+    // Drops every answer the user was in under their old names, or would be in
+    // under the new ones
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserProfileChanged(UserProfileChangedEvent event) {
+        changes.incrementAndGet();
+        if (!prefixReuse) {
+            // Full-text matches can't be told from the strings here
+            caches.clear();
+            return;
+        }
+        UserCandidate changed = UserCandidate.of(new AuthorSummaryDto(event.userId(), event.firstName(),
+                event.lastName(), event.username(), null), event.email());
+        synchronized (caches) {
+            for (Map<String, Entry> cache : caches.values()) {
+                synchronized (cache) {
+                    cache.entrySet().removeIf(entry -> changed.matches(entry.getKey())
+                            || entry.getValue().users().items().stream()
+                                    .anyMatch(candidate -> candidate.user().id().equals(event.userId())));
+                }
+            }
+        }
+    }
+
+    private Answer<UserCandidate> fetchUsers(Long viewerId, String query, int limit) {
+        List<User> found = userSearchService.suggest(viewerId, query, limit);
+        List<UserCandidate> items = found.stream()
+                .map(user -> UserCandidate.of(summary(user), user.getEmail()))
+                .toList();
+        return new Answer<>(items, found.size() < limit, System.nanoTime());
+    }
+
+    private Answer<PostCandidate> fetchPosts(Long viewerId, String query, int limit) {
+        List<Post> found = postSearchService.searchFeed(viewerId, query, limit);
+        List<PostCandidate> items = found.stream()
+                .map(post -> new PostCandidate(
+                        new PostSuggestionDto(post.getId(), post.getContent(), summary(post.getUser())),
+                        TextTokenizer.tokenize(post.getContent())))
+                .toList();
+        return new Answer<>(items, found.size() < limit, System.nanoTime());
+    }
+
+    private void forgetFeeds(Long authorId) {
+        changes.incrementAndGet();
+        caches.remove(authorId);
+        for (Long friendId : socialGraphService.getFriendIds(authorId)) {
+            caches.remove(friendId);
+        }
+    }
+
+    private double hitRatio() {
+        double hits = users.hits() + posts.hits();
+        double lookups = hits + users.misses.count() + posts.misses.count();
+        return lookups == 0 ? 0 : hits / lookups;
+    }
+
+    private Map<String, Entry> newCache() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxPerViewer;
+            }
+        };
+    }
+
+    private static AuthorSummaryDto summary(User user) {
+        return new AuthorSummaryDto(user.getId(), user.getFirstName(), user.getLastName(), user.getUsername(),
+                user.getProfilePicture());
+    }
+
+    // Answer to a query, best first; complete when it holds every match
+    private record Answer<T>(List<T> items, boolean complete, long loadedAt) {
+
+        // The matches of a longer query among a complete answer, re-sorted when
+        // an order is given
+        Answer<T> narrow(Predicate<T> matches, Comparator<T> order) {
+            var narrowed = items.stream().filter(matches);
+            if (order != null) {
+                narrowed = narrowed.sorted(order);
+            }
+            return new Answer<>(narrowed.toList(), true, loadedAt);
+        }
+    }
+
+    private record Entry(Answer<UserCandidate> users, Answer<PostCandidate> posts) {
+    }
+
+    // A suggested user with the normalized fields the typeahead matches on
+    private record UserCandidate(AuthorSummaryDto user, String name, String username, String email) {
+
+        static UserCandidate of(AuthorSummaryDto user, String email) {
+            return new UserCandidate(user, TextTokenizer.normalize(user.firstName() + " " + user.lastName()),
+                    TextTokenizer.normalize(user.username()), TextTokenizer.normalize(email));
+        }
+
+        boolean matches(String q) {
+            return name.contains(q) || username.contains(q) || email.contains(q);
+        }
+
+        // Same tiers as the typeahead index: exact name, exact username, name
+        // prefix, username prefix, anything else
+        int tier(String q) {
+            if (name.equals(q)) {
+                return 1;
+            }
+            if (username.equals(q)) {
+                return 2;
+            }
+            if (name.startsWith(q)) {
+                return 3;
+            }
+            return username.startsWith(q) ? 4 : 5;
+        }
+
+        // Prefix tiers are alphabetical, the others by id
+        String sortKey(String q) {
+            return switch (tier(q)) {
+                case 3 -> name;
+                case 4 -> username;
+                default -> "";
+            };
+        }
+    }
+
+    // A suggested post with its terms
+    private record PostCandidate(PostSuggestionDto post, List<String> terms) {
+
+        // Every query word as a whole term, the last one as a prefix
+        boolean matches(List<String> queryTerms) {
+            int last = queryTerms.size() - 1;
+            for (int i = 0; i < last; i++) {
+                if (!terms.contains(queryTerms.get(i))) {
+                    return false;
+                }
+            }
+            String prefix = queryTerms.get(last);
+            return terms.stream().anyMatch(term -> term.startsWith(prefix));
+        }
+    }
+
+    // Hit and miss counts of one half of the suggestions (users or posts), and
+    // the time the database lookups avoided by hits would have taken
+    private final class Part {
+        private final Counter exactHits;
+        private final Counter prefixHits;
+        private final Counter misses;
+        private final Timer lookups;
+        private final LongAdder savedNanos = new LongAdder();
+
+        private Part(String part, MeterRegistry meterRegistry) {
+            exactHits = counter(meterRegistry, part, "hit");
+            prefixHits = counter(meterRegistry, part, "prefix");
+            misses = counter(meterRegistry, part, "miss");
+            lookups = Timer.builder("search.suggestions.lookups")
+                    .description("Suggestion lookups that missed the cache")
+                    .tag("part", part)
+                    .register(meterRegistry);
+            FunctionCounter.builder("search.suggestions.cache.saved", savedNanos, adder -> adder.sum() / 1e9)
+                    .description("Lookup time avoided by cache hits, at the mean time of a miss")
+                    .baseUnit("seconds")
+                    .tag("part", part)
+                    .register(meterRegistry);
+        }
+
+        private Counter counter(MeterRegistry meterRegistry, String part, String result) {
+            return Counter.builder("search.suggestions.cache")
+                    .description("Suggestion lookups by outcome: exact hit, prefix hit or miss")
+                    .tag("part", part)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+
+        double hits() {
+            return exactHits.count() + prefixHits.count();
+        }
+
+        // The cached answer for the query if fresh and long enough, else one
+        // narrowed from the longest fresh complete prefix answer, else a lookup
+        <T> Answer<T> answer(Entry exact, List<Entry> prefixes, Function<Entry, Answer<T>> part, int limit,
+                long now, UnaryOperator<Answer<T>> narrow, Supplier<Answer<T>> lookup) {
+            Answer<T> cached = exact != null ? part.apply(exact) : null;
+            if (fresh(cached, now) && (cached.complete() || cached.items().size() >= limit)) {
+                hit(exactHits);
+                return cached;
+            }
+            for (Entry prefix : prefixes) {
+                Answer<T> shorter = part.apply(prefix);
+                if (fresh(shorter, now) && shorter.complete()) {
+                    hit(prefixHits);
+                    return narrow.apply(shorter);
+                }
+            }
+            misses.increment();
+            return lookups.record(lookup);
+        }
+
+        private boolean fresh(Answer<?> answer, long now) {
+            return answer != null && now - answer.loadedAt() < ttlNanos;
+        }
+
+        private void hit(Counter counter) {
+            counter.increment();
+            savedNanos.add((long) lookups.mean(TimeUnit.NANOSECONDS));
+        }
+    }
+}
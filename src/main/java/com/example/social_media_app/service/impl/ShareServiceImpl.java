@@ -1,16 +1,22 @@
 package com.example.social_media_app.service.impl;
 
+import com.example.social_media_app.event.PostDeletedEvent;
 import com.example.social_media_app.model.Post;
 import com.example.social_media_app.model.Share;
 import com.example.social_media_app.model.User;
 import com.example.social_media_app.repository.PostRepository;
 import com.example.social_media_app.repository.ShareRepository;
+import com.example.social_media_app.service.EngagementIndexService;
+import com.example.social_media_app.service.PostSearchService;
 import com.example.social_media_app.service.ShareService;
+import com.example.social_media_app.service.TimelineService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -18,6 +24,10 @@ public class ShareServiceImpl implements ShareService {
 
     private final ShareRepository shareRepository;
     private final PostRepository postRepository;
+    private final TimelineService timelineService;
+    private final EngagementIndexService engagementIndexService;
+    private final PostSearchService postSearchService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -41,8 +51,11 @@ public class ShareServiceImpl implements ShareService {
                 .updatedAt(LocalDateTime.now())
                 .build();
 
-        // Save the new shared post
+        // Save the new shared post and put it into the sharer's and their friends'
+        // feeds
         sharedPost = postRepository.save(sharedPost);
+        timelineService.publish(sharedPost);
+        postSearchService.postCreated(sharedPost);
 
         // Create share record
         Share share = Share.builder()
@@ -54,10 +67,10 @@ public class ShareServiceImpl implements ShareService {
                 .build();
 
         shareRepository.save(share);
+        engagementIndexService.recordShare(originalPost.getId(), user.getId(), true);
 
-        // Update original post share count
-        originalPost.setShareCount(originalPost.getShareCount() + 1);
-        postRepository.save(originalPost);
+        // Bump the stored counter in place rather than saving the whole post
+        postRepository.addToShareCount(originalPost.getId(), 1);
 
         return sharedPost;
     }
@@ -72,10 +85,11 @@ public class ShareServiceImpl implements ShareService {
             Post sharedPost = share.getSharedPost();
             shareRepository.delete(share);
             postRepository.delete(sharedPost);
+            postSearchService.postDeleted(sharedPost);
+            eventPublisher.publishEvent(new PostDeletedEvent(sharedPost.getId(), user.getId()));
+            engagementIndexService.recordShare(originalPost.getId(), user.getId(), false);
 
-            // Update original post share count
-            originalPost.setShareCount(Math.max(0, originalPost.getShareCount() - 1));
-            postRepository.save(originalPost);
+            postRepository.addToShareCount(originalPost.getId(), -1);
 
             return true;
         }
@@ -84,7 +98,7 @@ public class ShareServiceImpl implements ShareService {
 
     @Override
     public boolean isShared(Post post, User user) {
-        return shareRepository.existsByOriginalPostAndUser(post, user);
+        return engagementIndexService.findSharedPostIds(user.getId(), List.of(post.getId())).contains(post.getId());
     }
 
     @Override
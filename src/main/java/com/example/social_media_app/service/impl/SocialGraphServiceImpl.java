@@ -0,0 +1,228 @@
+package com.example.social_media_app.service.impl;
+
+import com.example.social_media_app.dto.MutualCountRow;
+import com.example.social_media_app.event.FriendshipChangedEvent;
+import com.example.social_media_app.repository.FriendshipRepository;
+import com.example.social_media_app.service.SocialGraphService;
+import com.example.social_media_app.util.SocialGraph;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * The whole friendship graph held in memory (see {@link SocialGraph}), so
+ * friend checks, friend counts and friend lists do not touch the database.
+ * Loaded once the application is up and kept current by the accept and
+ * unfriend events; lookups go to the database until the first load is done.
+ */
+@Service
+@Slf4j
+public class SocialGraphServiceImpl implements SocialGraphService {
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private final FriendshipRepository friendshipRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // Degrees of separation beyond this are not reported
+    private final int maxSeparation;
+
+    // Users a single separation search may visit before it gives up
+    private final int separationBudget;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Null until loaded; guarded by lock
+    private SocialGraph graph;
+
+    // Changes committed while a load is running, replayed onto its result;
+    // guarded by lock
+    private List<FriendshipChangedEvent> changedDuringLoad;
+
+    public SocialGraphServiceImpl(FriendshipRepository friendshipRepository,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.social-graph.max-separation:3}") int maxSeparation,
+            @Value("${app.social-graph.separation-budget:50000}") int separationBudget) {
+        this.friendshipRepository = friendshipRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.maxSeparation = maxSeparation;
+        this.separationBudget = separationBudget;
+        Gauge.builder("social.graph.friendships", this, service -> service.read(SocialGraph::edgeCount, -1L))
+                .description("Friendships held by the in-memory graph")
+                .register(meterRegistry);
+        Gauge.builder("social.graph.bytes", this, service -> service.read(SocialGraph::sizeInBytes, 0L))
+                .description("Approximate heap used by the in-memory graph")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean areFriends(Long userId1, Long userId2) {
+        Boolean friends = read(graph -> graph.areFriends(userId1, userId2), null);
+        return friends != null ? friends : friendshipRepository.existsBetweenUsers(userId1, userId2);
+    }
+
+    @Override
+    public long getFriendCount(Long userId) {
+        Long count = read(graph -> (long) graph.degree(userId), null);
+        return count != null ? count : friendshipRepository.countFriendsByUserId(userId);
+    }
+
+    @Override
+    public List<Long> getFriendIds(Long userId) {
+        long[] ids = read(graph -> graph.friends(userId), null);
+        return ids != null ? Arrays.stream(ids).boxed().toList() : friendshipRepository.findFriendIdsByUserId(userId);
+    }
+
+    @Override
+    public long getMutualFriendCount(Long userId1, Long userId2) {
+        Long count = read(graph -> (long) graph.mutualCount(userId1, userId2), null);
+        if (count != null) {
+            return count;
+        }
+        // Let the database intersect the two friend lists
+        return friendshipRepository.countMutualFriends(userId1, List.of(userId2)).stream()
+                .mapToLong(MutualCountRow::mutualFriends)
+                .sum();
+    }
+
+    @Override
+    public Map<Long, Integer> getDegreesOfSeparation(Long userId, Collection<Long> otherIds) {
+        return read(graph -> {
+            Map<Long, Integer> degrees = new HashMap<>();
+            for (Long otherId : otherIds) {
+                int distance = graph.distance(userId, otherId, maxSeparation, separationBudget);
+                if (distance >= 0) {
+                    degrees.put(otherId, distance);
+                }
+            }
+            return degrees;
+        }, Map.of());
+    }
+
+    @Override
+    public <T> Optional<T> query(Function<SocialGraph, T> query) {
+        return Optional.ofNullable(read(query, null));
+    }
+
+    // The server is already taking requests by now; they use the database until
+    // the load is done
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload();
+    }
+
+    @Override
+    public synchronized void reload() {
+        lock.writeLock().lock();
+        try {
+            changedDuringLoad = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long startedAt = System.nanoTime();
+        SocialGraph loaded;
+        try {
+            loaded = load();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changedDuringLoad = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            // A change can be both in the snapshot and in this list; applying it
+            // twice is harmless
+            for (FriendshipChangedEvent event : changedDuringLoad) {
+                apply(loaded, event);
+            }
+            changedDuringLoad = null;
+            graph = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Loaded {} friendships of {} users into memory ({} bytes) in {} ms",
+                loaded.edgeCount(), loaded.vertexCount(), loaded.sizeInBytes(),
+                (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    // After commit, so a rolled back accept or unfriend never reaches the graph;
+    // ahead of the listeners that invalidate what was derived from the graph
+    @TransactionalEventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onFriendshipChanged(FriendshipChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (changedDuringLoad != null) {
+                changedDuringLoad.add(event);
+            }
+            if (graph != null) {
+                apply(graph, event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Streams the table in one read-only transaction so the driver can fetch it
+    // in chunks rather than all at once
+    private SocialGraph load() {
+        SocialGraph.Builder builder = new SocialGraph.Builder();
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("SELECT user1_id, user2_id FROM friendships");
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, row -> {
+            builder.add(row.getLong(1), row.getLong(2));
+        }));
+        return builder.build();
+    }
+
+    private static void apply(SocialGraph graph, FriendshipChangedEvent event) {
+        if (event.friends()) {
+            graph.addFriendship(event.userId1(), event.userId2());
+        } else {
+            graph.removeFriendship(event.userId1(), event.userId2());
+        }
+    }
+
+    private <T> T read(Function<SocialGraph, T> query, T notLoaded) {
+        lock.readLock().lock();
+        try {
+            return graph == null ? notLoaded : query.apply(graph);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.example.social_media_app.service.impl;
+
+import com.example.social_media_app.dto.PageCursor;
+import com.example.social_media_app.event.FriendshipChangedEvent;
+import com.example.social_media_app.event.PostDeletedEvent;
+import com.example.social_media_app.event.PostPublishedEvent;
+import com.example.social_media_app.model.Post;
+import com.example.social_media_app.model.TimelineEntry;
+import com.example.social_media_app.repository.FriendshipRepository;
+import com.example.social_media_app.repository.PostRepository;
+import com.example.social_media_app.repository.TimelineEntryRepository;
+import com.example.social_media_app.service.SocialGraphService;
+import com.example.social_media_app.service.TimelineService;
+import com.example.social_media_app.util.FeedMerger;
+import com.example.social_media_app.util.TimelineRing;
+import com.example.social_media_app.util.TransactionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hybrid push/pull feed storage. Posts by ordinary authors are copied into the
+ * timeline of each friend when they are written, so reading a feed is a range
+ * scan over one user's timeline. Authors with more friends than the fan-out
+ * threshold are not pushed; their posts are pulled at read time and merged
+ * into the timeline. The heads of recently read timelines are kept in memory.
+ */
+@Service
+@Slf4j
+public class TimelineServiceImpl implements TimelineService {
+
+    private final TimelineEntryRepository timelineEntryRepository;
+    private final FriendshipRepository friendshipRepository;
+    private final SocialGraphService socialGraphService;
+    private final PostRepository postRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Maximum number of entries kept per timeline in the database
+    private final int maxEntries;
+
+    // Number of entries kept per timeline in memory
+    private final int ringSize;
+
+    // Authors with more friends than this are pulled at read time instead of
+    // pushed
+    private final long fanoutThreshold;
+
+    // Timelines held in memory, least recently read evicted first
+    private final Map<Long, TimelineRing> rings;
+
+    // Authors currently above the fan-out threshold
+    private final Set<Long> highDegreeAuthors = ConcurrentHashMap.newKeySet();
+
+    public TimelineServiceImpl(TimelineEntryRepository timelineEntryRepository,
+            FriendshipRepository friendshipRepository,
+            SocialGraphService socialGraphService,
+            PostRepository postRepository,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${app.feed.fanout-threshold:1000}") long fanoutThreshold,
+            @Value("${app.timeline.max-entries:800}") int maxEntries,
+            @Value("${app.timeline.memory-size:200}") int ringSize,
+            @Value("${app.timeline.memory-users:10000}") int maxResidentTimelines) {
+        this.timelineEntryRepository = timelineEntryRepository;
+        this.friendshipRepository = friendshipRepository;
+        this.socialGraphService = socialGraphService;
+        this.postRepository = postRepository;
+        this.eventPublisher = eventPublisher;
+        this.fanoutThreshold = fanoutThreshold;
+        this.maxEntries = maxEntries;
+        this.ringSize = ringSize;
+        this.rings = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, TimelineRing> eldest) {
+                return size() > maxResidentTimelines;
+            }
+        });
+    }
+
+    @Override
+    @Transactional
+    public void publish(Post post) {
+        Long authorId = post.getUser().getId();
+
+        // The author's own entry is written synchronously so the post shows up
+        // in their feed right after the redirect
+        timelineEntryRepository.insertForAuthor(post.getId());
+
+        // The in-memory head only sees the post once it is committed, so a
+        // rolled back post is never served from it
+        Long postId = post.getId();
+        LocalDateTime createdAt = post.getCreatedAt();
+        TransactionUtil.afterCommit(() -> {
+            TimelineRing ring = rings.get(authorId);
+            if (ring != null) {
+                ring.add(postId, authorId, createdAt);
+            }
+        });
+
+        eventPublisher.publishEvent(new PostPublishedEvent(post.getId(), authorId, post.getCreatedAt()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TimelineEntry> getTimelinePage(Long ownerId, PageCursor after, int limit) {
+        List<TimelineEntry> pushed = getPushedPage(ownerId, after, limit);
+        List<TimelineEntry> pulled = getPulledPage(ownerId, after, limit);
+        if (pulled.isEmpty()) {
+            return pushed;
+        }
+        return FeedMerger.merge(List.of(pushed, pulled), limit);
+    }
+
+    // Entries fanned out into the owner's timeline
+    private List<TimelineEntry> getPushedPage(Long ownerId, PageCursor after, int limit) {
+        TimelineRing ring = rings.get(ownerId);
+        if (ring != null) {
+            List<TimelineEntry> entries = after == null
+                    ? ring.page(null, null, limit)
+                    : ring.page(after.createdAt(), after.id(), limit);
+            if (entries != null) {
+                return entries;
+            }
+        }
+
+        if (after != null) {
+            return timelineEntryRepository.findPageBefore(ownerId, after.createdAt(), after.id(),
+                    PageRequest.of(0, limit));
+        }
+
+        // Reading the head of a timeline: load it into memory. The load holds
+        // the map's lock, so a post committed meanwhile is either in the rows
+        // read or added to the ring once it is in place
+        TimelineRing loaded = rings.computeIfAbsent(ownerId, id -> TimelineRing.of(
+                timelineEntryRepository.findPage(id, PageRequest.of(0, ringSize)), ringSize));
+        List<TimelineEntry> entries = loaded.page(null, null, limit);
+        if (entries != null) {
+            return entries;
+        }
+        return timelineEntryRepository.findPage(ownerId, PageRequest.of(0, limit));
+    }
+
+    // Posts by high-degree friends, which were not fanned out
+    private List<TimelineEntry> getPulledPage(Long ownerId, PageCursor after, int limit) {
+        if (highDegreeAuthors.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> authorIds = socialGraphService.getFriendIds(ownerId).stream()
+                .filter(highDegreeAuthors::contains)
+                .toList();
+        if (authorIds.isEmpty()) {
+            return List.of();
+        }
+
+        PageRequest pageRequest = PageRequest.of(0, limit);
+        List<Post> posts = after == null
+                ? postRepository.findLatestByAuthors(authorIds, pageRequest)
+                : postRepository.findLatestByAuthorsBefore(authorIds, after.createdAt(), after.id(), pageRequest);
+
+        return posts.stream()
+                .map(post -> TimelineEntry.builder()
+                        .ownerId(ownerId)
+                        .postId(post.getId())
+                        .authorId(post.getUser().getId())
+                        .createdAt(post.getCreatedAt())
+                        .build())
+                .toList();
+    }
+
+    @Async
+    @TransactionalEventListener
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onPostPublished(PostPublishedEvent event) {
+        if (isHighDegree(event.authorId())) {
+            // Too many friends to push to; readers pull this author's posts instead
+            return;
+        }
+
+        int inserted = timelineEntryRepository.insertForFriendsOfAuthor(event.postId());
+
+        // As in publish: the rings only see the post once its entries are
+        // committed, and a ring loaded before that picks it up here
+        TransactionUtil.afterCommit(() -> {
+            for (Long friendId : socialGraphService.getFriendIds(event.authorId())) {
+                TimelineRing ring = rings.get(friendId);
+                if (ring != null) {
+                    ring.add(event.postId(), event.authorId(), event.createdAt());
+                }
+            }
+        });
+
+        log.debug("Fanned out post {} to {} timelines", event.postId(), inserted);
+    }
+
+    // The post's timeline entries go with its row; the resident rings of the
+    // author and their friends would keep serving its id
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostDeleted(PostDeletedEvent event) {
+        removePostFromRing(event.authorId(), event.postId());
+        for (Long friendId : socialGraphService.getFriendIds(event.authorId())) {
+            removePostFromRing(friendId, event.postId());
+        }
+    }
+
+    @Async
+    @TransactionalEventListener
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onFriendshipChanged(FriendshipChangedEvent event) {
+        Long userId1 = event.userId1();
+        Long userId2 = event.userId2();
+
+        if (event.friends()) {
+            // New friends see each other's recent posts
+            timelineEntryRepository.backfill(userId1, userId2, maxEntries);
+            timelineEntryRepository.backfill(userId2, userId1, maxEntries);
+
+            // The backfilled posts can be older than what the rings hold, so reload
+            // them on the next read
+            rings.remove(userId1);
+            rings.remove(userId2);
+        } else {
+            timelineEntryRepository.deleteByOwnerIdAndAuthorId(userId1, userId2);
+            timelineEntryRepository.deleteByOwnerIdAndAuthorId(userId2, userId1);
+
+            removeAuthorFromRing(userId1, userId2);
+            removeAuthorFromRing(userId2, userId1);
+        }
+
+        isHighDegree(userId1);
+        isHighDegree(userId2);
+    }
+
+    // Recompute the set of high-degree authors from scratch
+    @Scheduled(fixedDelayString = "${app.feed.degree-refresh-ms:600000}")
+    @Transactional
+    public void refreshHighDegreeAuthors() {
+        Set<Long> current = new HashSet<>(friendshipRepository.findUserIdsWithMoreFriendsThan(fanoutThreshold));
+
+        for (Long authorId : Set.copyOf(highDegreeAuthors)) {
+            if (!current.contains(authorId)) {
+                demote(authorId);
+            }
+        }
+        highDegreeAuthors.addAll(current);
+    }
+
+    /**
+     * Classifies an author by friend count and keeps the high-degree set in step.
+     * @return true if the author's posts are pulled rather than pushed
+     */
+    private boolean isHighDegree(Long authorId) {
+        boolean highDegree = socialGraphService.getFriendCount(authorId) > fanoutThreshold;
+        if (highDegree) {
+            highDegreeAuthors.add(authorId);
+        } else if (highDegreeAuthors.contains(authorId)) {
+            demote(authorId);
+        }
+        return highDegree;
+    }
+
+    // An author dropping back under the threshold is no longer pulled, so push
+    // their recent posts to their friends once
+    private void demote(Long authorId) {
+        highDegreeAuthors.remove(authorId);
+        timelineEntryRepository.backfillFriendsOfAuthor(authorId, maxEntries);
+        for (Long friendId : socialGraphService.getFriendIds(authorId)) {
+            rings.remove(friendId);
+        }
+    }
+
+    // Keep each timeline bounded; fan-out only ever appends
+    @Scheduled(fixedDelayString = "${app.timeline.trim-interval-ms:3600000}")
+    @Transactional
+    public void trimTimelines() {
+        int removed = timelineEntryRepository.trimTimelines(maxEntries);
+        if (removed > 0) {
+            log.info("Trimmed {} timeline entries beyond {} per user", removed, maxEntries);
+        }
+    }
+
+    private void removeAuthorFromRing(Long ownerId, Long authorId) {
+        TimelineRing ring = rings.get(ownerId);
+        if (ring != null) {
+            ring.removeAuthor(authorId);
+        }
+    }
+
+    private void removePostFromRing(Long ownerId, Long postId) {
+        TimelineRing ring = rings.get(ownerId);
+        if (ring != null) {
+            ring.remove(postId);
+        }
+    }
+}
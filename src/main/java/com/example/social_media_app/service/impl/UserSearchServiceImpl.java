@@ -0,0 +1,225 @@
+package com.example.social_media_app.service.impl;
+
+import com.example.social_media_app.model.User;
+import com.example.social_media_app.repository.UserRepository;
+import com.example.social_media_app.service.UserSearchService;
+import com.example.social_media_app.util.FullTextQuery;
+import com.example.social_media_app.util.TransactionUtil;
+import com.example.social_media_app.util.UserIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * People typeahead served from an in-memory index (see {@link UserIndex})
+ * instead of four LIKE scans of the users table per keystroke. Built once the
+ * application is up and kept current by registrations and profile edits;
+ * until the first build is done the relevance query answers.
+ *
+ * With app.search.backend=postgres no index is built: both the typeahead and
+ * the results page use the full-text query on the GIN-indexed name column.
+ */
+@Service
+@Slf4j
+public class UserSearchServiceImpl implements UserSearchService {
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // Full-text queries in the database instead of the in-memory index
+    private final boolean fullText;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Null until built; guarded by lock
+    private UserIndex index;
+
+    // Changes committed while a build is running, replayed onto its result in
+    // commit order; guarded by lock
+    private List<Change> changedDuringLoad;
+
+    public UserSearchServiceImpl(UserRepository userRepository,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.search.backend:memory}") String backend) {
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.fullText = "postgres".equalsIgnoreCase(backend);
+        Gauge.builder("search.users.indexed", this, service -> service.read(UserIndex::userCount, -1))
+                .description("Users held by the in-memory typeahead index")
+                .register(meterRegistry);
+        Gauge.builder("search.users.trigrams", this, service -> service.read(UserIndex::trigramCount, 0))
+                .description("Distinct trigrams in the typeahead index")
+                .register(meterRegistry);
+        Gauge.builder("search.users.bytes", this, service -> service.read(UserIndex::sizeInBytes, 0L))
+                .description("Approximate heap used by the typeahead index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<User> suggest(Long currentUserId, String query, int limit) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        if (fullText) {
+            FullTextQuery fullTextQuery = FullTextQuery.of(query);
+            return userRepository.suggestUsersFullText(currentUserId, fullTextQuery.words(), fullTextQuery.prefix(),
+                    limit);
+        }
+        long[] ids = read(index -> index.search(query, currentUserId, limit), null);
+        if (ids == null) {
+            return userRepository.searchUsersWithRelevance(currentUserId, query.trim()).stream()
+                    .limit(limit)
+                    .toList();
+        }
+        return load(ids);
+    }
+
+    @Override
+    public Page<User> search(Long currentUserId, String query, Pageable pageable) {
+        if (fullText) {
+            FullTextQuery fullTextQuery = FullTextQuery.of(query);
+            return userRepository.searchUsersFullText(currentUserId, fullTextQuery.words(), fullTextQuery.prefix(),
+                    pageable);
+        }
+        return userRepository.searchUsers(currentUserId, query, pageable);
+    }
+
+    @Override
+    public void userSaved(User user) {
+        if (fullText) {
+            return;
+        }
+        Change change = new Change(user.getId(), user.getFirstName(), user.getLastName(), user.getUsername(),
+                user.getEmail());
+        TransactionUtil.afterCommit(() -> apply(change));
+    }
+
+    // The server is already taking requests by now; they use the database until
+    // the build is done
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (fullText) {
+            log.info("User search uses PostgreSQL full-text queries; not building the typeahead index");
+            return;
+        }
+        reload();
+    }
+
+    @Override
+    public synchronized void reload() {
+        lock.writeLock().lock();
+        try {
+            changedDuringLoad = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long startedAt = System.nanoTime();
+        UserIndex loaded;
+        try {
+            loaded = build();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changedDuringLoad = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            // A change the snapshot already saw writes the same names again
+            for (Change change : changedDuringLoad) {
+                change.applyTo(loaded);
+            }
+            changedDuringLoad = null;
+            index = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Indexed {} users ({} trigrams, {} bytes) in {} ms", loaded.userCount(), loaded.trigramCount(),
+                loaded.sizeInBytes(), (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    // Streams the table in one read-only transaction so the driver can fetch it
+    // in chunks rather than all at once
+    private UserIndex build() {
+        UserIndex built = new UserIndex();
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT id, first_name, last_name, username, email FROM users ORDER BY id");
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, row -> {
+            built.put(row.getLong(1), row.getString(2), row.getString(3), row.getString(4), row.getString(5));
+        }));
+        return built;
+    }
+
+    private void apply(Change change) {
+        lock.writeLock().lock();
+        try {
+            if (changedDuringLoad != null) {
+                changedDuringLoad.add(change);
+            }
+            if (index != null) {
+                change.applyTo(index);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Users in the order of the ids
+    private List<User> load(long[] ids) {
+        if (ids.length == 0) {
+            return List.of();
+        }
+        Map<Long, User> users = userRepository.findAllById(Arrays.stream(ids).boxed().toList()).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return Arrays.stream(ids).mapToObj(users::get).filter(Objects::nonNull).toList();
+    }
+
+    private <T> T read(Function<UserIndex, T> query, T notLoaded) {
+        lock.readLock().lock();
+        try {
+            return index == null ? notLoaded : query.apply(index);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private record Change(long userId, String firstName, String lastName, String username, String email) {
+        void applyTo(UserIndex index) {
+            index.put(userId, firstName, lastName, username, email);
+        }
+    }
+}
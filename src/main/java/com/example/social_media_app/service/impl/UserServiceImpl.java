@@ -1,9 +1,12 @@
 package com.example.social_media_app.service.impl;
 
+import com.example.social_media_app.event.UserProfileChangedEvent;
 import com.example.social_media_app.model.User;
 import com.example.social_media_app.repository.UserRepository;
+import com.example.social_media_app.service.UserSearchService;
 import com.example.social_media_app.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -16,11 +19,13 @@ import java.util.List;
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserSearchService userSearchService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public void registerUser(User user) {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
-        userRepository.save(user);
+        saved(userRepository.save(user));
     }
 
     @Override
@@ -45,7 +50,8 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public void save(User user) {
-        userRepository.save(user);
+        // Profile edits go through here; the typeahead picks up name changes
+        saved(userRepository.save(user));
     }
 
     @Override
@@ -60,11 +66,17 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public Page<User> searchUsers(Long currentUserId, String searchTerm, Pageable pageable) {
-        return userRepository.searchUsers(currentUserId, searchTerm, pageable);
+        return userSearchService.search(currentUserId, searchTerm, pageable);
     }
 
     @Override
     public List<User> searchUsersWithRelevance(Long currentUserId, String searchTerm) {
         return userRepository.searchUsersWithRelevance(currentUserId, searchTerm);
     }
+
+    private void saved(User user) {
+        userSearchService.userSaved(user);
+        eventPublisher.publishEvent(new UserProfileChangedEvent(user.getId(), user.getFirstName(),
+                user.getLastName(), user.getUsername(), user.getEmail()));
+    }
 }
@@ -0,0 +1,118 @@
+package com.example.social_media_app.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Pending counter deltas keyed by id, accumulated in per-thread stripes (the
+ * same idea as {@link java.util.concurrent.atomic.LongAdder}, but keyed) so
+ * concurrent increments of one hot key do not contend, and drained in batches
+ * by a single flusher. Each stripe is swapped out whole under its own lock, so
+ * no increment can land in a cell the flusher has already dropped.
+ */
+public class DeltaCounters {
+
+    private final Stripe[] stripes;
+
+    // Deltas taken out of the stripes but not yet confirmed by the writer, still
+    // part of pending()
+    private final Map<Long, Long> flushing = new ConcurrentHashMap<>();
+
+    public DeltaCounters() {
+        this(Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    public DeltaCounters(int stripeCount) {
+        stripes = new Stripe[Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public void add(long key, long delta) {
+        Stripe stripe = stripeOfCurrentThread();
+        synchronized (stripe) {
+            long[] cell = stripe.deltas.get(key);
+            if (cell == null) {
+                stripe.deltas.put(key, new long[] { delta });
+            } else {
+                cell[0] += delta;
+            }
+        }
+    }
+
+    // Delta not yet confirmed by the writer. Not a snapshot: while a flush is
+    // moving deltas out of the stripes a read may briefly miss some of them
+    public long pending(long key) {
+        long sum = flushing.getOrDefault(key, 0L);
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                long[] cell = stripe.deltas.get(key);
+                if (cell != null) {
+                    sum += cell[0];
+                }
+            }
+        }
+        return sum;
+    }
+
+    // Number of keys with a buffered delta, counted once per stripe
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.deltas.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Swaps out every stripe and hands the non-zero totals to {@code writer}.
+     * If the writer throws, the totals are put back and retried on the next
+     * flush. Must not be called concurrently.
+     * @return number of keys written
+     */
+    public int flush(Consumer<Map<Long, Long>> writer) {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                if (!stripe.deltas.isEmpty()) {
+                    stripe.deltas.forEach((key, cell) -> flushing.merge(key, cell[0], Long::sum));
+                    stripe.deltas = new HashMap<>();
+                }
+            }
+        }
+        Map<Long, Long> totals = new HashMap<>(flushing);
+        totals.values().removeIf(total -> total == 0);
+        if (totals.isEmpty()) {
+            flushing.clear();
+            return 0;
+        }
+
+        try {
+            writer.accept(totals);
+        } catch (RuntimeException e) {
+            Stripe stripe = stripeOfCurrentThread();
+            synchronized (stripe) {
+                totals.forEach((key, delta) -> stripe.deltas.computeIfAbsent(key, k -> new long[1])[0] += delta);
+            }
+            throw e;
+        } finally {
+            flushing.clear();
+        }
+        return totals.size();
+    }
+
+    private Stripe stripeOfCurrentThread() {
+        long id = Thread.currentThread().threadId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return stripes[(hash >>> 16) & (stripes.length - 1)];
+    }
+
+    private static final class Stripe {
+        // Mutable cells so an increment of a known key does not allocate
+        private Map<Long, long[]> deltas = new HashMap<>();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.social_media_app.util;
+
+import com.example.social_media_app.model.TimelineEntry;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+public class FeedMerger {
+
+    // Feed order: newest first, ties broken by the higher post id
+    public static final Comparator<TimelineEntry> NEWEST_FIRST = Comparator
+            .comparing(TimelineEntry::getCreatedAt)
+            .thenComparing(TimelineEntry::getPostId)
+            .reversed();
+
+    /**
+     * K-way merge of feed sources that are each already sorted newest first.
+     * A post present in several sources is emitted once.
+     * @param sources sorted entry lists, e.g. a pushed timeline and pulled posts
+     * @param limit maximum number of entries to return
+     * @return the newest {@code limit} distinct entries across all sources
+     */
+    public static List<TimelineEntry> merge(List<List<TimelineEntry>> sources, int limit) {
+        PriorityQueue<int[]> heads = new PriorityQueue<>(Math.max(1, sources.size()),
+                (a, b) -> NEWEST_FIRST.compare(sources.get(a[0]).get(a[1]), sources.get(b[0]).get(b[1])));
+        for (int i = 0; i < sources.size(); i++) {
+            if (!sources.get(i).isEmpty()) {
+                heads.add(new int[] { i, 0 });
+            }
+        }
+
+        List<TimelineEntry> merged = new ArrayList<>(limit);
+        Long lastPostId = null;
+        while (!heads.isEmpty() && merged.size() < limit) {
+            int[] head = heads.poll();
+            List<TimelineEntry> source = sources.get(head[0]);
+            TimelineEntry entry = source.get(head[1]);
+
+            // Equal keys come out of the heap back to back, so duplicates are adjacent
+            if (!entry.getPostId().equals(lastPostId)) {
+                merged.add(entry);
+                lastPostId = entry.getPostId();
+            }
+
+            if (head[1] + 1 < source.size()) {
+                heads.add(new int[] { head[0], head[1] + 1 });
+            }
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.social_media_app.util;
+
+/**
+ * A search box query split for PostgreSQL full-text search. The words before
+ * the last one go to websearch_to_tsquery with their quotes and "-" negations;
+ * the last word, which the user may still be typing, becomes a to_tsquery
+ * prefix term ("sam:*"), so "sam" finds "Samantha" as the in-memory index does.
+ * The two queries are ANDed; an empty one leaves the other as is.
+ */
+public record FullTextQuery(String words, String prefix) {
+
+    public static FullTextQuery of(String query) {
+        String trimmed = query == null ? "" : query.trim();
+
+        int start = trimmed.length();
+        while (start > 0 && Character.isLetterOrDigit(trimmed.charAt(start - 1))) {
+            start--;
+        }
+        // Nothing being typed, a negated word or the inside of an open phrase
+        // are left to websearch_to_tsquery
+        if (start == trimmed.length()
+                || (start > 0 && trimmed.charAt(start - 1) == '-')
+                || trimmed.chars().filter(c -> c == '"').count() % 2 == 1) {
+            return new FullTextQuery(trimmed, "");
+        }
+        return new FullTextQuery(trimmed.substring(0, start).trim(), trimmed.substring(start) + ":*");
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.social_media_app.util;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-key {@link RoaringIdSet}s (e.g. the likers of each post) kept within a
+ * byte budget, least recently used keys evicted first. Sets are loaded lazily
+ * by the caller through {@link #beginLoad}/{@link #install}; a write that
+ * races with a load cancels the install so a stale set is never cached.
+ */
+public class IdBitmapCache {
+
+    private final long maxBytes;
+
+    // Access-ordered; guarded by this
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    // Loads in progress; guarded by this
+    private final Map<Long, LoadTicket> loading = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public IdBitmapCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Looks up {@code id} in the set of every resident key.
+     * @return membership per resident key; keys that are not resident are left
+     * out and count as misses
+     */
+    public synchronized Map<Long, Boolean> contains(Collection<Long> keys, long id) {
+        Map<Long, Boolean> result = new HashMap<>();
+        for (Long key : keys) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                misses.increment();
+            } else {
+                hits.increment();
+                result.put(key, entry.set.contains(id));
+            }
+        }
+        return result;
+    }
+
+    // Applies a committed write to a resident set; non-resident keys are ignored
+    public void add(long key, long id) {
+        update(key, id, true);
+    }
+
+    public void remove(long key, long id) {
+        update(key, id, false);
+    }
+
+    private synchronized void update(long key, long id, boolean add) {
+        LoadTicket ticket = loading.get(key);
+        if (ticket != null) {
+            ticket.cancelled = true;
+        }
+
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return;
+        }
+        boolean changed = add ? entry.set.add(id) : entry.set.remove(id);
+        if (changed) {
+            resize(entry);
+            evictOverBudget();
+        }
+    }
+
+    // Must be called before the rows of the key are read from the database
+    public synchronized LoadTicket beginLoad(long key) {
+        LoadTicket ticket = new LoadTicket(key);
+        loading.put(key, ticket);
+        return ticket;
+    }
+
+    // Caches the loaded set unless a write to the key happened since beginLoad or
+    // a newer load of the same key started
+    public synchronized void install(LoadTicket ticket, RoaringIdSet set) {
+        boolean current = loading.remove(ticket.key, ticket);
+        if (!current || ticket.cancelled) {
+            return;
+        }
+
+        Entry entry = new Entry(set);
+        if (entry.bytes > maxBytes) {
+            // Would evict everything else and still not fit
+            return;
+        }
+        Entry previous = entries.remove(ticket.key);
+        if (previous != null) {
+            bytes -= previous.bytes;
+        }
+        entries.put(ticket.key, entry);
+        bytes += entry.bytes;
+        evictOverBudget();
+    }
+
+    // Forgets a load that failed
+    public synchronized void abandon(LoadTicket ticket) {
+        loading.remove(ticket.key, ticket);
+    }
+
+    public synchronized void invalidate(long key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            bytes -= entry.bytes;
+        }
+    }
+
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public double hitRatio() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    private void resize(Entry entry) {
+        long updated = entry.set.sizeInBytes();
+        bytes += updated - entry.bytes;
+        entry.bytes = updated;
+    }
+
+    private void evictOverBudget() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().bytes;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private static final class Entry {
+        private final RoaringIdSet set;
+        private long bytes;
+
+        private Entry(RoaringIdSet set) {
+            this.set = set;
+            this.bytes = set.sizeInBytes();
+        }
+    }
+
+    public static final class LoadTicket {
+        private final long key;
+        private boolean cancelled;
+
+        private LoadTicket(long key) {
+            this.key = key;
+        }
+    }
+}
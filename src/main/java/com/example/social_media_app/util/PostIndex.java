@@ -0,0 +1,820 @@
+package com.example.social_media_app.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.function.LongToDoubleFunction;
+
+/**
+ * Inverted index of post text: for every term, the ascending ids of the posts
+ * containing it, stored as variable-length deltas in one {@code byte[]}
+ * (new posts have the highest ids, so adding one is an append of a byte or
+ * two). Every 128 ids the deltas restart from a recorded base, so a list can
+ * be read block by block from its newest end and probed without decoding it
+ * whole. Terms are kept sorted so the last word of a query can match as a
+ * prefix while it is still being typed. Each post's author, creation time and
+ * length are kept next to the postings, so results can be narrowed to a set
+ * of authors and ranked without going to the database. Not thread-safe.
+ */
+public class PostIndex {
+
+    // A prefix matching more terms than this only uses the first ones, in term
+    // order
+    public static final int MAX_PREFIX_TERMS = 256;
+
+    // BM25 term frequency saturation and length normalization, the usual values
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Longer posts count as this many terms for length normalization
+    private static final int MAX_LENGTH = 0xFFFF;
+
+    // Ids follow insertion order, which can trail creation time by a moment;
+    // ranking only stops early on posts at least this much older
+    private static final long CLOCK_SLACK_SECONDS = 3600;
+
+    private static final long[] EMPTY = new long[0];
+
+    // Lowest score first, and the older of two equal ones
+    private static final Comparator<Hit> WORST_FIRST = Comparator.comparingDouble(Hit::score)
+            .thenComparingLong(Hit::postId);
+
+    private final TreeMap<String, PostingList> postings = new TreeMap<>();
+    // The same lists by author, so a small set of authors can drive a query
+    private final Map<Long, PostingList> postsByAuthor = new HashMap<>();
+    private final LongLongMap authors = new LongLongMap();
+    // Creation time in epoch seconds << 16 | number of terms
+    private final LongLongMap details = new LongLongMap();
+    private long totalLength;
+    // Lower bound on the length of any indexed post, for score bounds
+    private int minLength = MAX_LENGTH;
+    private long postingBytes;
+
+    // A post and its score; higher is better
+    public record Hit(long postId, double score) {
+    }
+
+    // Returns false if the post was already indexed
+    public boolean add(long postId, long authorId, long createdAt, String content) {
+        if (authors.get(postId) >= 0) {
+            return false;
+        }
+        List<String> terms = TextTokenizer.tokenize(content);
+        int length = Math.min(terms.size(), MAX_LENGTH);
+        authors.put(postId, authorId);
+        details.put(postId, Math.max(0, createdAt) << 16 | length);
+        totalLength += length;
+        minLength = Math.min(minLength, length);
+        addPosting(postsByAuthor.computeIfAbsent(authorId, key -> new PostingList()), postId, 1);
+        for (Map.Entry<String, Integer> term : frequencies(terms).entrySet()) {
+            addPosting(postings.computeIfAbsent(term.getKey(), key -> new PostingList()), postId, term.getValue());
+        }
+        return true;
+    }
+
+    // Content must be the text the post was indexed with; returns false if the
+    // post was not indexed
+    public boolean remove(long postId, String content) {
+        long authorId = authors.get(postId);
+        if (authorId < 0) {
+            return false;
+        }
+        authors.remove(postId);
+        totalLength -= details.get(postId) & MAX_LENGTH;
+        details.remove(postId);
+        removePosting(postsByAuthor, authorId, postId);
+        for (String term : frequencies(TextTokenizer.tokenize(content)).keySet()) {
+            removePosting(postings, term, postId);
+        }
+        return true;
+    }
+
+    /**
+     * Ids of the newest posts containing every term, the last one as a prefix,
+     * by one of the authors (ascending ids, or null for anyone); newest first.
+     * The smallest list, or the authors' posts if there are fewer of those,
+     * drives the walk from its newest end and every candidate is probed in
+     * the other lists, so a common word stops as soon as enough posts are
+     * found.
+     */
+    public long[] search(List<String> terms, long[] authorIds, int limit) {
+        List<Source> sources = limit > 0 ? sources(terms) : null;
+        if (sources == null) {
+            return EMPTY;
+        }
+        Source byAuthor = authorSource(authorIds, sources.get(0).count());
+        Source driver = byAuthor != null ? byAuthor : sources.get(0);
+        List<Source> probes = byAuthor != null ? sources : sources.subList(1, sources.size());
+        long[] found = new long[limit];
+        int[] count = { 0 };
+        driver.descending((id, frequency) -> {
+            for (Source probe : probes) {
+                if (probe.frequency(id) == 0) {
+                    return true;
+                }
+            }
+            if (byAuthor != null || allowed(authorIds, id)) {
+                found[count[0]++] = id;
+            }
+            return count[0] < limit;
+        });
+        return Arrays.copyOf(found, count[0]);
+    }
+
+    /**
+     * The best posts matching as for {@link #search}, by the BM25 score of the
+     * query terms times the boost the function gives the post's creation time
+     * (epoch seconds), which must not fall as posts get newer; best first. A
+     * prefix counts as one term occurring as often as the words it matches.
+     *
+     * Matches are walked newest first and only the best limit are kept, so
+     * memory stays bounded however many posts match. Once no older post could
+     * score above the worst one kept, even with the highest term frequencies
+     * and the shortest text in the index, the walk stops.
+     */
+    public List<Hit> rank(List<String> terms, long[] authorIds, int limit, LongToDoubleFunction recencyBoost) {
+        List<Source> sources = limit > 0 ? sources(terms) : null;
+        if (sources == null) {
+            return List.of();
+        }
+        int postCount = authors.size();
+        double averageLength = Math.max(1.0, (double) totalLength / Math.max(1, postCount));
+        double shortestNorm = K1 * (1 - B + B * minLength / averageLength);
+        double[] idf = new double[sources.size()];
+        double bound = 0;
+        for (int i = 0; i < idf.length; i++) {
+            double documents = Math.min(sources.get(i).count(), postCount);
+            idf[i] = Math.log(1 + (postCount - documents + 0.5) / (documents + 0.5));
+            int frequency = sources.get(i).maxFrequency();
+            bound += idf[i] * frequency * (K1 + 1) / (frequency + shortestNorm);
+        }
+        double maxScore = bound;
+
+        Source byAuthor = authorSource(authorIds, sources.get(0).count());
+        Source driver = byAuthor != null ? byAuthor : sources.get(0);
+        int firstProbe = byAuthor != null ? 0 : 1;
+        int[] frequencies = new int[sources.size()];
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit, WORST_FIRST);
+        driver.descending((id, frequency) -> {
+            frequencies[0] = frequency;
+            for (int i = firstProbe; i < frequencies.length; i++) {
+                frequencies[i] = sources.get(i).frequency(id);
+                if (frequencies[i] == 0) {
+                    return true;
+                }
+            }
+            if (byAuthor == null && !allowed(authorIds, id)) {
+                return true;
+            }
+            long detail = details.get(id);
+            long createdAt = detail >>> 16;
+            if (best.size() == limit
+                    && maxScore * recencyBoost.applyAsDouble(createdAt + CLOCK_SLACK_SECONDS) < best.peek().score()) {
+                return false;
+            }
+            double lengthNorm = K1 * (1 - B + B * (detail & MAX_LENGTH) / averageLength);
+            double score = 0;
+            for (int i = 0; i < frequencies.length; i++) {
+                score += idf[i] * frequencies[i] * (K1 + 1) / (frequencies[i] + lengthNorm);
+            }
+            score *= recencyBoost.applyAsDouble(createdAt);
+            if (best.size() < limit) {
+                best.add(new Hit(id, score));
+            } else if (score > best.peek().score() || score == best.peek().score() && id > best.peek().postId()) {
+                best.poll();
+                best.add(new Hit(id, score));
+            }
+            return true;
+        });
+        Hit[] hits = best.toArray(new Hit[0]);
+        Arrays.sort(hits, WORST_FIRST.reversed());
+        return List.of(hits);
+    }
+
+    public int postCount() {
+        return authors.size();
+    }
+
+    public int termCount() {
+        return postings.size();
+    }
+
+    // Approximate heap footprint of the postings and the per-post tables
+    public long sizeInBytes() {
+        // Map entry, key and list object per term and per author
+        return postingBytes + (postings.size() + postsByAuthor.size()) * 120L + authors.sizeInBytes()
+                + details.sizeInBytes();
+    }
+
+    // One source per term, smallest first, or null if a term matches nothing
+    private List<Source> sources(List<String> terms) {
+        if (terms.isEmpty()) {
+            return null;
+        }
+        List<Source> sources = new ArrayList<>();
+        for (String term : terms.subList(0, terms.size() - 1)) {
+            PostingList list = postings.get(term);
+            if (list == null) {
+                return null;
+            }
+            sources.add(new ListSource(list));
+        }
+        Source prefix = prefix(terms.get(terms.size() - 1));
+        if (prefix == null) {
+            return null;
+        }
+        sources.add(prefix);
+        sources.sort(Comparator.comparingInt(Source::count));
+        return sources;
+    }
+
+    // The posts of the authors if there are fewer than the given number,
+    // otherwise null and the author of each candidate is checked instead
+    private Source authorSource(long[] authorIds, int fewerThan) {
+        if (authorIds == null) {
+            return null;
+        }
+        List<PostingList> lists = new ArrayList<>();
+        long count = 0;
+        for (long authorId : authorIds) {
+            PostingList list = postsByAuthor.get(authorId);
+            if (list != null) {
+                count += list.count();
+                if (count >= fewerThan) {
+                    return null;
+                }
+                lists.add(list);
+            }
+        }
+        if (lists.isEmpty()) {
+            return new ArraySource(EMPTY, new int[0]);
+        }
+        return lists.size() == 1 ? new ListSource(lists.get(0)) : new UnionSource(lists);
+    }
+
+    private boolean allowed(long[] authorIds, long postId) {
+        return authorIds == null || Arrays.binarySearch(authorIds, authors.get(postId)) >= 0;
+    }
+
+    private void addPosting(PostingList list, long postId, int frequency) {
+        long before = list.bytes();
+        list.add(postId, frequency);
+        postingBytes += list.bytes() - before;
+    }
+
+    private <K> void removePosting(Map<K, PostingList> lists, K key, long postId) {
+        PostingList list = lists.get(key);
+        if (list == null) {
+            return;
+        }
+        long before = list.bytes();
+        list.remove(postId);
+        postingBytes += list.bytes() - before;
+        if (list.count() == 0) {
+            lists.remove(key);
+        }
+    }
+
+    // The list of the only term starting with the prefix, or a merge of the
+    // lists of all of them
+    private Source prefix(String prefix) {
+        NavigableMap<String, PostingList> range = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        if (range.isEmpty()) {
+            return null;
+        }
+        if (range.size() == 1) {
+            return new ListSource(range.firstEntry().getValue());
+        }
+        List<PostingList> lists = new ArrayList<>();
+        for (PostingList list : range.values()) {
+            if (lists.size() == MAX_PREFIX_TERMS) {
+                break;
+            }
+            lists.add(list);
+        }
+        return new UnionSource(lists);
+    }
+
+    private static Map<String, Integer> frequencies(List<String> terms) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : terms) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        return frequencies;
+    }
+
+    // Receives ids newest first with the term's frequency in the post; returns
+    // false to stop
+    private interface IdVisitor {
+        boolean visit(long id, int frequency);
+    }
+
+    // An ascending id set a query can walk backwards or probe
+    private interface Source {
+        int count();
+
+        void descending(IdVisitor visitor);
+
+        // Frequency of the term in the post, 0 if it does not occur. Cheapest
+        // when successive probes are close, as they are in a walk
+        int frequency(long id);
+
+        // No post has a higher frequency
+        int maxFrequency();
+    }
+
+    private static final class ArraySource implements Source {
+        private final long[] ids;
+        private final int[] frequencies;
+
+        private ArraySource(long[] ids, int[] frequencies) {
+            this.ids = ids;
+            this.frequencies = frequencies;
+        }
+
+        @Override
+        public int count() {
+            return ids.length;
+        }
+
+        @Override
+        public void descending(IdVisitor visitor) {
+            for (int i = ids.length - 1; i >= 0 && visitor.visit(ids[i], frequencies[i]); i--) {
+            }
+        }
+
+        @Override
+        public int frequency(long id) {
+            int at = Arrays.binarySearch(ids, id);
+            return at >= 0 ? frequencies[at] : 0;
+        }
+
+        @Override
+        public int maxFrequency() {
+            return Arrays.stream(frequencies).max().orElse(0);
+        }
+    }
+
+    /**
+     * Several lists read as one, a post's frequencies summed. A walk merges
+     * them from their newest ends; probes go to the union, built in full on
+     * the first probe.
+     */
+    private static final class UnionSource implements Source {
+        private final List<PostingList> lists;
+        private final int count;
+        private ArraySource union;
+
+        private UnionSource(List<PostingList> lists) {
+            this.lists = lists;
+            this.count = (int) Math.min(lists.stream().mapToLong(PostingList::count).sum(), Integer.MAX_VALUE - 8);
+        }
+
+        @Override
+        public int count() {
+            return count;
+        }
+
+        @Override
+        public int maxFrequency() {
+            return (int) Math.min(lists.stream().mapToLong(PostingList::maxFrequency).sum(), Integer.MAX_VALUE);
+        }
+
+        @Override
+        public void descending(IdVisitor visitor) {
+            // Heads of the lists, highest id first; a post in several of the
+            // lists is visited once
+            PriorityQueue<Walker> heads = new PriorityQueue<>((a, b) -> Long.compare(b.id, a.id));
+            for (PostingList list : lists) {
+                Walker walker = new Walker(list);
+                if (walker.next()) {
+                    heads.add(walker);
+                }
+            }
+            while (!heads.isEmpty()) {
+                Walker head = heads.poll();
+                long id = head.id;
+                int frequency = head.frequency;
+                if (head.next()) {
+                    heads.add(head);
+                }
+                while (!heads.isEmpty() && heads.peek().id == id) {
+                    Walker same = heads.poll();
+                    frequency += same.frequency;
+                    if (same.next()) {
+                        heads.add(same);
+                    }
+                }
+                if (!visitor.visit(id, frequency)) {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public int frequency(long id) {
+            if (union == null) {
+                // Id and frequency packed in one long, so one sort orders both
+                long[] packed = new long[count];
+                int n = 0;
+                long[] ids = new long[PostingList.BLOCK];
+                int[] frequencies = new int[PostingList.BLOCK];
+                for (PostingList list : lists) {
+                    for (int b = 0; b < list.blocks(); b++) {
+                        int size = list.decodeBlock(b, ids, frequencies);
+                        for (int i = 0; i < size; i++) {
+                            packed[n++] = ids[i] << 16 | Math.min(frequencies[i], MAX_LENGTH);
+                        }
+                    }
+                }
+                Arrays.sort(packed, 0, n);
+                long[] unionIds = new long[n];
+                int[] unionFrequencies = new int[n];
+                int unique = 0;
+                for (int i = 0; i < n; i++) {
+                    long postId = packed[i] >>> 16;
+                    int frequency = (int) (packed[i] & MAX_LENGTH);
+                    if (unique > 0 && unionIds[unique - 1] == postId) {
+                        unionFrequencies[unique - 1] += frequency;
+                    } else {
+                        unionIds[unique] = postId;
+                        unionFrequencies[unique++] = frequency;
+                    }
+                }
+                union = new ArraySource(Arrays.copyOf(unionIds, unique), Arrays.copyOf(unionFrequencies, unique));
+            }
+            return union.frequency(id);
+        }
+    }
+
+    // Steps through one list from its newest id, a block at a time
+    private static final class Walker {
+        private final PostingList list;
+        private final long[] block = new long[PostingList.BLOCK];
+        private final int[] frequencies = new int[PostingList.BLOCK];
+        private int blockIndex;
+        private int position;
+        private long id;
+        private int frequency;
+
+        private Walker(PostingList list) {
+            this.list = list;
+            this.blockIndex = list.blocks();
+        }
+
+        boolean next() {
+            while (position == 0) {
+                if (blockIndex == 0) {
+                    return false;
+                }
+                position = list.decodeBlock(--blockIndex, block, frequencies);
+            }
+            position--;
+            id = block[position];
+            frequency = frequencies[position];
+            return true;
+        }
+    }
+
+    // Keeps the last decoded block, which the next (smaller) probe usually
+    // falls into
+    private static final class ListSource implements Source {
+        private final PostingList list;
+        private final long[] block = new long[PostingList.BLOCK];
+        private final int[] frequencies = new int[PostingList.BLOCK];
+        private int blockIndex = -1;
+        private int blockSize;
+
+        private ListSource(PostingList list) {
+            this.list = list;
+        }
+
+        @Override
+        public int count() {
+            return list.count();
+        }
+
+        @Override
+        public int maxFrequency() {
+            return list.maxFrequency();
+        }
+
+        @Override
+        public void descending(IdVisitor visitor) {
+            Walker walker = new Walker(list);
+            while (walker.next() && visitor.visit(walker.id, walker.frequency)) {
+            }
+        }
+
+        @Override
+        public int frequency(long id) {
+            int b = list.blockOf(id);
+            if (b < 0) {
+                return 0;
+            }
+            if (b != blockIndex) {
+                blockSize = list.decodeBlock(b, block, frequencies);
+                blockIndex = b;
+            }
+            int at = Arrays.binarySearch(block, 0, blockSize, id);
+            return at >= 0 ? frequencies[at] : 0;
+        }
+    }
+
+    /**
+     * Ascending ids as LEB128 deltas, in blocks of {@link #BLOCK} ids whose
+     * first delta is taken from the block's recorded base (the last id of the
+     * block before). The low bit of each delta says whether a term frequency
+     * follows; most terms occur once in a post, so most postings carry none.
+     * An id lower than the last one (a post committed out of order) or a
+     * removal rewrites the list.
+     */
+    static final class PostingList {
+        static final int BLOCK = 128;
+
+        private byte[] data = new byte[4];
+        private int size;
+        private int count;
+        private long last;
+        // Highest frequency added since the list was last written out
+        private int maxFrequency;
+
+        // Per block: the id its deltas start from and where its bytes start
+        private long[] bases = new long[1];
+        private int[] offsets = new int[1];
+
+        void add(long id) {
+            add(id, 1);
+        }
+
+        void add(long id, int frequency) {
+            if (count > 0 && id <= last) {
+                long[] ids = new long[count + 1];
+                int[] frequencies = new int[count + 1];
+                decodeInto(ids, frequencies, 0);
+                int at = Arrays.binarySearch(ids, 0, count, id);
+                if (at >= 0) {
+                    return;
+                }
+                int insertAt = -at - 1;
+                System.arraycopy(ids, insertAt, ids, insertAt + 1, count - insertAt);
+                System.arraycopy(frequencies, insertAt, frequencies, insertAt + 1, count - insertAt);
+                ids[insertAt] = id;
+                frequencies[insertAt] = frequency;
+                encode(ids, frequencies, ids.length);
+                return;
+            }
+            append(id, frequency);
+        }
+
+        void remove(long id) {
+            long[] ids = new long[count];
+            int[] frequencies = new int[count];
+            decodeInto(ids, frequencies, 0);
+            int at = Arrays.binarySearch(ids, id);
+            if (at < 0) {
+                return;
+            }
+            System.arraycopy(ids, at + 1, ids, at, ids.length - at - 1);
+            System.arraycopy(frequencies, at + 1, frequencies, at, ids.length - at - 1);
+            encode(ids, frequencies, ids.length - 1);
+        }
+
+        int count() {
+            return count;
+        }
+
+        int maxFrequency() {
+            return maxFrequency;
+        }
+
+        int blocks() {
+            return (count + BLOCK - 1) / BLOCK;
+        }
+
+        long bytes() {
+            return data.length + bases.length * 8L + offsets.length * 4L;
+        }
+
+        // Block that would hold the id, or -1 if it is below the first one
+        int blockOf(long id) {
+            if (count == 0 || id > last) {
+                return -1;
+            }
+            int low = 0;
+            int high = blocks() - 1;
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+                if (bases[middle] < id) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return low;
+        }
+
+        // Writes the ids of the block to out and returns how many there are
+        int decodeBlock(int block, long[] out) {
+            return decodeBlock(block, out, null);
+        }
+
+        // Same, with the term frequencies to frequencies unless it is null
+        int decodeBlock(int block, long[] out, int[] frequencies) {
+            int n = Math.min(BLOCK, count - block * BLOCK);
+            long id = bases[block];
+            int position = offsets[block];
+            for (int i = 0; i < n; i++) {
+                long delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[position++];
+                    delta |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                int frequency = 1;
+                if ((delta & 1) != 0) {
+                    frequency = 0;
+                    shift = 0;
+                    do {
+                        b = data[position++];
+                        frequency |= (b & 0x7F) << shift;
+                        shift += 7;
+                    } while (b < 0);
+                }
+                id += delta >>> 1;
+                out[i] = id;
+                if (frequencies != null) {
+                    frequencies[i] = frequency;
+                }
+            }
+            return n;
+        }
+
+        long[] decode() {
+            long[] ids = new long[count];
+            decodeInto(ids, null, 0);
+            return ids;
+        }
+
+        // Writes the ids (and frequencies unless null) at offset and returns the
+        // offset after them
+        int decodeInto(long[] out, int[] frequencies, int offset) {
+            long[] block = new long[BLOCK];
+            int[] blockFrequencies = frequencies == null ? null : new int[BLOCK];
+            for (int b = 0; b < blocks() && offset < out.length; b++) {
+                int n = Math.min(decodeBlock(b, block, blockFrequencies), out.length - offset);
+                System.arraycopy(block, 0, out, offset, n);
+                if (frequencies != null) {
+                    System.arraycopy(blockFrequencies, 0, frequencies, offset, n);
+                }
+                offset += n;
+            }
+            return offset;
+        }
+
+        private void encode(long[] ids, int[] frequencies, int length) {
+            data = new byte[Math.max(4, length * 2)];
+            bases = new long[Math.max(1, (length + BLOCK - 1) / BLOCK)];
+            offsets = new int[bases.length];
+            size = 0;
+            count = 0;
+            last = 0;
+            maxFrequency = 0;
+            for (int i = 0; i < length; i++) {
+                append(ids[i], frequencies[i]);
+            }
+            if (data.length > size * 2 && data.length > 4) {
+                data = Arrays.copyOf(data, Math.max(4, size + (size >> 2)));
+            }
+        }
+
+        private void append(long id, int frequency) {
+            if (count % BLOCK == 0) {
+                int block = count / BLOCK;
+                if (block == bases.length) {
+                    bases = Arrays.copyOf(bases, block * 2);
+                    offsets = Arrays.copyOf(offsets, block * 2);
+                }
+                bases[block] = last;
+                offsets[block] = size;
+            }
+            if (size + 15 > data.length) {
+                data = Arrays.copyOf(data, Math.max(size + 15, data.length + (data.length >> 1)));
+            }
+            writeVarLong(((id - last) << 1) | (frequency > 1 ? 1 : 0));
+            if (frequency > 1) {
+                writeVarLong(frequency);
+            }
+            last = id;
+            maxFrequency = Math.max(maxFrequency, frequency);
+            count++;
+        }
+
+        private void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+    }
+
+    // Open-addressing map of non-negative longs; get returns -1 when absent.
+    // Removal shifts later entries of the probe run back, so no tombstones
+    static final class LongLongMap {
+        private long[] keys = new long[16];
+        private long[] values = new long[16];
+        private boolean[] used = new boolean[16];
+        private int size;
+
+        long get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key) & mask; used[slot]; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return -1;
+        }
+
+        void put(long key, long value) {
+            if ((size + 1) * 2 > keys.length) {
+                rehash(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (used[slot]) {
+                if (keys[slot] == key) {
+                    values[slot] = value;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            used[slot] = true;
+            keys[slot] = key;
+            values[slot] = value;
+            size++;
+        }
+
+        boolean remove(long key) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (used[slot] && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (!used[slot]) {
+                return false;
+            }
+            used[slot] = false;
+            size--;
+            for (int next = (slot + 1) & mask; used[next]; next = (next + 1) & mask) {
+                int home = hash(keys[next]) & mask;
+                // Move the entry back if its home slot is not between the hole and it
+                if (((next - home) & mask) >= ((next - slot) & mask)) {
+                    keys[slot] = keys[next];
+                    values[slot] = values[next];
+                    used[slot] = true;
+                    used[next] = false;
+                    slot = next;
+                }
+            }
+            return true;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long sizeInBytes() {
+            return keys.length * 17L;
+        }
+
+        private void rehash(int capacity) {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            boolean[] oldUsed = used;
+            keys = new long[capacity];
+            values = new long[capacity];
+            used = new boolean[capacity];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.social_media_app.util;
+
+import java.util.Arrays;
+
+/**
+ * Compressed set of long ids in the style of a Roaring bitmap. Ids are split
+ * into a 48-bit high key and a 16-bit low part; each high key owns a container
+ * that is a sorted char array while sparse and a 65536-bit bitmap once it holds
+ * more than 4096 values. Not thread-safe.
+ */
+public class RoaringIdSet {
+
+    // Above this many values a bitmap container is smaller than an array one
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = 1024;
+
+    // Rough per-object overheads used by sizeInBytes()
+    private static final int OBJECT_HEADER = 16;
+    private static final int ARRAY_HEADER = 16;
+
+    private long[] keys = new long[0];
+    private Object[] containers = new Object[0];
+    private int size;
+    private long cardinality;
+
+    public static RoaringIdSet of(long... ids) {
+        RoaringIdSet set = new RoaringIdSet();
+        for (long id : ids) {
+            set.add(id);
+        }
+        return set;
+    }
+
+    public boolean contains(long id) {
+        int index = Arrays.binarySearch(keys, 0, size, id >>> 16);
+        if (index < 0) {
+            return false;
+        }
+        char low = (char) id;
+        Object container = containers[index];
+        if (container instanceof BitmapContainer bitmap) {
+            return bitmap.contains(low);
+        }
+        return ((ArrayContainer) container).indexOf(low) >= 0;
+    }
+
+    // Returns true if the id was not in the set
+    public boolean add(long id) {
+        long key = id >>> 16;
+        char low = (char) id;
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, key, new ArrayContainer());
+        }
+
+        Object container = containers[index];
+        boolean added;
+        if (container instanceof BitmapContainer bitmap) {
+            added = bitmap.add(low);
+        } else {
+            ArrayContainer array = (ArrayContainer) container;
+            added = array.add(low);
+            if (added && array.cardinality > ARRAY_MAX) {
+                containers[index] = array.toBitmap();
+            }
+        }
+        if (added) {
+            cardinality++;
+        }
+        return added;
+    }
+
+    // Returns true if the id was in the set
+    public boolean remove(long id) {
+        int index = Arrays.binarySearch(keys, 0, size, id >>> 16);
+        if (index < 0) {
+            return false;
+        }
+
+        char low = (char) id;
+        Object container = containers[index];
+        boolean removed;
+        int remaining;
+        if (container instanceof BitmapContainer bitmap) {
+            removed = bitmap.remove(low);
+            remaining = bitmap.cardinality;
+            if (removed && remaining <= ARRAY_MAX) {
+                containers[index] = bitmap.toArray();
+            }
+        } else {
+            ArrayContainer array = (ArrayContainer) container;
+            removed = array.remove(low);
+            remaining = array.cardinality;
+        }
+
+        if (removed) {
+            cardinality--;
+            if (remaining == 0) {
+                removeContainer(index);
+            }
+        }
+        return removed;
+    }
+
+    public long cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    // Approximate heap footprint, used to enforce memory budgets
+    public long sizeInBytes() {
+        long bytes = OBJECT_HEADER + 2L * ARRAY_HEADER + 8L * keys.length + 4L * containers.length;
+        for (int i = 0; i < size; i++) {
+            if (containers[i] instanceof BitmapContainer) {
+                bytes += OBJECT_HEADER + ARRAY_HEADER + 8L * BITMAP_WORDS;
+            } else {
+                bytes += OBJECT_HEADER + ARRAY_HEADER + 2L * ((ArrayContainer) containers[i]).values.length;
+            }
+        }
+        return bytes;
+    }
+
+    private void insertContainer(int index, long key, Object container) {
+        if (size == keys.length) {
+            int capacity = Math.max(4, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        size--;
+        containers[size] = null;
+    }
+
+    private static final class ArrayContainer {
+        private char[] values = new char[4];
+        private int cardinality;
+
+        int indexOf(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value);
+        }
+
+        boolean add(char value) {
+            int index = indexOf(value);
+            if (index >= 0) {
+                return false;
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX + 1, values.length * 2));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+            return true;
+        }
+
+        boolean remove(char value) {
+            int index = indexOf(value);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+            cardinality--;
+            if (cardinality > 0 && cardinality <= values.length / 4) {
+                values = Arrays.copyOf(values, Math.max(4, values.length / 2));
+            }
+            return true;
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer {
+        private final long[] words = new long[BITMAP_WORDS];
+        private int cardinality;
+
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        boolean add(char value) {
+            long before = words[value >>> 6];
+            long after = before | (1L << value);
+            words[value >>> 6] = after;
+            if (before != after) {
+                cardinality++;
+                return true;
+            }
+            return false;
+        }
+
+        boolean remove(char value) {
+            long before = words[value >>> 6];
+            long after = before & ~(1L << value);
+            words[value >>> 6] = after;
+            if (before != after) {
+                cardinality--;
+                return true;
+            }
+            return false;
+        }
+
+        ArrayContainer toArray() {
+            ArrayContainer array = new ArrayContainer();
+            array.values = new char[Math.max(4, cardinality)];
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                long bits = words[word];
+                while (bits != 0) {
+                    int bit = Long.numberOfTrailingZeros(bits);
+                    array.values[array.cardinality++] = (char) (word * 64 + bit);
+                    bits &= bits - 1;
+                }
+            }
+            return array;
+        }
+    }
+}
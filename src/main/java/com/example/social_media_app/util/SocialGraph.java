@@ -0,0 +1,567 @@
+package com.example.social_media_app.util;
+
+import java.util.Arrays;
+
+/**
+ * Undirected friendship graph in compressed sparse row form: the neighbour
+ * lists of all users live back to back in one {@code long[]}, each one a
+ * sorted block addressed by a start offset and a degree. User ids are mapped
+ * to vertex numbers by an open-addressing table of primitives, so nothing is
+ * boxed. A block that has to grow is moved to the end of the array with room
+ * to spare; the holes it leaves are reclaimed once they make up half of the
+ * array. Not thread-safe.
+ */
+public class SocialGraph {
+
+    private static final int MIN_BLOCK = 4;
+    private static final long[] EMPTY = new long[0];
+
+    // Rough per-object overheads used by sizeInBytes()
+    private static final int OBJECT_HEADER = 16;
+    private static final int ARRAY_HEADER = 16;
+
+    // user id -> vertex + 1 (0 marks a free slot); capacity is a power of two
+    private long[] slotIds;
+    private int[] slotVertices;
+
+    // Per vertex
+    private long[] userIds;
+    private int[] starts;
+    private int[] degrees;
+    private int[] capacities;
+    private int vertexCount;
+
+    private long[] neighbours;
+    private int used;
+    private long garbage;
+
+    private long edgeCount;
+
+    public SocialGraph() {
+        this(16, 64);
+    }
+
+    private SocialGraph(int expectedVertices, int expectedNeighbours) {
+        int slots = Integer.highestOneBit(Math.max(16, expectedVertices * 2 - 1)) << 1;
+        slotIds = new long[slots];
+        slotVertices = new int[slots];
+        userIds = new long[Math.max(16, expectedVertices)];
+        starts = new int[userIds.length];
+        degrees = new int[userIds.length];
+        capacities = new int[userIds.length];
+        neighbours = new long[Math.max(64, expectedNeighbours)];
+    }
+
+    public boolean areFriends(long userId, long friendId) {
+        int vertex = vertexOf(userId);
+        return vertex >= 0 && Arrays.binarySearch(neighbours, starts[vertex], starts[vertex] + degrees[vertex], friendId) >= 0;
+    }
+
+    public int degree(long userId) {
+        int vertex = vertexOf(userId);
+        return vertex < 0 ? 0 : degrees[vertex];
+    }
+
+    // Friend ids in ascending order
+    public long[] friends(long userId) {
+        int vertex = vertexOf(userId);
+        if (vertex < 0 || degrees[vertex] == 0) {
+            return EMPTY;
+        }
+        return Arrays.copyOfRange(neighbours, starts[vertex], starts[vertex] + degrees[vertex]);
+    }
+
+    public int mutualCount(long userId, long otherId) {
+        int a = vertexOf(userId);
+        int b = vertexOf(otherId);
+        if (a < 0 || b < 0) {
+            return 0;
+        }
+        return intersect(a, b, null);
+    }
+
+    // Friends the two users have in common, in ascending order
+    public long[] mutualFriends(long userId, long otherId) {
+        int a = vertexOf(userId);
+        int b = vertexOf(otherId);
+        if (a < 0 || b < 0) {
+            return EMPTY;
+        }
+        long[] out = new long[Math.min(degrees[a], degrees[b])];
+        return Arrays.copyOf(out, intersect(a, b, out));
+    }
+
+    /**
+     * Users two hops away who are not friends of the user yet, in ascending
+     * order. Friends with more than {@code maxHubDegree} friends are not
+     * expanded: they would add a lot of candidates that only share that one
+     * friend.
+     */
+    public long[] friendsOfFriends(long userId, int maxHubDegree) {
+        int vertex = vertexOf(userId);
+        if (vertex < 0) {
+            return EMPTY;
+        }
+        int start = starts[vertex];
+        int end = start + degrees[vertex];
+
+        long total = 0;
+        for (int i = start; i < end; i++) {
+            int friend = vertexOf(neighbours[i]);
+            if (degrees[friend] <= maxHubDegree) {
+                total += degrees[friend];
+            }
+        }
+        long[] candidates = new long[(int) Math.min(total, Integer.MAX_VALUE - 8)];
+        int count = 0;
+        for (int i = start; i < end && count < candidates.length; i++) {
+            int friend = vertexOf(neighbours[i]);
+            if (degrees[friend] <= maxHubDegree) {
+                int length = Math.min(degrees[friend], candidates.length - count);
+                System.arraycopy(neighbours, starts[friend], candidates, count, length);
+                count += length;
+            }
+        }
+
+        Arrays.sort(candidates, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            long id = candidates[i];
+            if ((unique > 0 && candidates[unique - 1] == id) || id == userId
+                    || Arrays.binarySearch(neighbours, start, end, id) >= 0) {
+                continue;
+            }
+            candidates[unique++] = id;
+        }
+        return Arrays.copyOf(candidates, unique);
+    }
+
+    /**
+     * Length of the shortest friendship path between two users, found by a
+     * breadth-first search from both ends that always expands the side whose
+     * frontier has fewer neighbours to scan. Returns -1 when the users are
+     * more than {@code maxDepth} hops apart, or when the two searches have
+     * visited {@code maxVisited} users without meeting.
+     */
+    public int distance(long userId, long otherId, int maxDepth, int maxVisited) {
+        if (userId == otherId) {
+            return vertexOf(userId) >= 0 ? 0 : -1;
+        }
+        int source = vertexOf(userId);
+        int target = vertexOf(otherId);
+        if (source < 0 || target < 0 || maxDepth < 1) {
+            return -1;
+        }
+
+        VertexSet visitedFromSource = new VertexSet();
+        VertexSet visitedFromTarget = new VertexSet();
+        visitedFromSource.add(source);
+        visitedFromTarget.add(target);
+        int[] sourceFrontier = { source };
+        int[] targetFrontier = { target };
+        int sourceSize = 1;
+        int targetSize = 1;
+        int visited = 2;
+
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            boolean fromSource = scanCost(sourceFrontier, sourceSize) <= scanCost(targetFrontier, targetSize);
+            int[] frontier = fromSource ? sourceFrontier : targetFrontier;
+            int size = fromSource ? sourceSize : targetSize;
+            VertexSet own = fromSource ? visitedFromSource : visitedFromTarget;
+            VertexSet other = fromSource ? visitedFromTarget : visitedFromSource;
+
+            // Every user both searches have reached is checked as soon as it is
+            // reached, so the first meeting is at the sum of both depths
+            int[] next = new int[Math.max(4, size)];
+            int nextSize = 0;
+            for (int i = 0; i < size; i++) {
+                int vertex = frontier[i];
+                for (int j = starts[vertex], end = j + degrees[vertex]; j < end; j++) {
+                    int friend = vertexOf(neighbours[j]);
+                    if (other.contains(friend)) {
+                        return depth;
+                    }
+                    if (!own.add(friend)) {
+                        continue;
+                    }
+                    if (++visited > maxVisited) {
+                        return -1;
+                    }
+                    if (nextSize == next.length) {
+                        next = Arrays.copyOf(next, nextSize * 2);
+                    }
+                    next[nextSize++] = friend;
+                }
+            }
+            if (nextSize == 0) {
+                return -1;
+            }
+            if (fromSource) {
+                sourceFrontier = next;
+                sourceSize = nextSize;
+            } else {
+                targetFrontier = next;
+                targetSize = nextSize;
+            }
+        }
+        return -1;
+    }
+
+    // Returns true if the two users were not friends yet
+    public boolean addFriendship(long userId, long friendId) {
+        if (userId == friendId) {
+            return false;
+        }
+        int a = vertexOrCreate(userId);
+        int b = vertexOrCreate(friendId);
+        if (!insert(a, friendId)) {
+            return false;
+        }
+        insert(b, userId);
+        edgeCount++;
+        return true;
+    }
+
+    // Returns true if the two users were friends
+    public boolean removeFriendship(long userId, long friendId) {
+        int a = vertexOf(userId);
+        int b = vertexOf(friendId);
+        if (a < 0 || b < 0 || !delete(a, friendId)) {
+            return false;
+        }
+        delete(b, userId);
+        edgeCount--;
+        return true;
+    }
+
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    // Number of friendships, each counted once
+    public long edgeCount() {
+        return edgeCount;
+    }
+
+    // Approximate heap footprint of the arrays
+    public long sizeInBytes() {
+        return OBJECT_HEADER
+                + ARRAY_HEADER + 8L * slotIds.length
+                + ARRAY_HEADER + 4L * slotVertices.length
+                + ARRAY_HEADER + 8L * userIds.length
+                + 3L * (ARRAY_HEADER + 4L * starts.length)
+                + ARRAY_HEADER + 8L * neighbours.length;
+    }
+
+    // Merge when the blocks are of similar size, binary search of the smaller
+    // into the larger when one dwarfs the other
+    private int intersect(int a, int b, long[] out) {
+        if (degrees[a] > degrees[b]) {
+            int swap = a;
+            a = b;
+            b = swap;
+        }
+        int i = starts[a];
+        int iEnd = i + degrees[a];
+        int j = starts[b];
+        int jEnd = j + degrees[b];
+        int count = 0;
+
+        if (degrees[a] * 16 < degrees[b]) {
+            for (; i < iEnd && j < jEnd; i++) {
+                int found = Arrays.binarySearch(neighbours, j, jEnd, neighbours[i]);
+                if (found >= 0) {
+                    if (out != null) {
+                        out[count] = neighbours[i];
+                    }
+                    count++;
+                    j = found + 1;
+                } else {
+                    j = -found - 1;
+                }
+            }
+            return count;
+        }
+
+        while (i < iEnd && j < jEnd) {
+            long x = neighbours[i];
+            long y = neighbours[j];
+            if (x < y) {
+                i++;
+            } else if (x > y) {
+                j++;
+            } else {
+                if (out != null) {
+                    out[count] = x;
+                }
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    private boolean insert(int vertex, long id) {
+        int start = starts[vertex];
+        int degree = degrees[vertex];
+        int index = Arrays.binarySearch(neighbours, start, start + degree, id);
+        if (index >= 0) {
+            return false;
+        }
+        index = -index - 1;
+
+        if (degree == capacities[vertex]) {
+            relocate(vertex, Math.max(MIN_BLOCK, degree * 2));
+            index += starts[vertex] - start;
+            start = starts[vertex];
+        }
+        System.arraycopy(neighbours, index, neighbours, index + 1, start + degree - index);
+        neighbours[index] = id;
+        degrees[vertex]++;
+        return true;
+    }
+
+    private boolean delete(int vertex, long id) {
+        int start = starts[vertex];
+        int end = start + degrees[vertex];
+        int index = Arrays.binarySearch(neighbours, start, end, id);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(neighbours, index + 1, neighbours, index, end - index - 1);
+        degrees[vertex]--;
+        return true;
+    }
+
+    // Moves the block of a vertex to the end of the array with the given capacity
+    private void relocate(int vertex, int capacity) {
+        if (used + capacity > neighbours.length) {
+            if (garbage * 2 > neighbours.length) {
+                compact();
+            }
+            if (used + capacity > neighbours.length) {
+                neighbours = Arrays.copyOf(neighbours, Math.max(used + capacity, neighbours.length + (neighbours.length >> 1)));
+            }
+        }
+        System.arraycopy(neighbours, starts[vertex], neighbours, used, degrees[vertex]);
+        garbage += capacities[vertex];
+        starts[vertex] = used;
+        capacities[vertex] = capacity;
+        used += capacity;
+    }
+
+    private void compact() {
+        long[] compacted = new long[neighbours.length];
+        int next = 0;
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            System.arraycopy(neighbours, starts[vertex], compacted, next, degrees[vertex]);
+            starts[vertex] = next;
+            next += capacities[vertex];
+        }
+        neighbours = compacted;
+        used = next;
+        garbage = 0;
+    }
+
+    private int vertexOf(long userId) {
+        int mask = slotIds.length - 1;
+        for (int slot = hash(userId) & mask; ; slot = (slot + 1) & mask) {
+            int vertex = slotVertices[slot];
+            if (vertex == 0) {
+                return -1;
+            }
+            if (slotIds[slot] == userId) {
+                return vertex - 1;
+            }
+        }
+    }
+
+    private int vertexOrCreate(long userId) {
+        int vertex = vertexOf(userId);
+        if (vertex >= 0) {
+            return vertex;
+        }
+
+        if (vertexCount == userIds.length) {
+            int capacity = userIds.length + (userIds.length >> 1);
+            userIds = Arrays.copyOf(userIds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            degrees = Arrays.copyOf(degrees, capacity);
+            capacities = Arrays.copyOf(capacities, capacity);
+        }
+        vertex = vertexCount++;
+        userIds[vertex] = userId;
+        starts[vertex] = used;
+        if ((long) vertexCount * 2 > slotIds.length) {
+            rehash(slotIds.length * 2);
+        }
+        place(userId, vertex);
+        return vertex;
+    }
+
+    private void rehash(int slots) {
+        slotIds = new long[slots];
+        slotVertices = new int[slots];
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            place(userIds[vertex], vertex);
+        }
+    }
+
+    private void place(long userId, int vertex) {
+        int mask = slotIds.length - 1;
+        int slot = hash(userId) & mask;
+        while (slotVertices[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slotIds[slot] = userId;
+        slotVertices[slot] = vertex + 1;
+    }
+
+    private long scanCost(int[] frontier, int size) {
+        long cost = 0;
+        for (int i = 0; i < size; i++) {
+            cost += degrees[frontier[i]];
+        }
+        return cost;
+    }
+
+    private static int hash(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // Growable open-addressing set of vertex numbers, one per search, so that
+    // concurrent readers do not share marks
+    private static final class VertexSet {
+        // vertex + 1, 0 marks a free slot
+        private int[] slots = new int[64];
+        private int size;
+
+        boolean contains(int vertex) {
+            int mask = slots.length - 1;
+            for (int slot = mix(vertex) & mask; ; slot = (slot + 1) & mask) {
+                if (slots[slot] == 0) {
+                    return false;
+                }
+                if (slots[slot] == vertex + 1) {
+                    return true;
+                }
+            }
+        }
+
+        // Returns true if the vertex was not in the set yet
+        boolean add(int vertex) {
+            int mask = slots.length - 1;
+            int slot = mix(vertex) & mask;
+            while (slots[slot] != 0) {
+                if (slots[slot] == vertex + 1) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = vertex + 1;
+            if (++size * 2 > slots.length) {
+                grow();
+            }
+            return true;
+        }
+
+        private void grow() {
+            int[] old = slots;
+            slots = new int[old.length * 2];
+            int mask = slots.length - 1;
+            for (int entry : old) {
+                if (entry != 0) {
+                    int slot = mix(entry - 1) & mask;
+                    while (slots[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    slots[slot] = entry;
+                }
+            }
+        }
+
+        private static int mix(int vertex) {
+            return vertex * 0x9E3779B9;
+        }
+    }
+
+    /**
+     * Collects friendships and lays them out in one pass: degrees are counted
+     * first, so every block is placed exactly once and no block has slack.
+     * Duplicate pairs and self-pairs are dropped.
+     */
+    public static class Builder {
+
+        private long[] from = new long[1024];
+        private long[] to = new long[1024];
+        private int count;
+
+        public Builder add(long userId, long friendId) {
+            if (userId == friendId) {
+                return this;
+            }
+            if (count == from.length) {
+                from = Arrays.copyOf(from, count * 2);
+                to = Arrays.copyOf(to, count * 2);
+            }
+            from[count] = userId;
+            to[count] = friendId;
+            count++;
+            return this;
+        }
+
+        public SocialGraph build() {
+            SocialGraph graph = new SocialGraph(0, 0);
+            int[] endpoints = new int[count * 2];
+            for (int i = 0; i < count; i++) {
+                endpoints[2 * i] = graph.vertexOrCreate(from[i]);
+                endpoints[2 * i + 1] = graph.vertexOrCreate(to[i]);
+            }
+
+            // Each pair lands in the blocks of both users
+            int[] fill = new int[graph.vertexCount];
+            for (int endpoint : endpoints) {
+                fill[endpoint]++;
+            }
+            long total = 0;
+            for (int vertex = 0; vertex < graph.vertexCount; vertex++) {
+                graph.starts[vertex] = (int) total;
+                graph.capacities[vertex] = fill[vertex];
+                total += fill[vertex];
+                fill[vertex] = graph.starts[vertex];
+            }
+            if (total > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Too many friendships for one graph: " + total / 2);
+            }
+
+            long[] neighbours = new long[(int) total];
+            for (int i = 0; i < count; i++) {
+                neighbours[fill[endpoints[2 * i]]++] = to[i];
+                neighbours[fill[endpoints[2 * i + 1]]++] = from[i];
+            }
+            graph.neighbours = neighbours;
+            graph.used = (int) total;
+
+            // Sort each block and squeeze out duplicates; what they took stays as
+            // slack at the end of the block
+            long directed = 0;
+            for (int vertex = 0; vertex < graph.vertexCount; vertex++) {
+                int start = graph.starts[vertex];
+                int end = start + graph.capacities[vertex];
+                Arrays.sort(neighbours, start, end);
+                int degree = 0;
+                for (int i = start; i < end; i++) {
+                    if (degree == 0 || neighbours[start + degree - 1] != neighbours[i]) {
+                        neighbours[start + degree++] = neighbours[i];
+                    }
+                }
+                graph.degrees[vertex] = degree;
+                directed += degree;
+            }
+            graph.edgeCount = directed / 2;
+            return graph;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.social_media_app.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Splits text into search terms: lower-cased, accents stripped, broken on
+ * anything that is not a letter or a digit. The same rules apply to indexed
+ * text and to queries, so "Café" finds "cafe".
+ */
+public class TextTokenizer {
+
+    // Longer runs (URLs, base64, keyboard mashing) are cut to this many chars
+    public static final int MAX_TERM_LENGTH = 32;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        String normalized = normalize(text);
+
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                terms.add(normalized.substring(start, Math.min(i, start + MAX_TERM_LENGTH)));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    // Lower-cased with accents stripped, otherwise unchanged
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.social_media_app.util;
+
+import com.example.social_media_app.model.TimelineEntry;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounded, newest-first window over the head of one user's timeline.
+ * Entries are kept in parallel primitive arrays sorted by (createdAt, postId)
+ * descending, so a feed page is a short scan with no boxing.
+ */
+public class TimelineRing {
+
+    private final long[] postIds;
+    private final long[] authorIds;
+    private final long[] createdAtMicros;
+    private int size;
+
+    // True while the ring holds the whole timeline rather than just its head
+    private boolean complete;
+
+    public TimelineRing(int capacity) {
+        this.postIds = new long[capacity];
+        this.authorIds = new long[capacity];
+        this.createdAtMicros = new long[capacity];
+        this.complete = true;
+    }
+
+    /**
+     * Builds a ring from the newest entries of a timeline.
+     * @param newestFirst entries as returned by the timeline range scan
+     * @param capacity number of entries the ring can hold
+     */
+    public static TimelineRing of(List<TimelineEntry> newestFirst, int capacity) {
+        TimelineRing ring = new TimelineRing(capacity);
+        int count = Math.min(newestFirst.size(), capacity);
+        for (int i = 0; i < count; i++) {
+            TimelineEntry entry = newestFirst.get(i);
+            ring.postIds[i] = entry.getPostId();
+            ring.authorIds[i] = entry.getAuthorId();
+            ring.createdAtMicros[i] = toMicros(entry.getCreatedAt());
+        }
+        ring.size = count;
+        ring.complete = newestFirst.size() < capacity;
+        return ring;
+    }
+
+    public synchronized void add(long postId, long authorId, LocalDateTime createdAt) {
+        long micros = toMicros(createdAt);
+
+        int position = 0;
+        while (position < size && isNewer(createdAtMicros[position], postIds[position], micros, postId)) {
+            position++;
+        }
+        if (position < size && postIds[position] == postId) {
+            return;
+        }
+
+        if (size == postIds.length) {
+            // Full: the oldest entry falls off, so the ring is only a head from now on
+            complete = false;
+            if (position == size) {
+                return;
+            }
+            size--;
+        }
+
+        System.arraycopy(postIds, position, postIds, position + 1, size - position);
+        System.arraycopy(authorIds, position, authorIds, position + 1, size - position);
+        System.arraycopy(createdAtMicros, position, createdAtMicros, position + 1, size - position);
+        postIds[position] = postId;
+        authorIds[position] = authorId;
+        createdAtMicros[position] = micros;
+        size++;
+    }
+
+    public synchronized void removeAuthor(long authorId) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (authorIds[i] != authorId) {
+                postIds[kept] = postIds[i];
+                authorIds[kept] = authorIds[i];
+                createdAtMicros[kept] = createdAtMicros[i];
+                kept++;
+            }
+        }
+        size = kept;
+    }
+
+    public synchronized void remove(long postId) {
+        for (int i = 0; i < size; i++) {
+            if (postIds[i] == postId) {
+                System.arraycopy(postIds, i + 1, postIds, i, size - i - 1);
+                System.arraycopy(authorIds, i + 1, authorIds, i, size - i - 1);
+                System.arraycopy(createdAtMicros, i + 1, createdAtMicros, i, size - i - 1);
+                size--;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param before exclusive upper bound as (createdAt, postId), or null for the
+     *               newest entries
+     * @return up to {@code limit} entries older than the bound, or null when the
+     *         ring does not hold enough of the timeline to answer
+     */
+    public synchronized List<TimelineEntry> page(LocalDateTime beforeCreatedAt, Long beforePostId, int limit) {
+        int start = 0;
+        if (beforeCreatedAt != null) {
+            long beforeMicros = toMicros(beforeCreatedAt);
+            while (start < size && !isNewer(beforeMicros, beforePostId, createdAtMicros[start], postIds[start])) {
+                start++;
+            }
+        }
+
+        int available = size - start;
+        if (available < limit && !complete) {
+            return null;
+        }
+
+        int count = Math.min(available, limit);
+        List<TimelineEntry> entries = new ArrayList<>(count);
+        for (int i = start; i < start + count; i++) {
+            entries.add(TimelineEntry.builder()
+                    .postId(postIds[i])
+                    .authorId(authorIds[i])
+                    .createdAt(fromMicros(createdAtMicros[i]))
+                    .build());
+        }
+        return entries;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private static boolean isNewer(long micros, long postId, long otherMicros, long otherPostId) {
+        return micros > otherMicros || (micros == otherMicros && postId > otherPostId);
+    }
+
+    private static long toMicros(LocalDateTime dateTime) {
+        LocalDateTime truncated = dateTime.truncatedTo(ChronoUnit.MICROS);
+        return truncated.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + truncated.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,366 @@
+package com.example.social_media_app.util;
+
+import com.example.social_media_app.util.PostIndex.LongLongMap;
+import com.example.social_media_app.util.PostIndex.PostingList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * People typeahead over full name, username and email, ranked the way the
+ * relevance query ranks them: exact full name, exact username, full name
+ * prefix, username prefix, then anything containing the query.
+ *
+ * The first four tiers are ranges of two sorted maps, walked in key order so
+ * a search stops as soon as it has enough users. Substring matches come from
+ * trigram posting lists (the same block-encoded lists as {@link PostIndex})
+ * intersected in ascending id order and checked against the stored strings.
+ *
+ * Not thread-safe; callers guard it with a read-write lock.
+ */
+public class UserIndex {
+
+    private static final long[] EMPTY = new long[0];
+
+    // Normalized fields by slot; freed slots have id -1
+    private long[] ids = new long[16];
+    private String[] names = new String[16];
+    private String[] usernames = new String[16];
+    private String[] emails = new String[16];
+    private int slots;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private final LongLongMap slotOf = new LongLongMap();
+
+    // Normalized full name / username -> one user id (Long) or several (sorted long[])
+    private final NavigableMap<String, Object> byName = new TreeMap<>();
+    private final NavigableMap<String, Object> byUsername = new TreeMap<>();
+
+    private final Map<String, PostingList> trigrams = new HashMap<>();
+
+    // Adds the user or updates their names; false if nothing searchable changed
+    public boolean put(long userId, String firstName, String lastName, String username, String email) {
+        String name = TextTokenizer.normalize(firstName + " " + lastName);
+        String user = TextTokenizer.normalize(username);
+        String mail = TextTokenizer.normalize(email);
+
+        int slot = (int) slotOf.get(userId);
+        Set<String> oldTrigrams = Set.of();
+        if (slot >= 0) {
+            if (names[slot].equals(name) && usernames[slot].equals(user) && emails[slot].equals(mail)) {
+                return false;
+            }
+            oldTrigrams = trigramsOf(names[slot], usernames[slot], emails[slot]);
+            removeKey(byName, names[slot], userId);
+            removeKey(byUsername, usernames[slot], userId);
+        } else {
+            slot = allocate(userId);
+        }
+        names[slot] = name;
+        usernames[slot] = user;
+        emails[slot] = mail;
+        addKey(byName, name, userId);
+        addKey(byUsername, user, userId);
+
+        // Only the lists whose membership changed are touched; rewriting a
+        // large list for an old id is the expensive part of an update
+        Set<String> newTrigrams = trigramsOf(name, user, mail);
+        for (String trigram : oldTrigrams) {
+            if (!newTrigrams.contains(trigram)) {
+                removePosting(trigram, userId);
+            }
+        }
+        for (String trigram : newTrigrams) {
+            if (!oldTrigrams.contains(trigram)) {
+                trigrams.computeIfAbsent(trigram, t -> new PostingList()).add(userId);
+            }
+        }
+        return true;
+    }
+
+    public boolean remove(long userId) {
+        int slot = (int) slotOf.get(userId);
+        if (slot < 0) {
+            return false;
+        }
+        for (String trigram : trigramsOf(names[slot], usernames[slot], emails[slot])) {
+            removePosting(trigram, userId);
+        }
+        removeKey(byName, names[slot], userId);
+        removeKey(byUsername, usernames[slot], userId);
+        slotOf.remove(userId);
+        ids[slot] = -1;
+        names[slot] = null;
+        usernames[slot] = null;
+        emails[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        return true;
+    }
+
+    /**
+     * Up to limit user ids matching the query, best tier first; within the
+     * prefix tiers alphabetically, within the substring tier by id (in
+     * registration order for one- and two-character queries). The excluded
+     * user (the one searching) is never returned.
+     */
+    public long[] search(String query, long excludedId, int limit) {
+        String q = TextTokenizer.normalize(query).trim();
+        if (q.isEmpty() || limit <= 0) {
+            return EMPTY;
+        }
+        Results results = new Results(excludedId, limit);
+        if (takeAll(results, byName.get(q))
+                || takeAll(results, byUsername.get(q))
+                || takePrefix(results, byName, q)
+                || takePrefix(results, byUsername, q)) {
+            return results.ids();
+        }
+        if (q.length() < 3) {
+            scan(results, q);
+        } else {
+            intersect(results, q);
+        }
+        return results.ids();
+    }
+
+    public int userCount() {
+        return slotOf.size();
+    }
+
+    public int trigramCount() {
+        return trigrams.size();
+    }
+
+    // Approximate heap held by the index
+    public long sizeInBytes() {
+        long bytes = slotOf.sizeInBytes() + ids.length * 36L + freeSlots.length * 4L;
+        for (int slot = 0; slot < slots; slot++) {
+            if (ids[slot] >= 0) {
+                // String headers, shared by the slot arrays and the two maps
+                bytes += 3 * 40L + names[slot].length() + usernames[slot].length() + emails[slot].length();
+            }
+        }
+        bytes += (byName.size() + byUsername.size()) * 40L;
+        for (PostingList list : trigrams.values()) {
+            bytes += 100 + list.bytes();
+        }
+        return bytes;
+    }
+
+    private boolean takeAll(Results results, Object entry) {
+        if (entry instanceof Long id) {
+            return results.take(id);
+        }
+        if (entry instanceof long[] several) {
+            for (long id : several) {
+                if (results.take(id)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean takePrefix(Results results, NavigableMap<String, Object> keys, String prefix) {
+        for (Map.Entry<String, Object> entry : keys.tailMap(prefix, true).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                return false;
+            }
+            if (takeAll(results, entry.getValue())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // One or two characters: too short for trigrams, but match so many users
+    // that a scan fills the page within a few slots
+    private void scan(Results results, String q) {
+        for (int slot = 0; slot < slots; slot++) {
+            if (ids[slot] >= 0 && contains(slot, q) && results.take(ids[slot])) {
+                return;
+            }
+        }
+    }
+
+    // Walks the rarest trigram's list and probes the others; a user in every
+    // list can still have the trigrams spread over different fields, so the
+    // survivors are checked against the strings
+    private void intersect(Results results, String q) {
+        List<PostingList> lists = new ArrayList<>();
+        for (String trigram : trigramsOf(q)) {
+            PostingList list = trigrams.get(trigram);
+            if (list == null) {
+                return;
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(PostingList::count));
+
+        PostingList driver = lists.get(0);
+        Probe[] probes = new Probe[lists.size() - 1];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = new Probe(lists.get(i + 1));
+        }
+        long[] block = new long[PostingList.BLOCK];
+        for (int b = 0; b < driver.blocks(); b++) {
+            int n = driver.decodeBlock(b, block);
+            next:
+            for (int i = 0; i < n; i++) {
+                long id = block[i];
+                for (Probe probe : probes) {
+                    if (!probe.contains(id)) {
+                        continue next;
+                    }
+                }
+                if (contains((int) slotOf.get(id), q) && results.take(id)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private boolean contains(int slot, String q) {
+        return names[slot].contains(q) || usernames[slot].contains(q) || emails[slot].contains(q);
+    }
+
+    private int allocate(long userId) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (slots == ids.length) {
+                int capacity = slots * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                names = Arrays.copyOf(names, capacity);
+                usernames = Arrays.copyOf(usernames, capacity);
+                emails = Arrays.copyOf(emails, capacity);
+            }
+            slot = slots++;
+        }
+        ids[slot] = userId;
+        slotOf.put(userId, slot);
+        return slot;
+    }
+
+    private void removePosting(String trigram, long userId) {
+        PostingList list = trigrams.get(trigram);
+        if (list != null) {
+            list.remove(userId);
+            if (list.count() == 0) {
+                trigrams.remove(trigram);
+            }
+        }
+    }
+
+    private static Set<String> trigramsOf(String... fields) {
+        Set<String> found = new HashSet<>();
+        for (String field : fields) {
+            for (int i = 0; i + 3 <= field.length(); i++) {
+                found.add(field.substring(i, i + 3));
+            }
+        }
+        return found;
+    }
+
+    private static void addKey(NavigableMap<String, Object> keys, String key, long userId) {
+        keys.merge(key, userId, (existing, added) -> {
+            long[] ids = existing instanceof Long id ? new long[] { id } : (long[]) existing;
+            int at = Arrays.binarySearch(ids, userId);
+            if (at >= 0) {
+                return ids.length == 1 ? ids[0] : ids;
+            }
+            long[] grown = new long[ids.length + 1];
+            int insertAt = -at - 1;
+            System.arraycopy(ids, 0, grown, 0, insertAt);
+            grown[insertAt] = userId;
+            System.arraycopy(ids, insertAt, grown, insertAt + 1, ids.length - insertAt);
+            return grown;
+        });
+    }
+
+    private static void removeKey(NavigableMap<String, Object> keys, String key, long userId) {
+        keys.computeIfPresent(key, (k, existing) -> {
+            if (existing instanceof Long id) {
+                return id == userId ? null : id;
+            }
+            long[] ids = (long[]) existing;
+            int at = Arrays.binarySearch(ids, userId);
+            if (at < 0) {
+                return ids;
+            }
+            if (ids.length == 2) {
+                return ids[1 - at];
+            }
+            long[] shrunk = new long[ids.length - 1];
+            System.arraycopy(ids, 0, shrunk, 0, at);
+            System.arraycopy(ids, at + 1, shrunk, at, ids.length - at - 1);
+            return shrunk;
+        });
+    }
+
+    // Membership test on a posting list for ids asked in ascending order; the
+    // last decoded block is kept, so a walk decodes each block at most once
+    private static final class Probe {
+        private final PostingList list;
+        private final long[] block = new long[PostingList.BLOCK];
+        private int blockIndex = -1;
+        private int n;
+
+        private Probe(PostingList list) {
+            this.list = list;
+        }
+
+        boolean contains(long id) {
+            int b = list.blockOf(id);
+            if (b < 0) {
+                return false;
+            }
+            if (b != blockIndex) {
+                n = list.decodeBlock(b, block);
+                blockIndex = b;
+            }
+            return Arrays.binarySearch(block, 0, n, id) >= 0;
+        }
+    }
+
+    // The page being filled; a user matched by an earlier tier is not repeated
+    private static final class Results {
+        private final long excludedId;
+        private final long[] ids;
+        private int size;
+
+        private Results(long excludedId, int limit) {
+            this.excludedId = excludedId;
+            this.ids = new long[limit];
+        }
+
+        // Adds the user unless excluded or already present; true once full
+        boolean take(long id) {
+            if (id != excludedId) {
+                for (int i = 0; i < size; i++) {
+                    if (ids[i] == id) {
+                        return false;
+                    }
+                }
+                ids[size++] = id;
+            }
+            return size == ids.length;
+        }
+
+        long[] ids() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
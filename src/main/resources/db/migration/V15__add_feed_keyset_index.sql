@@ -0,0 +1,2 @@
+-- Support keyset pagination of the feed on (created_at, id) per author
+CREATE INDEX IF NOT EXISTS idx_posts_user_created_id ON posts (user_id, created_at DESC, id DESC);
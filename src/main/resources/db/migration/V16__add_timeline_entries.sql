@@ -0,0 +1,43 @@
+-- Materialized per-user feed timelines (fan-out on write)
+CREATE TABLE IF NOT EXISTS timeline_entries (
+    id BIGSERIAL PRIMARY KEY,
+    owner_id BIGINT NOT NULL,
+    post_id BIGINT NOT NULL,
+    author_id BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    CONSTRAINT uk_timeline_entries_owner_post UNIQUE (owner_id, post_id),
+    CONSTRAINT fk_timeline_entries_owner
+        FOREIGN KEY (owner_id) REFERENCES users(id)
+        ON DELETE CASCADE,
+    CONSTRAINT fk_timeline_entries_post
+        FOREIGN KEY (post_id) REFERENCES posts(id)
+        ON DELETE CASCADE
+);
+
+-- Feed reads are a range scan over this index
+CREATE INDEX IF NOT EXISTS idx_timeline_entries_owner_created
+    ON timeline_entries (owner_id, created_at DESC, post_id DESC);
+
+-- Used to purge an author's posts from a timeline on unfriend
+CREATE INDEX IF NOT EXISTS idx_timeline_entries_owner_author
+    ON timeline_entries (owner_id, author_id);
+
+-- Backfill existing feeds: own posts plus friends' posts, newest 800 per user
+INSERT INTO timeline_entries (owner_id, post_id, author_id, created_at)
+SELECT owner_id, post_id, author_id, created_at
+FROM (
+    SELECT candidates.*,
+           ROW_NUMBER() OVER (PARTITION BY owner_id ORDER BY created_at DESC, post_id DESC) AS rn
+    FROM (
+        SELECT p.user_id AS owner_id, p.id AS post_id, p.user_id AS author_id, p.created_at
+        FROM posts p
+        UNION
+        SELECT CASE WHEN f.user1_id = p.user_id THEN f.user2_id ELSE f.user1_id END,
+               p.id, p.user_id, p.created_at
+        FROM posts p
+        JOIN friendships f ON f.user1_id = p.user_id OR f.user2_id = p.user_id
+    ) candidates
+    WHERE created_at IS NOT NULL
+) ranked
+WHERE rn <= 800
+ON CONFLICT (owner_id, post_id) DO NOTHING;
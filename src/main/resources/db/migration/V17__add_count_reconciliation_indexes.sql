@@ -0,0 +1,5 @@
+-- Let the counter reconciler find recently touched posts without full scans
+CREATE INDEX IF NOT EXISTS idx_posts_updated_at ON posts (updated_at);
+CREATE INDEX IF NOT EXISTS idx_likes_created_at ON likes (created_at);
+CREATE INDEX IF NOT EXISTS idx_comments_created_at ON comments (created_at);
+CREATE INDEX IF NOT EXISTS idx_shares_created_at ON shares (created_at);
@@ -0,0 +1,6 @@
+-- Likes are written with INSERT ... ON CONFLICT (post_id, user_id), which needs
+-- a unique index on exactly those columns
+DELETE FROM likes a USING likes b
+WHERE a.post_id = b.post_id AND a.user_id = b.user_id AND a.id > b.id;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_likes_post_user ON likes (post_id, user_id);
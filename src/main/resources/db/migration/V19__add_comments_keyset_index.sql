@@ -0,0 +1,2 @@
+-- Support keyset pagination of a post's comments on (created_at, id)
+CREATE INDEX IF NOT EXISTS idx_comments_post_created_id ON comments (post_id, created_at, id);
@@ -0,0 +1,31 @@
+-- Threaded comment replies stored as materialized paths. The path of a comment
+-- is the zero-padded ids of its ancestors and itself joined by dots, so a
+-- subtree is a prefix range and sorting by path yields depth-first order.
+-- reply_count is the number of descendants, kept up to date by the writers.
+ALTER TABLE comments ADD COLUMN IF NOT EXISTS parent_id BIGINT;
+ALTER TABLE comments ADD COLUMN IF NOT EXISTS root_id BIGINT;
+ALTER TABLE comments ADD COLUMN IF NOT EXISTS path VARCHAR(512) COLLATE "C";
+ALTER TABLE comments ADD COLUMN IF NOT EXISTS depth INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE comments ADD COLUMN IF NOT EXISTS reply_count INTEGER NOT NULL DEFAULT 0;
+
+-- Every existing comment becomes a top-level thread
+UPDATE comments SET root_id = id, path = LPAD(id::text, 19, '0') WHERE path IS NULL;
+
+DO $$
+BEGIN
+    IF NOT EXISTS (
+        SELECT 1 FROM information_schema.table_constraints
+        WHERE constraint_name = 'fk_comments_parent'
+        AND table_name = 'comments'
+    ) THEN
+        ALTER TABLE comments ADD CONSTRAINT fk_comments_parent
+            FOREIGN KEY (parent_id) REFERENCES comments(id) ON DELETE CASCADE;
+    END IF;
+END $$;
+
+-- Top-level threads of a post are paged on (created_at, id)
+CREATE INDEX IF NOT EXISTS idx_comments_post_top_level
+    ON comments (post_id, created_at, id) WHERE parent_id IS NULL;
+
+-- Replies of a thread, and any subtree within it, are a range of this index
+CREATE INDEX IF NOT EXISTS idx_comments_root_path ON comments (root_id, path);
@@ -0,0 +1,37 @@
+-- Store every friendship once, as an ordered pair (user1_id < user2_id), so a
+-- pair lookup is a single seek on the unique index instead of an OR of two
+-- probes, and neighbour scans use one index per direction.
+
+-- A user cannot be their own friend
+DELETE FROM friendships WHERE user1_id = user2_id;
+
+-- Put every pair in canonical order (the right-hand sides see the old values)
+UPDATE friendships SET user1_id = user2_id, user2_id = user1_id WHERE user1_id > user2_id;
+
+-- The same pair may have been stored once in each direction; keep the oldest row
+DELETE FROM friendships a USING friendships b
+WHERE a.user1_id = b.user1_id AND a.user2_id = b.user2_id AND a.id > b.id;
+
+DO $$
+BEGIN
+    IF NOT EXISTS (
+        SELECT 1 FROM information_schema.table_constraints
+        WHERE constraint_name = 'chk_friendships_ordered'
+        AND table_name = 'friendships'
+    ) THEN
+        ALTER TABLE friendships ADD CONSTRAINT chk_friendships_ordered CHECK (user1_id < user2_id);
+    END IF;
+END $$;
+
+-- Pair lookups and friends with a higher id: Index Only Scan on user1_id = ?
+CREATE UNIQUE INDEX IF NOT EXISTS uk_friendships_pair ON friendships (user1_id, user2_id);
+
+-- Friends with a lower id: Index Only Scan on user2_id = ?
+CREATE INDEX IF NOT EXISTS idx_friendships_user2_user1 ON friendships (user2_id, user1_id);
+
+-- Symmetric adjacency: one row per direction. A filter on user_id is pushed
+-- into both branches of the UNION ALL, giving an Append of the two index scans
+CREATE OR REPLACE VIEW friend_edges AS
+SELECT user1_id AS user_id, user2_id AS friend_id, created_at FROM friendships
+UNION ALL
+SELECT user2_id AS user_id, user1_id AS friend_id, created_at FROM friendships;
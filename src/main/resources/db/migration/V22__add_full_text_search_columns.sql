@@ -0,0 +1,17 @@
+-- Full-text search backend (app.search.backend=postgres): tsvector columns kept
+-- current by the database and GIN indexes, so a websearch_to_tsquery match is a
+-- Bitmap Index Scan instead of a LIKE over every row.
+
+-- Post text is stemmed ("peppers" finds "pepper"); queries must use the same
+-- 'english' configuration for the index to apply
+ALTER TABLE posts ADD COLUMN IF NOT EXISTS content_tsv tsvector
+    GENERATED ALWAYS AS (to_tsvector('english', coalesce(content, ''))) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_posts_content_tsv ON posts USING GIN (content_tsv);
+
+-- Names are not words: 'simple' only lowercases them
+ALTER TABLE users ADD COLUMN IF NOT EXISTS name_tsv tsvector
+    GENERATED ALWAYS AS (to_tsvector('simple',
+        coalesce(first_name, '') || ' ' || coalesce(last_name, '') || ' ' || coalesce(username, ''))) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_users_name_tsv ON users USING GIN (name_tsv);
@@ -0,0 +1,210 @@
+package com.example.social_media_app.service.impl;
+
+import com.example.social_media_app.model.Comment;
+import com.example.social_media_app.model.Post;
+import com.example.social_media_app.model.User;
+import com.example.social_media_app.repository.CommentRepository;
+import com.example.social_media_app.repository.PostRepository;
+import com.example.social_media_app.repository.UserRepository;
+import com.example.social_media_app.service.CommentService;
+import com.example.social_media_app.support.H2JpaTest;
+import com.example.social_media_app.support.TestData;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Many users commenting on one post at once, each deleting every third comment
+ * they wrote. Every call commits its own transaction. The unit run checks
+ * that the atomic counter update stays exact; its throughput against the
+ * previous recount-and-save of the whole post is measured with -Pbenchmark.
+ */
+@Slf4j
+@H2JpaTest
+@Import(CommentServiceImpl.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CommentCountConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int COMMENTS_PER_THREAD = 60;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<User> commenters = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < THREADS; i++) {
+            commenters.add(userRepository.save(TestData.newUser("First" + i, "Last" + i, "commenter" + i).build()));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        commentRepository.deleteAll();
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void parallelCommentersKeepTheCounterExact() throws Exception {
+        int commentsPerThread = COMMENTS_PER_THREAD / 4;
+        Result atomic = run(new AtomicCounter(), commentsPerThread);
+
+        assertEquals(0, atomic.failures);
+        assertEquals(atomic.actual, atomic.stored);
+        assertEquals(THREADS * (commentsPerThread - commentsPerThread / 3), atomic.actual);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void atomicIncrementAgainstRecountAndSave() throws Exception {
+        // Warm-up so the JIT does not favour whichever variant runs second
+        run(new AtomicCounter(), COMMENTS_PER_THREAD / 10);
+        run(new RecountAndSave(), COMMENTS_PER_THREAD / 10);
+
+        long ops = (long) THREADS * COMMENTS_PER_THREAD;
+        log.info(String.format("%-22s %10s %10s %10s %10s", "variant", "writes/s", "stored", "actual", "failed"));
+        Result atomic = run(new AtomicCounter(), COMMENTS_PER_THREAD);
+        log.info(String.format("%-22s %,10d %,10d %,10d %,10d", "atomic increment",
+                ops * 1_000_000_000L / atomic.elapsedNanos, atomic.stored, atomic.actual, atomic.failures));
+        Result recount = run(new RecountAndSave(), COMMENTS_PER_THREAD);
+        log.info(String.format("%-22s %,10d %,10d %,10d %,10d", "recount and save",
+                ops * 1_000_000_000L / recount.elapsedNanos, recount.stored, recount.actual, recount.failures));
+
+        assertEquals(0, atomic.failures);
+        assertEquals(atomic.actual, atomic.stored);
+    }
+
+    private Result run(CommentWriter writer, int commentsPerThread) throws Exception {
+        Post post = postRepository.save(Post.builder()
+                .content("hot post")
+                .user(commenters.get(0))
+                .build());
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        AtomicInteger failures = new AtomicInteger();
+        for (User commenter : commenters) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < commentsPerThread; i++) {
+                        Comment comment = writer.add(Comment.builder()
+                                .content("comment " + i)
+                                .post(post)
+                                .user(commenter)
+                                .build());
+                        if (i % 3 == 2) {
+                            writer.delete(comment);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    // Lock timeouts and the like; the writes of this thread stop here
+                    failures.incrementAndGet();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        assertTrue(done.await(2, TimeUnit.MINUTES));
+        long elapsed = System.nanoTime() - startedAt;
+        pool.shutdown();
+
+        Post stored = postRepository.findById(post.getId()).orElseThrow();
+        return new Result(elapsed, stored.getCommentCount(), commentRepository.countByPost(stored), failures.get());
+    }
+
+    private interface CommentWriter {
+        Comment add(Comment comment);
+
+        void delete(Comment comment);
+    }
+
+    private class AtomicCounter implements CommentWriter {
+        @Override
+        public Comment add(Comment comment) {
+            return commentService.save(comment);
+        }
+
+        @Override
+        public void delete(Comment comment) {
+            commentService.deleteComment(comment);
+        }
+    }
+
+    // What CommentServiceImpl did before: recount after every write and store the
+    // absolute count. The old code saved the whole post entity; a plain update of
+    // the column has the same race without the cost of merging the entity graph
+    private class RecountAndSave implements CommentWriter {
+        private final TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        @Override
+        public Comment add(Comment comment) {
+            return transaction.execute(status -> {
+                Comment saved = commentRepository.save(comment);
+                storeRecount(comment.getPost());
+                return saved;
+            });
+        }
+
+        @Override
+        public void delete(Comment comment) {
+            transaction.executeWithoutResult(status -> {
+                commentRepository.delete(comment);
+                storeRecount(comment.getPost());
+            });
+        }
+
+        private void storeRecount(Post post) {
+            commentRepository.flush();
+            int count = commentRepository.countByPost(post);
+            jdbcTemplate.update("UPDATE posts SET comment_count = ? WHERE id = ?", count, post.getId());
+        }
+    }
+
+    private record Result(long elapsedNanos, long stored, long actual, int failures) {
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.social_media_app.service.impl;
+
+import com.example.social_media_app.dto.CommentDto;
+import com.example.social_media_app.dto.CommentPageDto;
+import com.example.social_media_app.dto.CommentThreadDto;
+import com.example.social_media_app.model.Comment;
+import com.example.social_media_app.model.Post;
+import com.example.social_media_app.model.User;
+import com.example.social_media_app.repository.PostRepository;
+import com.example.social_media_app.service.CommentService;
+import com.example.social_media_app.support.H2JpaTest;
+import com.example.social_media_app.support.TestData;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Threads are read with a fixed number of statements however many top-level
+ * comments and replies they hold, and reply counters follow every write.
+ */
+@H2JpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(CommentServiceImpl.class)
+class CommentThreadsTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TestData data;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    private User user;
+    private Post post;
+
+    // Top-level comments in creation order
+    private final List<Comment> threads = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        user = data.user("First", "Last", "threads");
+        post = data.post(user, "post");
+
+        // Thread i has i direct replies, each with one nested reply
+        for (int i = 0; i < 8; i++) {
+            Comment thread = comment(null, "thread " + i);
+            threads.add(thread);
+            for (int j = 0; j < i; j++) {
+                Comment reply = comment(thread.getId(), "reply " + i + "." + j);
+                comment(reply.getId(), "nested " + i + "." + j);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void pageOfThreadsUsesTwoStatements() {
+        Statistics statistics = statistics();
+
+        CommentPageDto page = commentService.getCommentPage(post.getId(), null, 5);
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(5, page.comments().size());
+        for (int i = 0; i < 5; i++) {
+            CommentThreadDto thread = page.comments().get(i);
+            assertEquals("thread " + i, thread.comment().content());
+            assertEquals(2 * i, thread.comment().replyCount());
+            assertEquals(Math.min(3, 2 * i), thread.replies().size());
+        }
+
+        // Replies come depth-first: each reply is followed by its nested reply
+        List<CommentDto> replies = page.comments().get(4).replies();
+        assertEquals("reply 4.0", replies.get(0).content());
+        assertEquals("nested 4.0", replies.get(1).content());
+        assertEquals(2, replies.get(1).depth());
+        assertEquals("reply 4.1", replies.get(2).content());
+        assertTrue(page.comments().get(4).hasMoreReplies());
+    }
+
+    @Test
+    void wholeSubtreeUsesTwoStatements() {
+        Statistics statistics = statistics();
+
+        List<CommentDto> replies = commentService.getReplies(threads.get(7).getId()).orElseThrow();
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(14, replies.size());
+        for (int j = 0; j < 7; j++) {
+            assertEquals("reply 7." + j, replies.get(2 * j).content());
+            assertEquals("nested 7." + j, replies.get(2 * j + 1).content());
+        }
+    }
+
+    @Test
+    void deletingAReplyRemovesItsSubtreeFromEveryCounter() {
+        Comment thread = threads.get(3);
+        CommentDto reply = commentService.getReplies(thread.getId()).orElseThrow().get(0);
+        entityManager.clear();
+
+        commentService.deleteComment(entityManager.find(Comment.class, reply.id()));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(4, commentService.getReplies(thread.getId()).orElseThrow().size());
+        assertEquals(4, commentService.getCommentPage(post.getId(), null, 10).comments().get(3).comment().replyCount());
+        int total = 8 + 2 * (0 + 1 + 2 + 3 + 4 + 5 + 6 + 7);
+        assertEquals(total - 2, postRepository.findById(post.getId()).orElseThrow().getCommentCount());
+    }
+
+    private Comment comment(Long parentId, String content) {
+        return commentService.save(Comment.builder()
+                .content(content)
+                .post(post)
+                .user(user)
+                .parentId(parentId)
+                .build());
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.social_media_app.service.impl;
+
+import com.example.social_media_app.model.Post;
+import com.example.social_media_app.model.User;
+import com.example.social_media_app.repository.PostRepository;
+import com.example.social_media_app.repository.UserRepository;
+import com.example.social_media_app.support.PostgresJpaTest;
+import com.example.social_media_app.support.TestData;
+import com.example.social_media_app.support.TestPostgres;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The reconciler against real PostgreSQL, with committed data: drifted counters
+ * are repaired, an increment committing during the recount is kept, and posts
+ * changed after a run are found by the next one.
+ */
+@PostgresJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ CountReconciliationServiceImpl.class, LikeCounterServiceImpl.class, SimpleMeterRegistry.class })
+class CountReconciliationServiceImplTest {
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        TestPostgres.register(registry, "count_reconciliation_test");
+    }
+
+    @Autowired
+    private CountReconciliationServiceImpl reconciliationService;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void driftedCountersAreRecounted() {
+        User author = user();
+        Post post = post(author, 5);
+        comment(post, author);
+        comment(post, author);
+
+        reconciliationService.reconcile();
+
+        assertEquals(2, commentCount(post));
+    }
+
+    @Test
+    void anIncrementCommittedDuringTheRecountIsKept() throws Exception {
+        User author = user();
+        Post post = post(author, 0);
+        comment(post, author);
+        comment(post, author);
+
+        // A third comment whose transaction holds the post row while the
+        // reconciler starts; it must wait and then count all three
+        try (Connection writer = dataSource.getConnection()) {
+            writer.setAutoCommit(false);
+            try (PreparedStatement insert = writer.prepareStatement(
+                    "INSERT INTO comments (content, post_id, user_id, depth, reply_count, created_at) " +
+                            "VALUES ('late', ?, ?, 0, 0, now())");
+                    PreparedStatement increment = writer.prepareStatement(
+                            "UPDATE posts SET comment_count = comment_count + 1, updated_at = now() WHERE id = ?")) {
+                insert.setLong(1, post.getId());
+                insert.setLong(2, author.getId());
+                insert.executeUpdate();
+                increment.setLong(1, post.getId());
+                increment.executeUpdate();
+            }
+
+            CompletableFuture<Integer> run = CompletableFuture.supplyAsync(reconciliationService::reconcile);
+            awaitLockWait();
+            writer.commit();
+            run.get(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals(3, commentCount(post));
+    }
+
+    @Test
+    void shareCountChangesArePickedUpByTheNextRun() {
+        User author = user();
+        Post post = post(author, 0);
+        reconciliationService.reconcile();
+
+        // A share counted without its row: the relative update stamps updated_at
+        // with the database clock, so the next run looks at the post again
+        transactionTemplate.executeWithoutResult(status -> postRepository.addToShareCount(post.getId(), 1));
+        assertEquals(1, shareCount(post));
+
+        reconciliationService.reconcile();
+
+        assertEquals(0, shareCount(post));
+    }
+
+    private void awaitLockWait() throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            Integer waiting = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM pg_stat_activity WHERE wait_event_type = 'Lock'", Integer.class);
+            if (waiting != null && waiting > 0) {
+                return;
+            }
+            Thread.sleep(25);
+        }
+        throw new AssertionError("The reconciler never waited for the writer's row lock");
+    }
+
+    private int shareCount(Post post) {
+        return jdbcTemplate.queryForObject(
+                "SELECT share_count FROM posts WHERE id = ?", Integer.class, post.getId());
+    }
+
+    private int commentCount(Post post) {
+        return jdbcTemplate.queryForObject(
+                "SELECT comment_count FROM posts WHERE id = ?", Integer.class, post.getId());
+    }
+
+    private void comment(Post post, User author) {
+        jdbcTemplate.update("INSERT INTO comments (content, post_id, user_id, depth, reply_count, created_at) " +
+                "VALUES ('hi', ?, ?, 0, 0, now())", post.getId(), author.getId());
+    }
+
+    private Post post(User author, int storedCommentCount) {
+        return postRepository.save(TestData.newPost(author, "Counted").commentCount(storedCommentCount).build());
+    }
+
+    private User user() {
+        String username = "u" + UUID.randomUUID().toString().substring(0, 8);
+        return userRepository.save(TestData.newUser("Count", "Test", username).build());
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.social_media_app.service.impl;
+
+import com.example.social_media_app.dto.CommentDto;
+import com.example.social_media_app.dto.FeedItemDto;
+import com.example.social_media_app.model.Comment;
+import com.example.social_media_app.model.Post;
+import com.example.social_media_app.model.PostMedia;
+import com.example.social_media_app.model.User;
+import com.example.social_media_app.repository.CommentRepository;
+import com.example.social_media_app.repository.PostMediaRepository;
+import com.example.social_media_app.repository.PostRepository;
+import com.example.social_media_app.repository.UserRepository;
+import com.example.social_media_app.service.LikeCounterService;
+import com.example.social_media_app.support.H2JpaTest;
+import com.example.social_media_app.support.TestData;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * The feed read model must be built with a fixed number of statements however
+ * many posts, authors, media files, shares and comments the page holds.
+ */
+@H2JpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class FeedItemServiceImplTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TestData data;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostMediaRepository postMediaRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    private FeedItemServiceImpl feedItemService;
+
+    private final List<Long> feedPostIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        feedItemService = new FeedItemServiceImpl(postRepository, userRepository, postMediaRepository,
+                new NoPendingLikes(), new CommentServiceImpl(commentRepository, postRepository), 2);
+
+        List<User> authors = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            authors.add(data.user("First" + i, "Last" + i, "user" + i));
+        }
+
+        // Originals that only show up in the feed through shares
+        List<Post> originals = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Post original = entityManager.persist(Post.builder()
+                    .content("original " + i)
+                    .user(authors.get(i))
+                    .build());
+            addMedia(original, 2);
+            originals.add(original);
+        }
+
+        for (int i = 0; i < 30; i++) {
+            User author = authors.get(i % authors.size());
+            Post post = Post.builder()
+                    .content("post " + i)
+                    .user(author)
+                    .build();
+            if (i % 5 == 0) {
+                post.setIsSharedPost(true);
+                post.setSharedPost(originals.get(i % originals.size()));
+            }
+            post = entityManager.persist(post);
+            addMedia(post, i % 3);
+            addComments(post, authors, i % 4);
+            feedPostIds.add(post.getId());
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void smallPageUsesFiveStatements() {
+        assertStatementCount(feedPostIds.subList(0, 5), 5);
+    }
+
+    @Test
+    void fullPageUsesFiveStatements() {
+        assertStatementCount(feedPostIds, 5);
+    }
+
+    @Test
+    void itemsKeepRequestedOrderAndCarryTheirAssociations() {
+        List<Long> ids = new ArrayList<>(feedPostIds.subList(0, 10));
+        ids.add(-1L);
+        List<FeedItemDto> items = feedItemService.findFeedItems(ids.reversed());
+
+        assertEquals(10, items.size());
+        for (int i = 0; i < items.size(); i++) {
+            FeedItemDto item = items.get(i);
+            int index = 9 - i;
+            assertEquals(feedPostIds.get(index), item.id());
+            assertNotNull(item.author());
+            assertEquals(index % 3, item.media().size());
+            assertLatestComments(item.latestComments(), index % 4);
+            if (index % 5 == 0) {
+                assertNotNull(item.sharedPost());
+                assertNotNull(item.sharedPost().author());
+                assertEquals(2, item.sharedPost().media().size());
+            } else {
+                assertNull(item.sharedPost());
+            }
+        }
+    }
+
+    private void assertStatementCount(List<Long> ids, long expected) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<FeedItemDto> items = feedItemService.findFeedItems(ids);
+
+        assertEquals(ids.size(), items.size());
+        assertEquals(expected, statistics.getPrepareStatementCount());
+    }
+
+    // Newest two comments, oldest first
+    private void assertLatestComments(List<CommentDto> comments, int total) {
+        assertEquals(Math.min(2, total), comments.size());
+        for (int i = 0; i < comments.size(); i++) {
+            assertEquals("comment " + (total - comments.size() + i), comments.get(i).content());
+            assertNotNull(comments.get(i).author());
+        }
+    }
+
+    private static class NoPendingLikes implements LikeCounterService {
+        @Override
+        public void add(Long postId, int delta) {
+        }
+
+        @Override
+        public long pendingDelta(Long postId) {
+            return 0;
+        }
+
+        @Override
+        public int flush() {
+            return 0;
+        }
+    }
+
+    private void addMedia(Post post, int count) {
+        for (int i = 0; i < count; i++) {
+            entityManager.persist(PostMedia.builder()
+                    .post(post)
+                    .fileName("file" + i + ".jpg")
+                    .filePath("/uploads/posts/file" + i + ".jpg")
+                    .fileType("image")
+                    .mimeType("image/jpeg")
+                    .uploadOrder(i)
+                    .build());
+        }
+    }
+
+    private void addComments(Post post, List<User> authors, int count) {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 12, 0);
+        for (int i = 0; i < count; i++) {
+            entityManager.persist(Comment.builder()
+                    .content("comment " + i)
+                    .post(post)
+                    .user(authors.get(i % authors.size()))
+                    .createdAt(createdAt.plusMinutes(i))
+                    .updatedAt(createdAt.plusMinutes(i))
+                    .build());
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.social_media_app.service.impl;
+
+import com.example.social_media_app.dto.FriendStatsDto;
+import com.example.social_media_app.event.FriendshipChangedEvent;
+import com.example.social_media_app.model.FriendRequest;
+import com.example.social_media_app.model.User;
+import com.example.social_media_app.service.SocialGraphService;
+import com.example.social_media_app.support.H2JpaTest;
+import com.example.social_media_app.support.TestData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Friend stats are served from memory after the first read, follow friendship
+ * changes without a query, and drift is repaired by the reconciliation pass.
+ */
+@H2JpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({ FriendStatsServiceImpl.class, SocialGraphServiceImpl.class, SimpleMeterRegistry.class })
+// Counters cached by one test would be recounted against the rows the next one
+// sees
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class FriendStatsServiceImplTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TestData data;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private SocialGraphService socialGraphService;
+
+    @Autowired
+    private FriendStatsServiceImpl friendStatsService;
+
+    private User user;
+    private User friend;
+    private User other;
+
+    @BeforeEach
+    void setUp() {
+        user = data.user("user");
+        friend = data.user("friend");
+        other = data.user("other");
+        data.friends(user, friend);
+        request(user, other);
+        request(friend, user);
+        entityManager.flush();
+        socialGraphService.reload();
+    }
+
+    @Test
+    void servedFromMemoryAfterFirstRead() {
+        Statistics statistics = statistics();
+        assertEquals(new FriendStatsDto(1, 1, 1), friendStatsService.getStats(user.getId()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        assertEquals(new FriendStatsDto(1, 1, 1), friendStatsService.getStats(user.getId()));
+        friendStatsService.onFriendshipChanged(new FriendshipChangedEvent(user.getId(), other.getId(), true));
+        assertEquals(new FriendStatsDto(2, 1, 1), friendStatsService.getStats(user.getId()));
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void reconciliationRepairsDrift() {
+        friendStatsService.getStats(user.getId());
+        friendStatsService.getStats(other.getId());
+
+        // Written behind the service's back
+        request(other, friend);
+        entityManager.flush();
+
+        assertEquals(1, friendStatsService.reconcile());
+        assertEquals(new FriendStatsDto(0, 1, 1), friendStatsService.getStats(other.getId()));
+        assertEquals(new FriendStatsDto(1, 1, 1), friendStatsService.getStats(user.getId()));
+        assertEquals(0, friendStatsService.reconcile());
+    }
+
+    private void request(User sender, User receiver) {
+        entityManager.persist(FriendRequest.builder()
+                .sender(sender)
+                .receiver(receiver)
+                .status(FriendRequest.FriendRequestStatus.PENDING)
+                .build());
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.social_media_app.service.impl;
+
+import com.example.social_media_app.dto.FriendSuggestionDto;
+import com.example.social_media_app.event.FriendshipChangedEvent;
+import com.example.social_media_app.model.FriendRequest;
+import com.example.social_media_app.model.User;
+import com.example.social_media_app.service.FriendSuggestionService;
+import com.example.social_media_app.service.SocialGraphService;
+import com.example.social_media_app.support.H2JpaTest;
+import com.example.social_media_app.support.TestData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Ranking of friends of friends on the in-memory graph: mutual friends first,
+ * shared profile fields next, users with a pending request left out, other
+ * users appended when there are not enough candidates.
+ */
+@H2JpaTest
+@Import({ FriendSuggestionServiceImpl.class, SocialGraphServiceImpl.class, SimpleMeterRegistry.class })
+class FriendSuggestionServiceImplTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TestData data;
+
+    @Autowired
+    private SocialGraphService socialGraphService;
+
+    @Autowired
+    private FriendSuggestionService friendSuggestionService;
+
+    @Autowired
+    private FriendSuggestionServiceImpl friendSuggestionListener;
+
+    private User viewer;
+    private User threeMutual;
+    private User twoMutualSameCity;
+    private User twoMutual;
+    private User stranger;
+
+    @BeforeEach
+    void setUp() {
+        viewer = user("viewer", "Lyon");
+        List<User> friends = List.of(user("friend1", null), user("friend2", null), user("friend3", null));
+        twoMutual = user("twomutual", "Paris");
+        twoMutualSameCity = user("twomutualsamecity", " lyon ");
+        threeMutual = user("threemutual", null);
+        User requested = user("requested", "Lyon");
+        stranger = user("stranger", null);
+
+        for (User friend : friends) {
+            data.friends(viewer, friend);
+            data.friends(friend, threeMutual);
+        }
+        data.friends(friends.get(0), twoMutual);
+        data.friends(friends.get(1), twoMutual);
+        data.friends(friends.get(0), twoMutualSameCity);
+        data.friends(friends.get(1), twoMutualSameCity);
+        data.friends(friends.get(2), requested);
+        entityManager.persist(FriendRequest.builder()
+                .sender(viewer)
+                .receiver(requested)
+                .status(FriendRequest.FriendRequestStatus.PENDING)
+                .build());
+        entityManager.flush();
+
+        socialGraphService.reload();
+    }
+
+    @Test
+    void ranksByMutualFriendsThenSharedFields() {
+        List<FriendSuggestionDto> suggestions = friendSuggestionService.getSuggestions(viewer.getId(), 10);
+
+        assertEquals(List.of(threeMutual.getId(), twoMutualSameCity.getId(), twoMutual.getId(), stranger.getId()),
+                suggestions.stream().map(FriendSuggestionDto::id).toList());
+        assertEquals(List.of(3, 2, 2, 0), suggestions.stream().map(FriendSuggestionDto::mutualFriends).toList());
+        assertEquals(2, friendSuggestionService.getSuggestions(viewer.getId(), 2).size());
+    }
+
+    @Test
+    void friendOfAFriendGainingAFriendInvalidatesTheViewer() {
+        friendSuggestionService.getSuggestions(viewer.getId(), 10);
+
+        // The stranger becomes a friend of a friend
+        User friend = entityManager.find(User.class, socialGraphService.getFriendIds(viewer.getId()).get(0));
+        data.friends(friend, stranger);
+        entityManager.flush();
+        socialGraphService.reload();
+        friendSuggestionListener.onFriendshipChanged(new FriendshipChangedEvent(friend.getId(), stranger.getId(), true));
+
+        List<FriendSuggestionDto> suggestions = friendSuggestionService.getSuggestions(viewer.getId(), 10);
+        assertEquals(stranger.getId(), suggestions.get(3).id());
+        assertEquals(1, suggestions.get(3).mutualFriends());
+    }
+
+    private User user(String username, String city) {
+        return data.user(TestData.newUser(username, "Last", username).city(city));
+    }
+}
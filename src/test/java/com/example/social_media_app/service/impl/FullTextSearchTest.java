@@ -0,0 +1,133 @@
+package com.example.social_media_app.service.impl;
+
+import com.example.social_media_app.model.Post;
+import com.example.social_media_app.model.User;
+import com.example.social_media_app.support.PostgresJpaTest;
+import com.example.social_media_app.support.TestData;
+import com.example.social_media_app.support.TestPostgres;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The PostgreSQL full-text backend on a real server: stemmed post matches
+ * ranked by ts_rank within the viewer's feed, websearch syntax, the last word
+ * matched as a prefix while it is being typed, and people search on names.
+ * The friend_edges view (V21) and the generated tsvector columns (V22) are
+ * applied on top of the schema created from the entities, inside each test's
+ * rolled-back transaction.
+ */
+@PostgresJpaTest
+@TestPropertySource(properties = "app.search.backend=postgres")
+@Sql(scripts = {
+        "classpath:db/migration/V21__canonical_friendship_pairs.sql",
+        "classpath:db/migration/V22__add_full_text_search_columns.sql"
+}, config = @SqlConfig(separator = ScriptUtils.EOF_STATEMENT_SEPARATOR))
+@Import({ PostSearchServiceImpl.class, UserSearchServiceImpl.class, SocialGraphServiceImpl.class,
+        LikeCounterServiceImpl.class, SimpleMeterRegistry.class })
+class FullTextSearchTest {
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        TestPostgres.register(registry, "full_text_search_test");
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TestData data;
+
+    @Autowired
+    private PostSearchServiceImpl postSearchService;
+
+    @Autowired
+    private UserSearchServiceImpl userSearchService;
+
+    private User viewer;
+    private User friend;
+    private User stranger;
+
+    @BeforeEach
+    void setUp() {
+        viewer = data.user("Sam", "Viewer", "sam.viewer");
+        friend = data.user("Rosa", "Garden", "rosa");
+        stranger = data.user("Sam", "Stranger", "stranger");
+        data.friends(viewer, friend);
+    }
+
+    @Test
+    void postsMatchStemmedWordsInTheFeedBestRankFirst() {
+        LocalDateTime now = LocalDateTime.now();
+        Post focused = data.post(friend, "Peppers, more peppers, stuffed peppers", now.minusDays(1));
+        Post passing = data.post(viewer, "Dinner was rice, beans, salad, bread and a stuffed pepper", now);
+        data.post(stranger, "Pepper season at the market", now);
+        data.post(friend, "Nothing to do with it", now);
+        entityManager.flush();
+
+        assertEquals(List.of(focused.getId(), passing.getId()),
+                ids(postSearchService.searchFeed(viewer.getId(), "pepper", 10)));
+        assertEquals(List.of(focused.getId()), ids(postSearchService.searchFeed(viewer.getId(), "pepper", 1)));
+        assertEquals(3, postSearchService.searchAll("peppers", 10).size());
+        // The friend sees the viewer's post through the other direction of the pair
+        assertEquals(List.of(passing.getId()), ids(postSearchService.searchFeed(friend.getId(), "rice", 10)));
+    }
+
+    @Test
+    void equalRanksAreNewestFirst() {
+        LocalDateTime now = LocalDateTime.now();
+        Post older = data.post(friend, "Tomato soup", now.minusDays(2));
+        Post newer = data.post(viewer, "Tomato soup", now.minusDays(1));
+        entityManager.flush();
+
+        assertEquals(List.of(newer.getId(), older.getId()),
+                ids(postSearchService.searchFeed(viewer.getId(), "tomato soup", 10)));
+    }
+
+    @Test
+    void postQueriesUseWebSearchSyntaxAndPrefixTheLastWord() {
+        Post soup = data.post(friend, "Tomato soup for lunch");
+        Post salad = data.post(friend, "Tomato salad with basil");
+        entityManager.flush();
+
+        assertEquals(List.of(soup.getId()), ids(postSearchService.searchAll("tomato -basil", 10)));
+        assertEquals(List.of(salad.getId()), ids(postSearchService.searchAll("\"salad with basil\"", 10)));
+        assertEquals(List.of(), postSearchService.searchAll("\"basil salad\"", 10));
+        assertEquals(List.of(salad.getId()), ids(postSearchService.searchAll("tomato sal", 10)));
+        assertEquals(List.of(soup.getId()), ids(postSearchService.searchFeed(viewer.getId(), "lun", 10)));
+    }
+
+    @Test
+    void peopleMatchOnNamesAsTheyAreTypedAndLeaveOutTheSearchingUser() {
+        entityManager.flush();
+
+        Page<User> page = userSearchService.search(viewer.getId(), "sam", PageRequest.of(0, 10));
+        assertEquals(List.of(stranger.getId()), page.getContent().stream().map(User::getId).toList());
+        assertEquals(1, page.getTotalElements());
+        for (String typed : List.of("r", "ro", "Rosa Gar", "Rosa Garden", "gard")) {
+            assertEquals(List.of(friend.getId()),
+                    userSearchService.suggest(viewer.getId(), typed, 5).stream().map(User::getId).toList(), typed);
+        }
+        assertEquals(List.of(), userSearchService.suggest(viewer.getId(), "Rosa -Garden", 5));
+    }
+
+    private List<Long> ids(List<Post> posts) {
+        return posts.stream().map(Post::getId).toList();
+    }
+}
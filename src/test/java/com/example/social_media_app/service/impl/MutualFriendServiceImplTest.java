@@ -0,0 +1,109 @@
+package com.example.social_media_app.service.impl;
+
+import com.example.social_media_app.dto.MutualCountRow;
+import com.example.social_media_app.event.FriendshipChangedEvent;
+import com.example.social_media_app.model.User;
+import com.example.social_media_app.repository.FriendshipRepository;
+import com.example.social_media_app.service.MutualFriendService;
+import com.example.social_media_app.service.SocialGraphService;
+import com.example.social_media_app.support.H2JpaTest;
+import com.example.social_media_app.support.TestData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Batch mutual friend counts agree between the grouped query used before the
+ * graph is loaded and the graph itself, and a friendship change drops exactly
+ * the memoized counts it moves.
+ */
+@H2JpaTest
+@Import({ MutualFriendServiceImpl.class, SocialGraphServiceImpl.class, SimpleMeterRegistry.class })
+class MutualFriendServiceImplTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TestData data;
+
+    @Autowired
+    private FriendshipRepository friendshipRepository;
+
+    @Autowired
+    private SocialGraphService socialGraphService;
+
+    @Autowired
+    private MutualFriendService mutualFriendService;
+
+    @Autowired
+    private MutualFriendServiceImpl mutualFriendListener;
+
+    private final List<User> users = new ArrayList<>();
+
+    // User i is friends with every user j > i where j is a multiple of i
+    @BeforeEach
+    void setUp() {
+        for (int i = 1; i <= 12; i++) {
+            users.add(data.user("user" + i));
+        }
+        for (int i = 1; i <= 12; i++) {
+            for (int j = 2 * i; j <= 12; j += i) {
+                data.friends(user(i), user(j));
+            }
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    void databaseAndGraphAgree() {
+        socialGraphService.reload();
+        List<Long> candidates = users.stream().map(User::getId).toList();
+        for (User viewer : users) {
+            Map<Long, Integer> counts = mutualFriendService.getMutualFriendCounts(viewer.getId(), candidates);
+
+            Map<Long, Integer> fromDatabase = new HashMap<>();
+            candidates.forEach(candidate -> fromDatabase.put(candidate, 0));
+            for (MutualCountRow row : friendshipRepository.countMutualFriends(viewer.getId(), candidates)) {
+                fromDatabase.put(row.userId(), row.mutualFriends().intValue());
+            }
+            assertEquals(fromDatabase, counts);
+        }
+        // 6 and 4 share 1, 2 and 12
+        assertEquals(3, mutualFriendService.getMutualFriendCounts(user(6).getId(), List.of(user(4).getId()))
+                .get(user(4).getId()));
+    }
+
+    @Test
+    void friendshipChangeDropsTheCountsItMoves() {
+        socialGraphService.reload();
+        User viewer = user(5);
+        List<Long> candidates = List.of(user(7).getId(), user(11).getId());
+        // 5, 7 and 11 only share user 1
+        assertEquals(Map.of(user(7).getId(), 1, user(11).getId(), 1),
+                mutualFriendService.getMutualFriendCounts(viewer.getId(), candidates));
+
+        // 7 befriends 10, a friend of 5
+        data.friends(user(7), user(10));
+        entityManager.flush();
+        socialGraphService.reload();
+        mutualFriendListener.onFriendshipChanged(new FriendshipChangedEvent(user(7).getId(), user(10).getId(), true));
+
+        assertEquals(Map.of(user(7).getId(), 2, user(11).getId(), 1),
+                mutualFriendService.getMutualFriendCounts(viewer.getId(), candidates));
+    }
+
+    private User user(int number) {
+        return users.get(number - 1);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.social_media_app.service.impl;
+
+import com.example.social_media_app.model.Post;
+import com.example.social_media_app.model.User;
+import com.example.social_media_app.support.H2JpaTest;
+import com.example.social_media_app.support.TestData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Relevance order of post search: term frequency and length (BM25), then
+ * recency, then engagement, each deciding between otherwise equal posts.
+ */
+@H2JpaTest
+@Import({ PostSearchServiceImpl.class, SocialGraphServiceImpl.class, LikeCounterServiceImpl.class,
+        SimpleMeterRegistry.class })
+class PostSearchRankingTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TestData data;
+
+    @Autowired
+    private PostSearchServiceImpl postSearchService;
+
+    private User author;
+
+    @BeforeEach
+    void setUp() {
+        author = data.user("Author", "Last", "author");
+    }
+
+    @Test
+    void moreOccurrencesInShorterTextRankFirst() {
+        Post focused = post("Tomato soup, tomato salad", 1, 0);
+        Post passing = post("Dinner tonight: soup, bread, cheese, a salad and one tomato", 1, 0);
+        Post newerButPassing = post("Lunch was bread and cheese with a tomato on the side", 0, 0);
+        reload();
+
+        assertEquals(List.of(focused.getId(), newerButPassing.getId(), passing.getId()),
+                ids(postSearchService.searchAll("tomato", 10)));
+        assertEquals(List.of(focused.getId()), ids(postSearchService.searchAll("tomato", 1)));
+    }
+
+    @Test
+    void newerPostsRankFirstWhenTheTextIsAlike() {
+        Post lastMonth = post("Fresh basil from the garden", 30, 0);
+        Post today = post("Fresh basil from the garden", 0, 0);
+        Post lastWeek = post("Fresh basil from the garden", 7, 0);
+        reload();
+
+        assertEquals(List.of(today.getId(), lastWeek.getId(), lastMonth.getId()),
+                ids(postSearchService.searchFeed(author.getId(), "basil", 10)));
+    }
+
+    @Test
+    void engagementBreaksTiesBetweenEquallyRelevantPosts() {
+        Post quiet = post("Stuffed peppers recipe", 1, 0);
+        Post popular = post("Stuffed peppers recipe", 1, 40);
+        reload();
+
+        assertEquals(List.of(popular.getId(), quiet.getId()), ids(postSearchService.searchAll("pepp", 10)));
+    }
+
+    private void reload() {
+        entityManager.flush();
+        postSearchService.reload();
+    }
+
+    private List<Long> ids(List<Post> posts) {
+        return posts.stream().map(Post::getId).toList();
+    }
+
+    // Creation time is set on insert, so older posts are backdated afterwards
+    private Post post(String content, int daysAgo, int likes) {
+        return data.post(TestData.newPost(author, content).likeCount(likes),
+                LocalDateTime.now().minusDays(daysAgo).minusMinutes(1));
+    }
+}
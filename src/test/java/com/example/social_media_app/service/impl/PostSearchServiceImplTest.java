@@ -0,0 +1,96 @@
+package com.example.social_media_app.service.impl;
+
+import com.example.social_media_app.model.Post;
+import com.example.social_media_app.model.User;
+import com.example.social_media_app.repository.PostRepository;
+import com.example.social_media_app.service.SocialGraphService;
+import com.example.social_media_app.support.H2JpaTest;
+import com.example.social_media_app.support.TestData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Post search from the index returns what the LIKE query it replaces returned
+ * for whole words, restricted to the viewer and their friends, newest first,
+ * and matches the last word as a prefix.
+ */
+@H2JpaTest
+@TestPropertySource(properties = "app.post-search.order=recent")
+@Import({ PostSearchServiceImpl.class, SocialGraphServiceImpl.class, LikeCounterServiceImpl.class,
+        SimpleMeterRegistry.class })
+class PostSearchServiceImplTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TestData data;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private SocialGraphService socialGraphService;
+
+    @Autowired
+    private PostSearchServiceImpl postSearchService;
+
+    private User viewer;
+    private Post ownPost;
+    private Post friendPost;
+    private Post olderFriendPost;
+
+    @BeforeEach
+    void setUp() {
+        viewer = data.user("viewer");
+        User friend = data.user("friend");
+        User stranger = data.user("stranger");
+        data.friends(viewer, friend);
+
+        LocalDateTime now = LocalDateTime.now();
+        olderFriendPost = data.post(friend, "Hiking the Alps this weekend", now.minusDays(2));
+        ownPost = data.post(viewer, "Best hiking boots? Asking for the Alps", now.minusDays(1));
+        friendPost = data.post(friend, "Café au lait and hiking maps", now);
+        data.post(stranger, "Hiking in the Alps, anyone?", now);
+        entityManager.flush();
+    }
+
+    @Test
+    void indexAgreesWithTheDatabaseForWholeWords() {
+        List<Post> fromDatabase = postRepository.searchPostsInFeed(viewer.getId(), "alps");
+        socialGraphService.reload();
+        postSearchService.reload();
+
+        List<Post> fromIndex = postSearchService.searchFeed(viewer.getId(), "alps", 10);
+        assertEquals(List.of(ownPost.getId(), olderFriendPost.getId()), ids(fromIndex));
+        assertEquals(ids(fromDatabase), ids(fromIndex));
+    }
+
+    @Test
+    void lastWordIsAPrefixAndAccentsAreIgnored() {
+        socialGraphService.reload();
+        postSearchService.reload();
+
+        assertEquals(List.of(friendPost.getId(), ownPost.getId(), olderFriendPost.getId()),
+                ids(postSearchService.searchFeed(viewer.getId(), "hik", 10)));
+        assertEquals(List.of(ownPost.getId(), olderFriendPost.getId()),
+                ids(postSearchService.searchFeed(viewer.getId(), "hiking al", 10)));
+        assertEquals(List.of(friendPost.getId()), ids(postSearchService.searchFeed(viewer.getId(), "CAFE", 10)));
+        assertEquals(List.of(friendPost.getId()), ids(postSearchService.searchFeed(viewer.getId(), "hiking", 1)));
+        assertEquals(4, postSearchService.searchAll("hiking", 10).size());
+    }
+
+    private List<Long> ids(List<Post> posts) {
+        return posts.stream().map(Post::getId).toList();
+    }
+}
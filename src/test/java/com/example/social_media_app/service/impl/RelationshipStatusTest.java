@@ -0,0 +1,131 @@
+package com.example.social_media_app.service.impl;
+
+import com.example.social_media_app.dto.RelationshipStatusDto;
+import com.example.social_media_app.model.FriendRequest;
+import com.example.social_media_app.model.User;
+import com.example.social_media_app.repository.FriendRequestRepository;
+import com.example.social_media_app.repository.FriendshipRepository;
+import com.example.social_media_app.repository.UserRepository;
+import com.example.social_media_app.support.H2JpaTest;
+import com.example.social_media_app.support.TestData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Relationship status of a page of 20 user cards costs two statements, or one
+ * once the friendship graph is in memory.
+ */
+@H2JpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class RelationshipStatusTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TestData data;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private FriendRequestRepository friendRequestRepository;
+
+    @Autowired
+    private FriendshipRepository friendshipRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private SocialGraphServiceImpl socialGraphService;
+    private FriendRequestServiceImpl friendRequestService;
+
+    private User viewer;
+    private final List<Long> cardIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        socialGraphService = new SocialGraphServiceImpl(friendshipRepository, jdbcTemplate, transactionTemplate,
+                new SimpleMeterRegistry(), 3, 50_000);
+        // Suggestions, stats and events are not used by the lookups under test
+        friendRequestService = new FriendRequestServiceImpl(friendRequestRepository, friendshipRepository,
+                userRepository, socialGraphService, null, null, event -> { });
+
+        viewer = data.user("viewer");
+        for (int i = 0; i < 20; i++) {
+            User other = data.user("card" + i);
+            cardIds.add(other.getId());
+            switch (i % 4) {
+                case 0 -> data.friends(viewer, other);
+                case 1 -> request(viewer, other, FriendRequest.FriendRequestStatus.PENDING);
+                case 2 -> request(other, viewer, FriendRequest.FriendRequestStatus.PENDING);
+                default -> request(other, viewer, FriendRequest.FriendRequestStatus.DECLINED);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void twoStatementsWithoutTheGraph() {
+        Statistics statistics = statistics();
+
+        Map<Long, RelationshipStatusDto> statuses = friendRequestService.getRelationshipStatuses(viewer.getId(), cardIds);
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertStatuses(statuses);
+    }
+
+    @Test
+    void oneStatementWithTheGraph() {
+        socialGraphService.reload();
+        Statistics statistics = statistics();
+
+        Map<Long, RelationshipStatusDto> statuses = friendRequestService.getRelationshipStatuses(viewer.getId(), cardIds);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertStatuses(statuses);
+    }
+
+    private void assertStatuses(Map<Long, RelationshipStatusDto> statuses) {
+        assertEquals(20, statuses.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(new RelationshipStatusDto(i % 4 == 0, i % 4 == 1, i % 4 == 2), statuses.get(cardIds.get(i)));
+        }
+    }
+
+    private void request(User sender, User receiver, FriendRequest.FriendRequestStatus status) {
+        entityManager.persist(FriendRequest.builder()
+                .sender(sender)
+                .receiver(receiver)
+                .status(status)
+                .build());
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.social_media_app.service.impl;
+
+import com.example.social_media_app.dto.AuthorSummaryDto;
+import com.example.social_media_app.dto.PostSuggestionDto;
+import com.example.social_media_app.dto.SearchSuggestionsDto;
+import com.example.social_media_app.event.PostPublishedEvent;
+import com.example.social_media_app.event.UserProfileChangedEvent;
+import com.example.social_media_app.model.Post;
+import com.example.social_media_app.model.User;
+import com.example.social_media_app.support.H2JpaTest;
+import com.example.social_media_app.support.TestData;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Suggestions served from the per-viewer cache, exactly or narrowed from a
+ * shorter query, are the ones a direct lookup returns; writes drop what they
+ * make stale.
+ */
+@H2JpaTest
+@TestPropertySource(properties = "app.post-search.order=recent")
+@Import({ SearchSuggestionServiceImpl.class, UserSearchServiceImpl.class, PostSearchServiceImpl.class,
+        SocialGraphServiceImpl.class, LikeCounterServiceImpl.class, SimpleMeterRegistry.class })
+class SearchSuggestionServiceImplTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TestData data;
+
+    @Autowired
+    private SearchSuggestionServiceImpl searchSuggestionService;
+
+    @Autowired
+    private UserSearchServiceImpl userSearchService;
+
+    @Autowired
+    private PostSearchServiceImpl postSearchService;
+
+    @Autowired
+    private SocialGraphServiceImpl socialGraphService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private User viewer;
+    private User friend;
+
+    @BeforeEach
+    void setUp() {
+        viewer = data.user("Viewer", "One", "viewer");
+        friend = data.user("Sam", "Friend", "samf");
+        data.user("Samantha", "Stone", "sstone");
+        data.user("Rosa", "Samuels", "rosa");
+        data.user("Bob", "Stone", "samwise");
+        data.friends(viewer, friend);
+
+        LocalDateTime now = LocalDateTime.now();
+        data.post(friend, "Salad for lunch", now.minusDays(2));
+        data.post(viewer, "Salmon tonight", now.minusDays(1));
+        data.post(friend, "Salsa class was fun", now);
+        entityManager.flush();
+        socialGraphService.reload();
+        userSearchService.reload();
+        postSearchService.reload();
+    }
+
+    @Test
+    void longerQueriesAreNarrowedFromACompleteShorterAnswer() {
+        searchSuggestionService.suggest(viewer.getId(), "sa", 5, 3);
+        double misses = count("users", "miss");
+        double userPrefixHits = count("users", "prefix");
+        double postPrefixHits = count("posts", "prefix");
+
+        for (String query : List.of("sam", "samu", "Sal", "salm", "sals ")) {
+            assertEquals(direct(query), searchSuggestionService.suggest(viewer.getId(), query, 5, 3), query);
+        }
+        assertEquals(misses, count("users", "miss"));
+        assertEquals(userPrefixHits + 5, count("users", "prefix"));
+        assertEquals(postPrefixHits + 5, count("posts", "prefix"));
+    }
+
+    @Test
+    void repeatedQueriesAreHitsAndCountTheTimeSaved() {
+        double hits = count("users", "hit");
+        SearchSuggestionsDto first = searchSuggestionService.suggest(viewer.getId(), "stone", 5, 3);
+        SearchSuggestionsDto again = searchSuggestionService.suggest(viewer.getId(), "  STONE", 5, 3);
+
+        assertEquals(first, again);
+        assertEquals(2, first.users().size());
+        assertEquals(hits + 1, count("users", "hit"));
+        assertTrue(meterRegistry.get("search.suggestions.cache.hit.ratio").gauge().value() > 0);
+        assertTrue(meterRegistry.get("search.suggestions.cache.saved").tag("part", "users")
+                .functionCounter().count() > 0);
+    }
+
+    @Test
+    void writesDropTheAnswersTheyMakeStale() {
+        searchSuggestionService.suggest(viewer.getId(), "sa", 5, 3);
+
+        // A new user now matching "sa": not served from the cached answer
+        User newcomer = data.user("Sasha", "New", "sasha");
+        entityManager.flush();
+        userSearchService.reload();
+        searchSuggestionService.onUserProfileChanged(new UserProfileChangedEvent(newcomer.getId(),
+                newcomer.getFirstName(), newcomer.getLastName(), newcomer.getUsername(), newcomer.getEmail()));
+        assertEquals(direct("sas"), searchSuggestionService.suggest(viewer.getId(), "sas", 5, 3));
+        assertEquals(List.of(newcomer.getId()),
+                searchSuggestionService.suggest(viewer.getId(), "sas", 5, 3).users().stream()
+                        .map(AuthorSummaryDto::id).toList());
+
+        // A friend's new post drops the viewer's cache
+        searchSuggestionService.suggest(viewer.getId(), "sal", 5, 3);
+        Post post = data.post(friend, "Salt and pepper", LocalDateTime.now().plusMinutes(1));
+        entityManager.flush();
+        postSearchService.reload();
+        searchSuggestionService.onPostPublished(new PostPublishedEvent(post.getId(), friend.getId(),
+                post.getCreatedAt()));
+        assertEquals(post.getId(), searchSuggestionService.suggest(viewer.getId(), "sal", 5, 3).posts().get(0).id());
+    }
+
+    private double count(String part, String result) {
+        return meterRegistry.get("search.suggestions.cache").tag("part", part).tag("result", result).counter().count();
+    }
+
+    // What the search services return without the cache
+    private SearchSuggestionsDto direct(String query) {
+        List<AuthorSummaryDto> users = userSearchService.suggest(viewer.getId(), query, 5).stream()
+                .map(SearchSuggestionServiceImplTest::summary)
+                .toList();
+        List<PostSuggestionDto> posts = postSearchService.searchFeed(viewer.getId(), query, 3).stream()
+                .map(post -> new PostSuggestionDto(post.getId(), post.getContent(), summary(post.getUser())))
+                .toList();
+        return new SearchSuggestionsDto(users, posts);
+    }
+
+    private static AuthorSummaryDto summary(User user) {
+        return new AuthorSummaryDto(user.getId(), user.getFirstName(), user.getLastName(), user.getUsername(),
+                user.getProfilePicture());
+    }
+
+}
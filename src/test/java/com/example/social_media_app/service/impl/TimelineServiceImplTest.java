@@ -0,0 +1,111 @@
+package com.example.social_media_app.service.impl;
+
+import com.example.social_media_app.dto.PageCursor;
+import com.example.social_media_app.event.PostDeletedEvent;
+import com.example.social_media_app.model.Post;
+import com.example.social_media_app.model.TimelineEntry;
+import com.example.social_media_app.model.User;
+import com.example.social_media_app.support.PostgresJpaTest;
+import com.example.social_media_app.support.TestData;
+import com.example.social_media_app.support.TestPostgres;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Timelines against real PostgreSQL with committed data, so the fan-out and
+ * the in-memory rings see each post only once its transaction commits.
+ */
+@PostgresJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Sql(scripts = "classpath:db/migration/V21__canonical_friendship_pairs.sql",
+        config = @SqlConfig(separator = ScriptUtils.EOF_STATEMENT_SEPARATOR))
+@Import({ TimelineServiceImpl.class, SocialGraphServiceImpl.class, SimpleMeterRegistry.class })
+class TimelineServiceImplTest {
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        TestPostgres.register(registry, "timeline_test");
+    }
+
+    @Autowired
+    private TimelineServiceImpl timelineService;
+
+    @Autowired
+    private SocialGraphServiceImpl socialGraphService;
+
+    @Autowired
+    private TestData data;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Test
+    void aDeletedPostLeavesTheResidentTimelines() {
+        User author = transactionTemplate.execute(status -> data.user("author"));
+        User friend = transactionTemplate.execute(status -> data.user("friend"));
+        transactionTemplate.executeWithoutResult(status -> data.friends(author, friend));
+        socialGraphService.reload();
+
+        LocalDateTime start = LocalDateTime.now().minusHours(1);
+        List<Long> newestFirst = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            int minute = i;
+            Post post = transactionTemplate.execute(status -> {
+                Post saved = data.post(author, "Post " + minute, start.plusMinutes(minute));
+                timelineService.publish(saved);
+                return saved;
+            });
+            newestFirst.add(0, post.getId());
+        }
+
+        // Both heads are resident before the delete
+        assertEquals(newestFirst.subList(0, 3), postIds(timelineService.getTimelinePage(friend.getId(), null, 3)));
+        assertEquals(newestFirst.subList(0, 3), postIds(timelineService.getTimelinePage(author.getId(), null, 3)));
+
+        Long deleted = newestFirst.remove(0);
+        transactionTemplate.executeWithoutResult(status -> {
+            // The migration's ON DELETE CASCADE, which the schema built from the
+            // entities lacks
+            jdbcTemplate.update("DELETE FROM timeline_entries WHERE post_id = ?", deleted);
+            jdbcTemplate.update("DELETE FROM posts WHERE id = ?", deleted);
+            eventPublisher.publishEvent(new PostDeletedEvent(deleted, author.getId()));
+        });
+
+        for (User owner : List.of(friend, author)) {
+            List<TimelineEntry> first = timelineService.getTimelinePage(owner.getId(), null, 3);
+            assertEquals(newestFirst.subList(0, 3), postIds(first));
+            TimelineEntry last = first.get(first.size() - 1);
+            List<TimelineEntry> second = timelineService.getTimelinePage(owner.getId(),
+                    new PageCursor(last.getCreatedAt(), last.getPostId()), 3);
+            assertEquals(newestFirst.subList(3, 5), postIds(second));
+        }
+    }
+
+    private static List<Long> postIds(List<TimelineEntry> entries) {
+        return entries.stream().map(TimelineEntry::getPostId).toList();
+    }
+}
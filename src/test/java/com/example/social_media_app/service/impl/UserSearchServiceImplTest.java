@@ -0,0 +1,83 @@
+package com.example.social_media_app.service.impl;
+
+import com.example.social_media_app.model.User;
+import com.example.social_media_app.repository.UserRepository;
+import com.example.social_media_app.support.H2JpaTest;
+import com.example.social_media_app.support.TestData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The typeahead ranks users the way the relevance query does, one tier after
+ * the other, and leaves out the user searching.
+ */
+@H2JpaTest
+@Import({ UserSearchServiceImpl.class, SimpleMeterRegistry.class })
+class UserSearchServiceImplTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TestData data;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserSearchServiceImpl userSearchService;
+
+    private User viewer;
+    private User exactName;
+    private User exactUsername;
+    private User namePrefix;
+    private User usernamePrefix;
+    private User substring;
+
+    @BeforeEach
+    void setUp() {
+        viewer = data.user("Sam", "Viewer", "sam.viewer");
+        substring = data.user("Rosa", "Samuels", "rosa.s");
+        usernamePrefix = data.user("Bob", "Stone", "samwise");
+        namePrefix = data.user("Sam", "Lee", "s.lee");
+        exactUsername = data.user("Zoe", "Park", "sam");
+        exactName = data.user("Sa", "M", "zoe.m");
+        data.user("Élodie", "Müller", "elodie");
+        data.user("Nobody", "Here", "nobody");
+        entityManager.flush();
+        userSearchService.reload();
+    }
+
+    @Test
+    void ranksLikeTheRelevanceQuery() {
+        List<Long> fromDatabase = ids(userRepository.searchUsersWithRelevance(viewer.getId(), "sa m"));
+        assertEquals(List.of(exactName.getId()), fromDatabase);
+        assertEquals(fromDatabase, ids(userSearchService.suggest(viewer.getId(), "sa m", 10)));
+
+        fromDatabase = ids(userRepository.searchUsersWithRelevance(viewer.getId(), "sam"));
+        List<Long> fromIndex = ids(userSearchService.suggest(viewer.getId(), "sam", 10));
+        assertEquals(List.of(exactUsername.getId(), namePrefix.getId(), usernamePrefix.getId(), substring.getId()),
+                fromIndex);
+        assertEquals(fromDatabase, fromIndex);
+    }
+
+    @Test
+    void limitsAndIgnoresCaseAndAccents() {
+        assertEquals(List.of(exactUsername.getId(), namePrefix.getId()),
+                ids(userSearchService.suggest(viewer.getId(), "  SAM ", 2)));
+        assertEquals(1, userSearchService.suggest(viewer.getId(), "muller", 10).size());
+        assertEquals(List.of(), userSearchService.suggest(viewer.getId(), "xyz", 10));
+    }
+
+    private List<Long> ids(List<User> users) {
+        return users.stream().map(User::getId).toList();
+    }
+}
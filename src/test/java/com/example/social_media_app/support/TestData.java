@@ -0,0 +1,83 @@
+package com.example.social_media_app.support;
+
+import com.example.social_media_app.model.Friendship;
+import com.example.social_media_app.model.Post;
+import com.example.social_media_app.model.User;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Users, posts and friendships for the JPA slice tests, persisted through the
+ * test's entity manager; imported by {@link H2JpaTest} and {@link PostgresJpaTest}. The builders fill in every required column, so a test
+ * only spells out what it is about.
+ */
+public class TestData {
+
+    private final TestEntityManager entityManager;
+
+    public TestData(TestEntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    public static User.UserBuilder newUser(String firstName, String lastName, String username) {
+        return User.builder()
+                .firstName(firstName)
+                .lastName(lastName)
+                .email(username + "@example.com")
+                .username(username)
+                .password("secret")
+                .dateOfBirth(LocalDate.of(1990, 1, 1))
+                .gender("other");
+    }
+
+    public static Post.PostBuilder newPost(User author, String content) {
+        return Post.builder()
+                .content(content)
+                .user(author)
+                .authorId(author.getId())
+                .likeCount(0)
+                .commentCount(0)
+                .shareCount(0);
+    }
+
+    public User user(String username) {
+        return user(newUser(username, "Last", username));
+    }
+
+    public User user(String firstName, String lastName, String username) {
+        return user(newUser(firstName, lastName, username));
+    }
+
+    public User user(User.UserBuilder user) {
+        return entityManager.persist(user.build());
+    }
+
+    public Post post(User author, String content) {
+        return post(newPost(author, content), LocalDateTime.now());
+    }
+
+    public Post post(User author, String content, LocalDateTime createdAt) {
+        return post(newPost(author, content), createdAt);
+    }
+
+    // Creation time is stamped on insert and author_id is never written by the
+    // mapping, so both are set on the row afterwards
+    public Post post(Post.PostBuilder post, LocalDateTime createdAt) {
+        Post saved = entityManager.persist(post.build());
+        entityManager.flush();
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE posts SET created_at = :createdAt, updated_at = :createdAt, " +
+                        "author_id = user_id WHERE id = :id")
+                .setParameter("createdAt", createdAt)
+                .setParameter("id", saved.getId())
+                .executeUpdate();
+        entityManager.refresh(saved);
+        return saved;
+    }
+
+    public Friendship friends(User a, User b) {
+        return entityManager.persist(Friendship.between(a, b));
+    }
+}
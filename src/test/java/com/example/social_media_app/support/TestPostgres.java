@@ -0,0 +1,62 @@
+package com.example.social_media_app.support;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * A real PostgreSQL server for the tests of native queries, started from the
+ * embedded binaries on first use and stopped with the JVM. Each test class asks
+ * for its own database, so the schemas they create never collide.
+ */
+public final class TestPostgres {
+
+    private static EmbeddedPostgres server;
+
+    private TestPostgres() {
+    }
+
+    // Points the test context at a fresh database named after the test class
+    public static void register(DynamicPropertyRegistry registry, String database) {
+        String url = jdbcUrl(database);
+        registry.add("spring.datasource.url", () -> url);
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    public static synchronized String jdbcUrl(String database) {
+        try {
+            if (server == null) {
+                server = EmbeddedPostgres.builder().start();
+                Runtime.getRuntime().addShutdownHook(new Thread(TestPostgres::stop));
+            }
+            try (Connection connection = server.getPostgresDatabase().getConnection();
+                    PreparedStatement exists = connection.prepareStatement(
+                            "SELECT 1 FROM pg_database WHERE datname = ?")) {
+                exists.setString(1, database);
+                try (ResultSet rs = exists.executeQuery(); Statement statement = connection.createStatement()) {
+                    if (!rs.next()) {
+                        statement.execute("CREATE DATABASE " + database);
+                    }
+                }
+            }
+            return server.getJdbcUrl("postgres", database);
+        } catch (IOException | SQLException e) {
+            throw new IllegalStateException("Could not start the test PostgreSQL server", e);
+        }
+    }
+
+    private static synchronized void stop() {
+        try {
+            server.close();
+        } catch (IOException ignored) {
+            // The JVM is exiting anyway
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.social_media_app.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Per-query latency of the bidirectional degree-of-separation search on a
+ * synthetic power-law graph (preferential attachment, 1M users, 5M
+ * friendships), for a few visited-user budgets, measured with -Pbenchmark.
+ * The unit run checks the search against a plain breadth-first search on a
+ * smaller graph.
+ */
+@Slf4j
+class DegreeOfSeparationBenchmarkTest {
+
+    private static final int USERS = 1_000_000;
+    private static final int LINKS_PER_USER = 5;
+    private static final int MAX_DEPTH = 3;
+    private static final int WARMUP = 5_000;
+    private static final int QUERIES = 20_000;
+
+    @Test
+    @Tag("benchmark")
+    void latencyOnPowerLawGraph() {
+        Random random = new Random(42);
+        SocialGraph graph = powerLaw(USERS, LINKS_PER_USER, random);
+        int maxDegree = 0;
+        for (long user = 1; user <= USERS; user++) {
+            maxDegree = Math.max(maxDegree, graph.degree(user));
+        }
+        log.info(String.format("%,d users, %,d friendships, max degree %,d",
+                graph.vertexCount(), graph.edgeCount(), maxDegree));
+
+        long[] from = random.longs(WARMUP + QUERIES, 1, USERS + 1).toArray();
+        long[] to = random.longs(WARMUP + QUERIES, 1, USERS + 1).toArray();
+
+        log.info(String.format("%-10s %10s %10s %10s %10s %8s %8s %8s %8s",
+                "budget", "p50 (us)", "p90 (us)", "p99 (us)", "max (us)", "1st", "2nd", "3rd", "none"));
+        for (int budget : new int[] { 10_000, 50_000, 200_000 }) {
+            for (int i = 0; i < WARMUP; i++) {
+                graph.distance(from[i], to[i], MAX_DEPTH, budget);
+            }
+            long[] nanos = new long[QUERIES];
+            int[] found = new int[MAX_DEPTH + 1];
+            int none = 0;
+            for (int i = 0; i < QUERIES; i++) {
+                long startedAt = System.nanoTime();
+                int distance = graph.distance(from[WARMUP + i], to[WARMUP + i], MAX_DEPTH, budget);
+                nanos[i] = System.nanoTime() - startedAt;
+                if (distance > 0) {
+                    found[distance]++;
+                } else {
+                    none++;
+                }
+            }
+            Arrays.sort(nanos);
+            log.info(String.format("%,-10d %,10d %,10d %,10d %,10d %8d %8d %8d %8d", budget,
+                    percentile(nanos, 50) / 1_000, percentile(nanos, 90) / 1_000,
+                    percentile(nanos, 99) / 1_000, nanos[QUERIES - 1] / 1_000,
+                    found[1], found[2], found[3], none));
+            assertTrue(found[3] > 0);
+        }
+    }
+
+    @Test
+    void matchesPlainBreadthFirstSearch() {
+        Random random = new Random(7);
+        int users = 20_000;
+        SocialGraph graph = powerLaw(users, 2, random);
+        // A few users outside the graph and a few isolated pairs
+        graph.addFriendship(users + 1, users + 2);
+
+        for (int i = 0; i < 2_000; i++) {
+            long a = 1 + random.nextInt(users + 3);
+            long b = i % 10 == 0 ? a : 1 + random.nextInt(users + 3);
+            int expected = reference(graph, a, b, MAX_DEPTH);
+            assertEquals(expected, graph.distance(a, b, MAX_DEPTH, Integer.MAX_VALUE), a + " -> " + b);
+            int shallow = reference(graph, a, b, 1);
+            assertEquals(shallow, graph.distance(a, b, 1, Integer.MAX_VALUE));
+        }
+        // Gives up once the budget is spent, but never reports a wrong distance
+        for (int i = 0; i < 2_000; i++) {
+            long a = 1 + random.nextInt(users);
+            long b = 1 + random.nextInt(users);
+            int distance = graph.distance(a, b, MAX_DEPTH, 50);
+            assertTrue(distance == -1 || distance == reference(graph, a, b, MAX_DEPTH));
+        }
+    }
+
+    // Each new user befriends LINKS existing users picked with probability
+    // proportional to their degree, which gives a power-law degree distribution
+    private static SocialGraph powerLaw(int users, int links, Random random) {
+        long[] endpoints = new long[users * links * 2];
+        int count = 0;
+        SocialGraph.Builder builder = new SocialGraph.Builder();
+        for (long user = 1; user <= links + 1; user++) {
+            for (long other = user + 1; other <= links + 1; other++) {
+                builder.add(user, other);
+                endpoints[count++] = user;
+                endpoints[count++] = other;
+            }
+        }
+        for (long user = links + 2; user <= users; user++) {
+            int existing = count;
+            for (int i = 0; i < links; i++) {
+                long other = endpoints[random.nextInt(existing)];
+                builder.add(user, other);
+                endpoints[count++] = user;
+                endpoints[count++] = other;
+            }
+        }
+        return builder.build();
+    }
+
+    private static int reference(SocialGraph graph, long from, long to, int maxDepth) {
+        if (from == to) {
+            return graph.degree(from) > 0 ? 0 : -1;
+        }
+        Map<Long, Integer> depths = new HashMap<>();
+        Queue<Long> queue = new ArrayDeque<>();
+        depths.put(from, 0);
+        queue.add(from);
+        while (!queue.isEmpty()) {
+            long user = queue.poll();
+            int depth = depths.get(user);
+            if (depth == maxDepth) {
+                continue;
+            }
+            for (long friend : graph.friends(user)) {
+                if (friend == to) {
+                    return depth + 1;
+                }
+                if (depths.putIfAbsent(friend, depth + 1) == null) {
+                    queue.add(friend);
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        return sorted[(int) Math.min(sorted.length - 1, (long) sorted.length * percent / 100)];
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.social_media_app.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 64 threads liking and unliking one post. Every operation yields once where
+ * the likes row is written; the read-modify-write variants yield again between
+ * reading and writing the counter, where the database round trip would be.
+ * Compares the striped write-behind counter, flushed concurrently into a
+ * stand-in for posts.like_count, with an unguarded read-modify-write (what
+ * saving the Post entity amounts to) and a row-locked one. The unit run only
+ * checks that no update is lost; throughput is measured with -Pbenchmark.
+ */
+@Slf4j
+class DeltaCountersBenchmarkTest {
+
+    private static final int THREADS = 64;
+    private static final int OPS_PER_THREAD = 10_000;
+    private static final long POST_ID = 42L;
+
+    @Test
+    void stripedAndLockedCountersLoseNoUpdates() throws Exception {
+        assertEquals(0, runStriped(OPS_PER_THREAD / 10)[1]);
+        assertEquals(0, runLocked(OPS_PER_THREAD / 10)[1]);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void sixtyFourThreadsOnOnePost() throws Exception {
+        // Warm-up so the JIT does not favour whichever variant runs second
+        runStriped(OPS_PER_THREAD / 10);
+        runUnguarded(OPS_PER_THREAD / 10);
+        runLocked(OPS_PER_THREAD / 10);
+
+        long ops = (long) THREADS * OPS_PER_THREAD;
+        log.info(String.format("%-28s %14s %14s", "variant", "ops/s", "lost updates"));
+        long[] striped = runStriped(OPS_PER_THREAD);
+        log.info(String.format("%-28s %,14d %,14d", "striped + write-behind",
+                ops * 1_000_000_000L / striped[0], striped[1]));
+        long[] unguarded = runUnguarded(OPS_PER_THREAD);
+        log.info(String.format("%-28s %,14d %,14d", "read-modify-write",
+                ops * 1_000_000_000L / unguarded[0], unguarded[1]));
+        long[] locked = runLocked(OPS_PER_THREAD);
+        log.info(String.format("%-28s %,14d %,14d", "locked read-modify-write",
+                ops * 1_000_000_000L / locked[0], locked[1]));
+
+        assertEquals(0, striped[1]);
+        assertEquals(0, locked[1]);
+    }
+
+    // Each variant returns the elapsed nanos and the number of lost updates
+    private long[] runStriped(int opsPerThread) throws Exception {
+        DeltaCounters counters = new DeltaCounters();
+        AtomicLong stored = new AtomicLong();
+        AtomicBoolean writing = new AtomicBoolean(true);
+
+        Thread flusher = new Thread(() -> {
+            while (writing.get()) {
+                counters.flush(deltas -> stored.addAndGet(deltas.getOrDefault(POST_ID, 0L)));
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        flusher.start();
+
+        long elapsed = runWriters(opsPerThread, i -> {
+            Thread.yield();
+            counters.add(POST_ID, delta(i));
+        });
+
+        writing.set(false);
+        flusher.join();
+        counters.flush(deltas -> stored.addAndGet(deltas.getOrDefault(POST_ID, 0L)));
+
+        assertEquals(0, counters.pending(POST_ID));
+        return new long[] { elapsed, Math.abs(expectedTotal(opsPerThread) - stored.get()) };
+    }
+
+    private long[] runUnguarded(int opsPerThread) throws Exception {
+        AtomicLong stored = new AtomicLong();
+
+        long elapsed = runWriters(opsPerThread, i -> {
+            Thread.yield();
+            long current = stored.get();
+            Thread.yield();
+            stored.set(current + delta(i));
+        });
+
+        return new long[] { elapsed, Math.abs(expectedTotal(opsPerThread) - stored.get()) };
+    }
+
+    private long[] runLocked(int opsPerThread) throws Exception {
+        Object rowLock = new Object();
+        long[] stored = new long[1];
+
+        long elapsed = runWriters(opsPerThread, i -> {
+            Thread.yield();
+            synchronized (rowLock) {
+                long current = stored[0];
+                Thread.yield();
+                stored[0] = current + delta(i);
+            }
+        });
+
+        return new long[] { elapsed, Math.abs(expectedTotal(opsPerThread) - stored[0]) };
+    }
+
+    private long runWriters(int opsPerThread, IntOp op) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < opsPerThread; i++) {
+                        op.apply(i);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        assertTrue(done.await(2, TimeUnit.MINUTES));
+        long elapsed = System.nanoTime() - startedAt;
+        pool.shutdown();
+        return elapsed;
+    }
+
+    // Every third operation of a thread is an unlike
+    private static int delta(int i) {
+        return i % 3 == 2 ? -1 : 1;
+    }
+
+    private static long expectedTotal(int opsPerThread) {
+        long unlikes = opsPerThread / 3;
+        return (long) THREADS * (opsPerThread - 2 * unlikes);
+    }
+
+    @FunctionalInterface
+    private interface IntOp {
+        void apply(int i);
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.social_media_app.util;
+
+import com.example.social_media_app.model.TimelineEntry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Trade-off between write amplification and read cost of the hybrid feed for
+ * different fan-out thresholds, on a synthetic power-law friendship graph.
+ * The feed contents must not depend on the threshold; the per-threshold
+ * timings are only measured in the benchmark run (mvn test -Pbenchmark).
+ */
+@Slf4j
+class FeedFanoutBenchmarkTest {
+
+    private static final int USERS = 20_000;
+    private static final int EDGES_PER_NEW_USER = 5;
+    private static final int POSTS_PER_USER = 3;
+    private static final int PAGE_SIZE = 21;
+    private static final int READERS = 500;
+    private static final int[] THRESHOLDS = { Integer.MAX_VALUE, 500, 100, 25, 0 };
+
+    @Test
+    void feedContentsDoNotDependOnTheThreshold() {
+        Network network = network();
+
+        long previousWrites = Long.MAX_VALUE;
+        List<List<TimelineEntry>> referenceFeeds = null;
+        for (int threshold : THRESHOLDS) {
+            Run run = network.read(threshold);
+
+            assertTrue(run.writes() <= previousWrites, "Lower thresholds must never write more rows");
+            previousWrites = run.writes();
+
+            if (referenceFeeds == null) {
+                referenceFeeds = run.feeds();
+            } else {
+                assertEquals(referenceFeeds, run.feeds(), "Feed contents must not depend on the threshold");
+            }
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void writeAmplificationVersusReadLatency() {
+        Network network = network();
+
+        log.info(String.format("%-12s %14s %16s %14s %12s %12s",
+                "threshold", "rows written", "rows per post", "pulled/read", "p50 (us)", "p99 (us)"));
+        for (int threshold : THRESHOLDS) {
+            Run run = network.read(threshold);
+            long[] latencies = run.latencies();
+            Arrays.sort(latencies);
+            log.info(String.format("%-12s %14d %16.1f %14.1f %12.1f %12.1f",
+                    threshold == Integer.MAX_VALUE ? "push only" : String.valueOf(threshold),
+                    run.writes(),
+                    run.writes() / (double) (USERS * POSTS_PER_USER),
+                    run.pulledAuthors() / (double) READERS,
+                    latencies[READERS / 2] / 1_000.0,
+                    latencies[READERS * 99 / 100] / 1_000.0));
+        }
+    }
+
+    // Rows written for all posts, and the first page of each reader's feed with
+    // the time its merge took
+    private record Run(long writes, long pulledAuthors, long[] latencies, List<List<TimelineEntry>> feeds) {
+    }
+
+    private record Network(List<Set<Integer>> friends, List<List<TimelineEntry>> postsByAuthor, int[] readers) {
+
+        Run read(int threshold) {
+            long writes = 0;
+            for (int author = 0; author < USERS; author++) {
+                int degree = friends.get(author).size();
+                writes += (long) POSTS_PER_USER * (1 + (degree <= threshold ? degree : 0));
+            }
+
+            long[] latencies = new long[READERS];
+            long pulledAuthors = 0;
+            List<List<TimelineEntry>> feeds = new ArrayList<>();
+            for (int r = 0; r < READERS; r++) {
+                int reader = readers[r];
+
+                // Materialized timeline: own posts plus pushed posts of low-degree friends
+                List<TimelineEntry> pushed = new ArrayList<>(postsByAuthor.get(reader));
+                List<Integer> pulled = new ArrayList<>();
+                for (int friend : friends.get(reader)) {
+                    if (friends.get(friend).size() <= threshold) {
+                        pushed.addAll(postsByAuthor.get(friend));
+                    } else {
+                        pulled.add(friend);
+                    }
+                }
+                pushed.sort(FeedMerger.NEWEST_FIRST);
+                List<TimelineEntry> head = pushed.subList(0, Math.min(PAGE_SIZE, pushed.size()));
+
+                long start = System.nanoTime();
+                List<List<TimelineEntry>> sources = new ArrayList<>(pulled.size() + 1);
+                sources.add(head);
+                for (int author : pulled) {
+                    sources.add(postsByAuthor.get(author));
+                }
+                List<TimelineEntry> feed = FeedMerger.merge(sources, PAGE_SIZE);
+                latencies[r] = System.nanoTime() - start;
+
+                pulledAuthors += pulled.size();
+                feeds.add(feed);
+            }
+            return new Run(writes, pulledAuthors, latencies, feeds);
+        }
+    }
+
+    private static Network network() {
+        Random random = new Random(42);
+        List<Set<Integer>> friends = preferentialAttachmentGraph(random);
+
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 0, 0);
+        List<List<TimelineEntry>> postsByAuthor = new ArrayList<>();
+        long nextPostId = 1;
+        for (int author = 0; author < USERS; author++) {
+            List<TimelineEntry> posts = new ArrayList<>();
+            for (int i = 0; i < POSTS_PER_USER; i++) {
+                posts.add(TimelineEntry.builder()
+                        .postId(nextPostId++)
+                        .authorId((long) author)
+                        .createdAt(base.plusSeconds(random.nextInt(30 * 24 * 3600)))
+                        .build());
+            }
+            posts.sort(FeedMerger.NEWEST_FIRST);
+            postsByAuthor.add(posts);
+        }
+
+        return new Network(friends, postsByAuthor, random.ints(READERS, 0, USERS).toArray());
+    }
+
+    // Barabasi-Albert style graph: new users befriend existing users in proportion
+    // to their degree, which gives a long tail of very popular users
+    private static List<Set<Integer>> preferentialAttachmentGraph(Random random) {
+        List<Set<Integer>> friends = new ArrayList<>(USERS);
+        int[] endpoints = new int[2 * USERS * EDGES_PER_NEW_USER];
+        int endpointCount = 0;
+
+        for (int user = 0; user < USERS; user++) {
+            friends.add(new HashSet<>());
+            if (user == 0) {
+                continue;
+            }
+            int wanted = Math.min(EDGES_PER_NEW_USER, user);
+            while (friends.get(user).size() < wanted) {
+                int other = endpointCount == 0 ? 0 : endpoints[random.nextInt(endpointCount)];
+                if (other != user && friends.get(user).add(other)) {
+                    friends.get(other).add(user);
+                    endpoints[endpointCount++] = user;
+                    endpoints[endpointCount++] = other;
+                }
+            }
+        }
+        return friends;
+    }
+}
@@ -0,0 +1,307 @@
+package com.example.social_media_app.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.IntFunction;
+import java.util.function.LongToDoubleFunction;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Heap footprint and query latency of the post search index on 1M synthetic
+ * posts with a Zipf-distributed vocabulary, next to the substring scan it
+ * replaces, and of ranking every match (run with -Pbenchmark). The unit run
+ * checks matches and BM25 scores against a plain map of texts under random
+ * creates and deletes, including posts committed out of id order.
+ */
+@Slf4j
+class PostIndexBenchmarkTest {
+
+    private static final int POSTS = 1_000_000;
+    private static final int VOCABULARY = 50_000;
+    private static final int WORDS_PER_POST = 12;
+    private static final int AUTHORS = 100_000;
+    private static final int QUERIES = 2_000;
+    // Posts a minute apart, the newest about now
+    private static final long START = 1_700_000_000L - POSTS * 60L;
+
+    @Test
+    @Tag("benchmark")
+    void footprintAndLatencyOnAMillionPosts() {
+        Random random = new Random(42);
+        String[] words = vocabulary(random, VOCABULARY);
+        double[] zipf = zipf(VOCABULARY);
+
+        String[] contents = new String[POSTS];
+        long textBytes = 0;
+        PostIndex index = new PostIndex();
+        for (int i = 0; i < POSTS; i++) {
+            contents[i] = post(random, words, zipf);
+            textBytes += contents[i].length();
+            index.add(i + 1, 1 + random.nextInt(AUTHORS), START + i * 60L, contents[i]);
+        }
+        log.info(String.format("%,d posts, %,d terms, index %,d MB, text %,d MB",
+                index.postCount(), index.termCount(), index.sizeInBytes() >> 20, textBytes >> 20));
+
+        // Friends of a typical viewer
+        long[] friends = random.longs(300, 1, AUTHORS + 1).sorted().distinct().toArray();
+
+        log.info(String.format("%-28s %10s %10s %10s", "query", "p50 (us)", "p99 (us)", "hits"));
+        report("one common word", index, friends, i -> List.of(words[i % 20]));
+        report("one rare word", index, friends, i -> List.of(words[5_000 + i % 1_000]));
+        report("two words", index, friends, i -> List.of(words[i % 50], words[100 + i % 500]));
+        report("prefix of 2 chars", index, friends, i -> List.of(words[i % 500].substring(0, 2)));
+        report("word + prefix of 3 chars", index, friends,
+                i -> List.of(words[i % 50], words[200 + i % 500].substring(0, 3)));
+
+        // Ranking scores every match instead of stopping at the first ten
+        LongToDoubleFunction recency = createdAt -> 1 + Math.pow(0.5, (START + POSTS * 60L - createdAt) / 259_200.0);
+        reportRanked("ranked, one common word", index, friends, i -> List.of(words[i % 20]), recency);
+        reportRanked("ranked, two words", index, friends, i -> List.of(words[i % 50], words[100 + i % 500]),
+                recency);
+        reportRanked("ranked, prefix of 2 chars", index, friends, i -> List.of(words[i % 500].substring(0, 2)),
+                recency);
+        reportRanked("ranked, all authors", index, null, i -> List.of(words[100 + i % 500]), recency);
+
+        // What LIKE '%term%' does: look at every post
+        long[] nanos = new long[20];
+        long sink = 0;
+        for (int q = 0; q < nanos.length; q++) {
+            String term = words[100 + q];
+            long startedAt = System.nanoTime();
+            for (String content : contents) {
+                if (content.contains(term)) {
+                    sink++;
+                }
+            }
+            nanos[q] = System.nanoTime() - startedAt;
+        }
+        Arrays.sort(nanos);
+        log.info(String.format("%-28s %,10d %10s %10s", "substring scan", nanos[nanos.length / 2] / 1_000, "", ""));
+
+        assertTrue(sink > 0);
+        assertEquals(POSTS, index.postCount());
+    }
+
+    @Test
+    void matchesReferenceUnderRandomUpdates() {
+        Random random = new Random(7);
+        String[] words = vocabulary(random, 300);
+        double[] zipf = zipf(words.length);
+        PostIndex index = new PostIndex();
+        Map<Long, String> posts = new HashMap<>();
+        Map<Long, Long> authors = new HashMap<>();
+
+        long nextId = 1;
+        for (int step = 0; step < 20_000; step++) {
+            if (random.nextInt(4) == 0 && !posts.isEmpty()) {
+                long id = 1 + random.nextInt((int) nextId);
+                String content = posts.remove(id);
+                assertEquals(content != null, index.remove(id, content == null ? "" : content));
+                authors.remove(id);
+            } else {
+                // Now and then a post commits after a newer one
+                long id = random.nextInt(10) == 0 && nextId > 20 ? nextId - 1 - random.nextInt(20) : nextId++;
+                String content = post(random, words, zipf);
+                long author = 1 + random.nextInt(50);
+                boolean added = !posts.containsKey(id);
+                assertEquals(added, index.add(id, author, id * 60, content));
+                if (added) {
+                    posts.put(id, content);
+                    authors.put(id, author);
+                }
+            }
+        }
+
+        // The reference works on the tokens, computed once
+        Map<Long, List<String>> tokens = new HashMap<>();
+        posts.forEach((id, content) -> tokens.put(id, TextTokenizer.tokenize(content)));
+
+        for (int q = 0; q < 500; q++) {
+            List<String> terms = new ArrayList<>();
+            for (int t = random.nextInt(3); t > 0; t--) {
+                terms.add(words[pick(random, zipf)]);
+            }
+            String last = words[pick(random, zipf)];
+            terms.add(last.substring(0, 1 + random.nextInt(last.length())));
+
+            // Every fifth query is not restricted to some authors
+            boolean anyone = q % 5 == 0;
+            Set<Long> allowed = new HashSet<>();
+            for (long author = 1; author <= 50; author += anyone ? 1 : 1 + random.nextInt(8)) {
+                allowed.add(author);
+            }
+            long[] expected = tokens.entrySet().stream()
+                    .filter(post -> matches(post.getValue(), terms))
+                    .filter(post -> allowed.contains(authors.get(post.getKey())))
+                    .mapToLong(Map.Entry::getKey)
+                    .map(id -> -id).sorted().map(id -> -id)
+                    .limit(25)
+                    .toArray();
+            long[] allowedIds = anyone ? null : allowed.stream().mapToLong(Long::longValue).sorted().toArray();
+            assertArrayEquals(expected, index.search(terms, allowedIds, 25), terms.toString());
+
+            // Ranked: BM25 over the same matches, recomputed from the texts
+            List<PostIndex.Hit> ranked = index.rank(terms, allowedIds, 25, createdAt -> 1 + createdAt / 1e6);
+            List<PostIndex.Hit> reference = bm25(tokens, authors, terms, allowed);
+            assertEquals(Math.min(25, reference.size()), ranked.size(), terms.toString());
+            for (int i = 0; i < ranked.size(); i++) {
+                assertEquals(reference.get(i).score(), ranked.get(i).score(), 1e-9, terms.toString());
+                assertEquals(reference.get(i).postId(), ranked.get(i).postId(), terms.toString());
+            }
+        }
+    }
+
+    // Scores every allowed post matching the terms, best first, with the same
+    // boost as above
+    private static List<PostIndex.Hit> bm25(Map<Long, List<String>> posts, Map<Long, Long> authors,
+            List<String> terms, Set<Long> allowed) {
+        double averageLength = posts.values().stream().mapToInt(List::size).average().orElse(1);
+        String prefix = terms.get(terms.size() - 1);
+        // Documents per term; for the prefix, postings summed over the words it matches
+        List<Long> documents = new ArrayList<>();
+        for (String term : terms.subList(0, terms.size() - 1)) {
+            documents.add(posts.values().stream().filter(tokens -> tokens.contains(term)).count());
+        }
+        Set<String> expansions = new TreeSet<>();
+        posts.values().forEach(tokens -> tokens.stream()
+                .filter(token -> token.startsWith(prefix)).forEach(expansions::add));
+        documents.add(Math.min(posts.size(), expansions.stream().limit(PostIndex.MAX_PREFIX_TERMS)
+                .mapToLong(word -> posts.values().stream().filter(tokens -> tokens.contains(word)).count())
+                .sum()));
+        Set<String> usedExpansions = new HashSet<>(expansions.stream().limit(PostIndex.MAX_PREFIX_TERMS).toList());
+
+        List<PostIndex.Hit> hits = new ArrayList<>();
+        for (Map.Entry<Long, List<String>> post : posts.entrySet()) {
+            if (!allowed.contains(authors.get(post.getKey())) || !matches(post.getValue(), terms)) {
+                continue;
+            }
+            List<String> tokens = post.getValue();
+            double lengthNorm = 1.2 * (1 - 0.75 + 0.75 * tokens.size() / averageLength);
+            double score = 0;
+            for (int t = 0; t < terms.size(); t++) {
+                String term = terms.get(t);
+                boolean last = t == terms.size() - 1;
+                long frequency = tokens.stream()
+                        .filter(token -> last ? usedExpansions.contains(token) : token.equals(term)).count();
+                if (frequency == 0) {
+                    score = -1;
+                    break;
+                }
+                double idf = Math.log(1 + (posts.size() - documents.get(t) + 0.5) / (documents.get(t) + 0.5));
+                score += idf * frequency * 2.2 / (frequency + lengthNorm);
+            }
+            if (score >= 0) {
+                hits.add(new PostIndex.Hit(post.getKey(), score * (1 + post.getKey() * 60 / 1e6)));
+            }
+        }
+        hits.sort(Comparator.comparingDouble(PostIndex.Hit::score).thenComparingLong(PostIndex.Hit::postId)
+                .reversed());
+        return hits;
+    }
+
+    private static void report(String label, PostIndex index, long[] friends,
+            IntFunction<List<String>> query) {
+        for (int i = 0; i < 200; i++) {
+            index.search(query.apply(i), friends, 10);
+        }
+        long[] nanos = new long[QUERIES];
+        long hits = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            List<String> terms = query.apply(i);
+            long startedAt = System.nanoTime();
+            long[] found = index.search(terms, friends, 10);
+            nanos[i] = System.nanoTime() - startedAt;
+            hits += found.length;
+        }
+        Arrays.sort(nanos);
+        log.info(String.format("%-28s %,10d %,10d %10.1f", label, nanos[QUERIES / 2] / 1_000,
+                nanos[QUERIES * 99 / 100] / 1_000, (double) hits / QUERIES));
+    }
+
+    private static void reportRanked(String label, PostIndex index, long[] friends,
+            IntFunction<List<String>> query, LongToDoubleFunction recency) {
+        for (int i = 0; i < 200; i++) {
+            index.rank(query.apply(i), friends, 100, recency);
+        }
+        long[] nanos = new long[QUERIES];
+        long hits = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            List<String> terms = query.apply(i);
+            long startedAt = System.nanoTime();
+            hits += index.rank(terms, friends, 100, recency).size();
+            nanos[i] = System.nanoTime() - startedAt;
+        }
+        Arrays.sort(nanos);
+        log.info(String.format("%-28s %,10d %,10d %10.1f", label, nanos[QUERIES / 2] / 1_000,
+                nanos[QUERIES * 99 / 100] / 1_000, (double) hits / QUERIES));
+    }
+
+    private static boolean matches(List<String> tokens, List<String> terms) {
+        for (int i = 0; i < terms.size() - 1; i++) {
+            if (!tokens.contains(terms.get(i))) {
+                return false;
+            }
+        }
+        String prefix = terms.get(terms.size() - 1);
+        return tokens.stream().anyMatch(token -> token.startsWith(prefix));
+    }
+
+    private static String post(Random random, String[] words, double[] zipf) {
+        StringBuilder content = new StringBuilder();
+        for (int w = 0; w < WORDS_PER_POST; w++) {
+            content.append(w == 0 ? "" : " ").append(words[pick(random, zipf)]);
+        }
+        return content.toString();
+    }
+
+    // Distinct lower-case words of 3 to 9 letters
+    private static String[] vocabulary(Random random, int size) {
+        TreeMap<String, Boolean> words = new TreeMap<>();
+        List<String> ordered = new ArrayList<>();
+        while (ordered.size() < size) {
+            StringBuilder word = new StringBuilder();
+            for (int length = 3 + random.nextInt(7); length > 0; length--) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            if (words.put(word.toString(), true) == null) {
+                ordered.add(word.toString());
+            }
+        }
+        return ordered.toArray(new String[0]);
+    }
+
+    // Cumulative Zipf(1) distribution over the ranks
+    private static double[] zipf(int size) {
+        double[] cumulative = new double[size];
+        double sum = 0;
+        for (int rank = 0; rank < size; rank++) {
+            sum += 1.0 / (rank + 1);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < size; rank++) {
+            cumulative[rank] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static int pick(Random random, double[] cumulative) {
+        int at = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(cumulative.length - 1, at >= 0 ? at : -at - 1);
+    }
+}
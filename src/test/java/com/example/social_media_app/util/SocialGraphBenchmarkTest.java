@@ -0,0 +1,160 @@
+package com.example.social_media_app.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Heap footprint and lookup latency of the CSR friendship graph with 10M
+ * friendships, next to the boxed map of sets it replaces (measured on a tenth
+ * of the edges, it would not fit otherwise); that part needs -Pbenchmark.
+ * The unit run checks the graph against that map under random accepts and
+ * unfriends.
+ */
+@Slf4j
+class SocialGraphBenchmarkTest {
+
+    private static final int USERS = 1_000_000;
+    private static final int FRIENDSHIPS = 10_000_000;
+    private static final int LOOKUPS = 1_000_000;
+
+    @Test
+    @Tag("benchmark")
+    void heapFootprintOfTenMillionFriendships() {
+        Random random = new Random(42);
+        long before = usedHeap();
+        SocialGraph.Builder builder = new SocialGraph.Builder();
+        for (int i = 0; i < FRIENDSHIPS; i++) {
+            builder.add(randomUser(random), randomUser(random));
+        }
+        SocialGraph graph = builder.build();
+        builder = null;
+        long graphBytes = usedHeap() - before;
+
+        before = usedHeap();
+        Map<Long, Set<Long>> boxed = new HashMap<>();
+        random = new Random(42);
+        for (int i = 0; i < FRIENDSHIPS / 10; i++) {
+            long a = randomUser(random);
+            long b = randomUser(random);
+            if (a != b) {
+                boxed.computeIfAbsent(a, id -> new HashSet<>()).add(b);
+                boxed.computeIfAbsent(b, id -> new HashSet<>()).add(a);
+            }
+        }
+        long boxedBytes = usedHeap() - before;
+        long boxedEdges = boxed.values().stream().mapToLong(Set::size).sum() / 2;
+
+        log.info(String.format("%-24s %14s %14s %14s", "layout", "friendships", "heap (MB)", "bytes/edge"));
+        log.info(String.format("%-24s %,14d %,14d %,14d", "CSR (measured)",
+                graph.edgeCount(), graphBytes >> 20, graphBytes / graph.edgeCount()));
+        log.info(String.format("%-24s %,14d %,14d %,14d", "CSR (sizeInBytes)",
+                graph.edgeCount(), graph.sizeInBytes() >> 20, graph.sizeInBytes() / graph.edgeCount()));
+        log.info(String.format("%-24s %,14d %,14d %,14d", "HashMap<Long, HashSet>",
+                boxedEdges, boxedBytes >> 20, boxedBytes / boxedEdges));
+        boxed = null;
+
+        // Lookups on random pairs
+        long[] users = random.longs(LOOKUPS, 1, USERS + 1).toArray();
+        long sink = 0;
+        long startedAt = System.nanoTime();
+        for (int i = 0; i + 1 < LOOKUPS; i++) {
+            sink += graph.areFriends(users[i], users[i + 1]) ? 1 : 0;
+        }
+        long adjacency = System.nanoTime() - startedAt;
+        startedAt = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            sink += graph.degree(users[i]);
+        }
+        long degree = System.nanoTime() - startedAt;
+        startedAt = System.nanoTime();
+        for (int i = 0; i + 1 < LOOKUPS; i++) {
+            sink += graph.mutualCount(users[i], users[i + 1]);
+        }
+        long mutual = System.nanoTime() - startedAt;
+
+        log.info(String.format("%-24s %,14d ns", "areFriends", adjacency / LOOKUPS));
+        log.info(String.format("%-24s %,14d ns", "degree", degree / LOOKUPS));
+        log.info(String.format("%-24s %,14d ns", "mutualCount", mutual / LOOKUPS));
+
+        assertTrue(sink > 0);
+        assertTrue(graph.edgeCount() > FRIENDSHIPS * 99L / 100);
+        assertTrue(graph.sizeInBytes() / graph.edgeCount() < 24);
+    }
+
+    @Test
+    void matchesReferenceUnderRandomUpdates() {
+        Random random = new Random(7);
+        int users = 2_000;
+        Map<Long, Set<Long>> reference = new HashMap<>();
+
+        SocialGraph.Builder builder = new SocialGraph.Builder();
+        for (int i = 0; i < 10_000; i++) {
+            long a = 1 + random.nextInt(users);
+            long b = 1 + random.nextInt(users);
+            builder.add(a, b);
+            link(reference, a, b, true);
+        }
+        SocialGraph graph = builder.build();
+
+        for (int i = 0; i < 100_000; i++) {
+            long a = 1 + random.nextInt(users);
+            long b = 1 + random.nextInt(users);
+            boolean add = random.nextInt(3) != 0;
+            boolean changed = add ? graph.addFriendship(a, b) : graph.removeFriendship(a, b);
+            assertEquals(link(reference, a, b, add), changed);
+        }
+
+        long edges = 0;
+        for (long user = 1; user <= users; user++) {
+            long[] expected = reference.getOrDefault(user, Set.of()).stream()
+                    .mapToLong(Long::longValue).sorted().toArray();
+            assertArrayEquals(expected, graph.friends(user));
+            assertEquals(expected.length, graph.degree(user));
+            edges += expected.length;
+
+            long other = 1 + random.nextInt(users);
+            Set<Long> mutual = new HashSet<>(reference.getOrDefault(user, Set.of()));
+            mutual.retainAll(reference.getOrDefault(other, Set.of()));
+            assertEquals(mutual.size(), graph.mutualCount(user, other));
+            assertArrayEquals(mutual.stream().mapToLong(Long::longValue).sorted().toArray(),
+                    graph.mutualFriends(user, other));
+        }
+        assertEquals(edges / 2, graph.edgeCount());
+    }
+
+    // Returns true if the reference changed
+    private static boolean link(Map<Long, Set<Long>> reference, long a, long b, boolean add) {
+        if (a == b) {
+            return false;
+        }
+        if (add) {
+            reference.computeIfAbsent(b, id -> new HashSet<>()).add(a);
+            return reference.computeIfAbsent(a, id -> new HashSet<>()).add(b);
+        }
+        reference.getOrDefault(b, new HashSet<>()).remove(a);
+        return reference.getOrDefault(a, new HashSet<>()).remove(b);
+    }
+
+    private static long randomUser(Random random) {
+        return 1 + random.nextInt(USERS);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.social_media_app.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Heap footprint and typeahead latency of the user index on 1M synthetic
+ * users, next to the scan-and-sort the relevance query does; -Pbenchmark
+ * only. The unit run checks the ranking against a brute-force implementation
+ * of the relevance tiers under random registrations, renames and removals.
+ */
+@Slf4j
+class UserIndexBenchmarkTest {
+
+    private static final int USERS = 1_000_000;
+    private static final int QUERIES = 2_000;
+    private static final int LIMIT = 10;
+
+    @Test
+    @Tag("benchmark")
+    void footprintAndLatencyOnAMillionUsers() {
+        Random random = new Random(42);
+        String[] firstNames = words(random, 3_000, 3, 8);
+        String[] lastNames = words(random, 20_000, 4, 10);
+
+        String[][] users = new String[USERS][];
+        UserIndex index = new UserIndex();
+        for (int i = 0; i < USERS; i++) {
+            users[i] = user(random, firstNames, lastNames, i);
+            index.put(i + 1, users[i][0], users[i][1], users[i][2], users[i][3]);
+        }
+        log.info(String.format("%,d users, %,d trigrams, index %,d MB",
+                index.userCount(), index.trigramCount(), index.sizeInBytes() >> 20));
+
+        log.info(String.format("%-28s %10s %10s %10s", "query", "p50 (us)", "p99 (us)", "hits"));
+        report("one character", index, i -> String.valueOf((char) ('a' + i % 26)));
+        report("first name prefix", index, i -> firstNames[i % 3_000].substring(0, 3));
+        report("full first name", index, i -> firstNames[i % 3_000]);
+        report("full name", index, i -> users[i * 499 % USERS][0] + " " + users[i * 499 % USERS][1]);
+        report("exact username", index, i -> users[i * 499 % USERS][2]);
+        report("last name infix", index, i -> lastNames[i % 20_000].substring(1, 4));
+        report("no match", index, i -> "zq" + firstNames[i % 3_000]);
+
+        // What the relevance query does: test every user, then sort the matches
+        long[] nanos = new long[20];
+        long sink = 0;
+        for (int q = 0; q < nanos.length; q++) {
+            String term = firstNames[q].substring(0, 3);
+            long startedAt = System.nanoTime();
+            List<String[]> matches = new ArrayList<>();
+            for (String[] user : users) {
+                String name = (user[0] + " " + user[1]).toLowerCase();
+                if (name.contains(term) || user[2].toLowerCase().contains(term)
+                        || user[3].toLowerCase().contains(term)) {
+                    matches.add(user);
+                }
+            }
+            matches.sort(Comparator.comparing(user -> user[0].startsWith(term) ? 3 : 5));
+            sink += matches.size();
+            nanos[q] = System.nanoTime() - startedAt;
+        }
+        Arrays.sort(nanos);
+        log.info(String.format("%-28s %,10d %10s %10s", "scan and sort", nanos[nanos.length / 2] / 1_000, "", ""));
+
+        assertTrue(sink > 0);
+        assertEquals(USERS, index.userCount());
+    }
+
+    @Test
+    void matchesReferenceUnderRandomUpdates() {
+        Random random = new Random(7);
+        // Few short names, so exact and prefix matches collide often
+        String[] firstNames = words(random, 30, 2, 4);
+        String[] lastNames = words(random, 60, 2, 5);
+        UserIndex index = new UserIndex();
+        Map<Long, String[]> users = new HashMap<>();
+
+        for (int step = 0; step < 20_000; step++) {
+            long id = 1 + random.nextInt(3_000);
+            if (random.nextInt(5) == 0) {
+                assertEquals(users.remove(id) != null, index.remove(id));
+            } else {
+                String[] user = user(random, firstNames, lastNames, random.nextInt(100));
+                index.put(id, user[0], user[1], user[2], user[3]);
+                users.put(id, user);
+            }
+        }
+
+        for (int q = 0; q < 1_000; q++) {
+            String query = switch (random.nextInt(4)) {
+                case 0 -> firstNames[random.nextInt(firstNames.length)];
+                case 1 -> user(random, firstNames, lastNames, random.nextInt(100))[2];
+                case 2 -> lastNames[random.nextInt(lastNames.length)].substring(1);
+                default -> firstNames[random.nextInt(firstNames.length)] + " "
+                        + lastNames[random.nextInt(lastNames.length)].charAt(0);
+            };
+            long excluded = 1 + random.nextInt(3_000);
+            int limit = 1 + random.nextInt(30);
+            long[] found = index.search(query, excluded, limit);
+
+            List<Match> matches = reference(users, query.toLowerCase(), excluded);
+            long[] expected = matches.stream().mapToLong(Match::id).limit(limit).toArray();
+            if (query.length() >= 3) {
+                assertArrayEquals(expected, found, query);
+            } else {
+                // Substring matches of one or two characters come in slot
+                // order, so past the prefix tiers any of them may fill the page
+                assertEquals(expected.length, found.length, query);
+                Set<Long> substringMatches = new HashSet<>();
+                for (int i = 0; i < matches.size(); i++) {
+                    if (matches.get(i).tier() == 5) {
+                        substringMatches.add(matches.get(i).id());
+                    } else if (i < found.length) {
+                        assertEquals(expected[i], found[i], query);
+                    }
+                }
+                for (int i = 0; i < found.length; i++) {
+                    assertTrue(matches.get(i).tier() < 5 || substringMatches.contains(found[i]), query);
+                }
+            }
+        }
+    }
+
+    private record Match(long id, int tier, String key) {
+    }
+
+    // Every match sorted by tier, then by the key the tier is walked in, then id
+    private static List<Match> reference(Map<Long, String[]> users, String q, long excluded) {
+        List<Match> matches = new ArrayList<>();
+        for (Map.Entry<Long, String[]> entry : users.entrySet()) {
+            String[] user = entry.getValue();
+            String name = (user[0] + " " + user[1]).toLowerCase();
+            String username = user[2].toLowerCase();
+            String email = user[3].toLowerCase();
+            int tier;
+            String key = "";
+            if (name.equals(q)) {
+                tier = 1;
+            } else if (username.equals(q)) {
+                tier = 2;
+            } else if (name.startsWith(q)) {
+                tier = 3;
+                key = name;
+            } else if (username.startsWith(q)) {
+                tier = 4;
+                key = username;
+            } else if (name.contains(q) || username.contains(q) || email.contains(q)) {
+                tier = 5;
+            } else {
+                continue;
+            }
+            if (entry.getKey() != excluded) {
+                matches.add(new Match(entry.getKey(), tier, key));
+            }
+        }
+        return matches.stream()
+                .sorted(Comparator.comparingInt(Match::tier).thenComparing(Match::key).thenComparingLong(Match::id))
+                .toList();
+    }
+
+    private static void report(String label, UserIndex index, IntFunction<String> query) {
+        for (int i = 0; i < 200; i++) {
+            index.search(query.apply(i), 0, LIMIT);
+        }
+        long[] nanos = new long[QUERIES];
+        long hits = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            String q = query.apply(i);
+            long startedAt = System.nanoTime();
+            long[] found = index.search(q, 0, LIMIT);
+            nanos[i] = System.nanoTime() - startedAt;
+            hits += found.length;
+        }
+        Arrays.sort(nanos);
+        log.info(String.format("%-28s %,10d %,10d %10.1f", label, nanos[QUERIES / 2] / 1_000,
+                nanos[QUERIES * 99 / 100] / 1_000, (double) hits / QUERIES));
+    }
+
+    // First name, last name, username, email
+    private static String[] user(Random random, String[] firstNames, String[] lastNames, int n) {
+        String first = firstNames[random.nextInt(firstNames.length)];
+        String last = lastNames[random.nextInt(lastNames.length)];
+        String username = first + "." + last + n;
+        return new String[] { capitalize(first), capitalize(last), username, username + "@example.com" };
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    // Distinct lower-case words
+    private static String[] words(Random random, int size, int minLength, int maxLength) {
+        Set<String> words = new HashSet<>();
+        List<String> ordered = new ArrayList<>();
+        while (ordered.size() < size) {
+            StringBuilder word = new StringBuilder();
+            for (int length = minLength + random.nextInt(maxLength - minLength + 1); length > 0; length--) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            if (words.add(word.toString())) {
+                ordered.add(word.toString());
+            }
+        }
+        return ordered.toArray(new String[0]);
+    }
+}